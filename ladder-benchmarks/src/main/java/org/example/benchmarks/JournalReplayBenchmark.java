@@ -0,0 +1,77 @@
+package org.example.benchmarks;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.example.persistence.Durability;
+import org.example.persistence.LadderJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup replay of a journal, reported as events per second (the target is a million):
+ * 10,000 players joining then 2,000,000 challenge matches, rebuilt into a new ladder.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+    private static final int PLAYERS = 10_000;
+    private static final int MATCHES = 2_000_000;
+
+    Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("replay", ".journal");
+        Files.delete(file);
+        Ladder ladder = new Ladder();
+        try (LadderJournal journal = LadderJournal.open(file, Durability.BUFFERED)) {
+            ladder.addListener(journal);
+            List<Player> players = new ArrayList<>(PLAYERS);
+            for (int i = 1; i <= PLAYERS; i++) {
+                players.add(new Player("P" + i, "L" + i, i));
+            }
+            ladder.addPlayers(players);
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < MATCHES; i++) {
+                Workloads.playChallenge(ladder, random);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // a few challenges pick the same player twice and aren't played, so this is slightly over
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS + MATCHES)
+    public Ladder replay() throws IOException {
+        Ladder ladder = new Ladder();
+        LadderJournal.replay(file, ladder);
+        return ladder;
+    }
+}
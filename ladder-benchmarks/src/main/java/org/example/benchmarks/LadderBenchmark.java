@@ -0,0 +1,136 @@
+package org.example.benchmarks;
+
+import org.apache.commons.math3.util.Pair;
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single operations on a ladder of `size` players that has already had `history` matches
+ * played on it. Match traffic follows Workloads, lookups hit random players.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class LadderBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    @Param({"0", "1000000"})
+    int history;
+
+    Ladder ladder;
+    AllPlayerStats stats;
+    SplittableRandom random;
+
+    // a fresh ladder every iteration, results and joins/leaves add to its history & ids
+    // as they go, so without this later iterations would measure a bigger ladder
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ladder = Workloads.newLadder(size, history, 42);
+        stats = ladder.getAllPlayerStats();
+        random = new SplittableRandom(7);
+    }
+
+    private Player randomPlayer() {
+        return ladder.getPlayer(random.nextInt(size) + 1);
+    }
+
+    // lookups by name then the result, as LadderAppTest.playMatch does it
+    @Benchmark
+    public void challengeMatch() {
+        Player p1 = randomPlayer();
+        Player p2 = randomPlayer();
+        int position1 = ladder.getPlayerPosition(p1.getFirstName(), p1.getLastName());
+        int position2 = ladder.getPlayerPosition(p2.getFirstName(), p2.getLastName());
+        if (position1 == position2) {
+            return;
+        }
+        int higher = Math.min(position1, position2);
+        int lower = Math.max(position1, position2);
+        if (random.nextDouble() < Workloads.HIGHER_RANKED_WIN_PROBABILITY) {
+            ladder.matchResult(lower, higher);
+        } else {
+            ladder.matchResult(higher, lower);
+        }
+    }
+
+    @Benchmark
+    public void matchResult() {
+        Workloads.playChallenge(ladder, random);
+    }
+
+    @Benchmark
+    public Player getPlayer() {
+        return randomPlayer();
+    }
+
+    @Benchmark
+    public int getPlayerPosition() {
+        int n = random.nextInt(size) + 1;
+        return ladder.getPlayerPosition("P" + n, "L" + n);
+    }
+
+    // a pair so the standings stay the same size, each pair still leaves a departed player
+    // behind in the ids & history, hence the fresh ladder each iteration
+    @Benchmark
+    public void insertAndRemovePlayer() {
+        ladder.insertPlayer(new Player("New", "Player", random.nextInt(size) + 1));
+        ladder.removePlayer("New", "Player");
+    }
+
+    @Benchmark
+    public Pair<Integer, Integer> getPlayerWinsLosses() {
+        return stats.getPlayerWinsLosses(randomPlayer());
+    }
+
+    @Benchmark
+    public int getAllTimeHighestPosition() {
+        return stats.getAllTimeHighestPosition(randomPlayer());
+    }
+
+    @Benchmark
+    public double getAverageOpponentPosition() {
+        return stats.getAverageOpponentPosition(randomPlayer());
+    }
+
+    @Benchmark
+    public Pair<String, Integer> getHighestOpponentDefeated() {
+        return stats.getHighestOpponentDefeated(randomPlayer());
+    }
+
+    @Benchmark
+    public Pair<Integer, Integer> getHeadToHead() {
+        return stats.getHeadToHead(randomPlayer(), randomPlayer());
+    }
+
+    @Benchmark
+    public String getAllOpponentsHistory() {
+        return stats.getAllOpponentsHistory(randomPlayer());
+    }
+
+    @Benchmark
+    public Pair<List<Integer>, List<Integer>> getPositionTimeline() {
+        return stats.getPositionTimeline(randomPlayer());
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.benchmarks;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A league night: mostly people checking the standings, some results coming in and the
+ * odd player joining or leaving. readPercent of operations are lookups, 1% are a join
+ * followed by a leave and the rest are challenge matches.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MixedWorkloadBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    @Param({"50", "90"})
+    int readPercent;
+
+    Ladder ladder;
+    SplittableRandom random;
+
+    // fresh every iteration so each one starts from the same ladder, see LadderBenchmark.setUp
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ladder = Workloads.newLadder(size, size * 10, 42);
+        random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public void operation(Blackhole blackhole) {
+        int roll = random.nextInt(100);
+        if (roll < readPercent) {
+            Player p = ladder.getPlayer(random.nextInt(size) + 1);
+            blackhole.consume(ladder.getAllPlayerStats().getPlayerWinsLosses(p));
+            blackhole.consume(ladder.getPlayerPosition(p.getFirstName(), p.getLastName()));
+        } else if (roll == 99) {
+            ladder.insertPlayer(new Player("New", "Player", random.nextInt(size) + 1));
+            ladder.removePlayer("New", "Player");
+        } else {
+            Workloads.playChallenge(ladder, random);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.benchmarks;
+
+import org.example.component.Ladder;
+import org.example.report.LadderReport;
+import org.example.report.ReportFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full ladder reports (what dumpLadder does) and a page off the top, written to a Writer
+ * that throws the output away so only the report itself is measured
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    private static final Writer NULL_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    // matches per player
+    @Param({"1", "10"})
+    int history;
+
+    @Param({"ANSI", "CSV", "JSON_LINES"})
+    ReportFormat format;
+
+    Ladder ladder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ladder = Workloads.newLadder(size, size * history, 42);
+    }
+
+    @Benchmark
+    public void fullReport() throws IOException {
+        new LadderReport(ladder).format(format).writeTo(NULL_WRITER);
+    }
+
+    @Benchmark
+    public void topHundred() throws IOException {
+        new LadderReport(ladder).format(format).top(100).writeTo(NULL_WRITER);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.benchmarks;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Ladders & match traffic shaped like LadderAppTest.challengeMatchTest_6: two players picked
+ * at random, the higher ranked one wins 90% of the time
+ */
+final class Workloads {
+    static final double HIGHER_RANKED_WIN_PROBABILITY = 0.9;
+
+    private Workloads() {
+    }
+
+    static Ladder newLadder(int numPlayers, int numMatches, long seed) {
+        Ladder ladder = new Ladder();
+        List<Player> players = new ArrayList<>(numPlayers);
+        for (int i = 1; i <= numPlayers; i++) {
+            players.add(new Player("P" + i, "L" + i, i));
+        }
+        ladder.addPlayers(players);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < numMatches; i++) {
+            playChallenge(ladder, random);
+        }
+        return ladder;
+    }
+
+    // one random challenge, returns the winner's position before the match
+    static int playChallenge(Ladder ladder, SplittableRandom random) {
+        int size = ladder.getNumPlayers();
+        int position1 = random.nextInt(size) + 1;
+        int position2 = random.nextInt(size) + 1;
+        if (position1 == position2) {
+            return position1; // nobody plays themselves
+        }
+        int higher = Math.min(position1, position2);
+        int lower = Math.max(position1, position2);
+        if (random.nextDouble() < HIGHER_RANKED_WIN_PROBABILITY) {
+            ladder.matchResult(lower, higher);
+            return higher;
+        }
+        ladder.matchResult(higher, lower);
+        return lower;
+    }
+}
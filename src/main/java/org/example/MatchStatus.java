@@ -7,5 +7,23 @@ public enum MatchStatus {
     VICTORY,
     DEFEAT,
     DEFAULT_VICTORY,
-    DEFAULT_DEFEAT
+    DEFAULT_DEFEAT;
+
+    /**
+     * The same result seen from the opponent's side, eg VICTORY <-> DEFEAT
+     */
+    public MatchStatus opposite() {
+        switch (this) {
+            case VICTORY:
+                return DEFEAT;
+            case DEFEAT:
+                return VICTORY;
+            case DEFAULT_VICTORY:
+                return DEFAULT_DEFEAT;
+            case DEFAULT_DEFEAT:
+                return DEFAULT_VICTORY;
+            default:
+                return this;
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package org.example.challenge;
+
+import org.example.MatchStatus;
+import org.example.component.Player;
+
+import java.time.Instant;
+
+/**
+ * One challenge on a ChallengeBoard, from a player to someone a few places above them.
+ * Status is from the challenger's side: CHALLENGE while it's open, then VICTORY / DEFEAT once
+ * played, DEFAULT_VICTORY if the challenged player let it expire or CHALLENGE_CANCELLED
+ */
+public final class Challenge {
+    private final int id;
+    private final Player challenger;
+    private final Player challenged;
+    private final long issuedMillis;
+    private final long expiresMillis;
+    private MatchStatus status = MatchStatus.CHALLENGE;
+    private boolean accepted;
+
+    // set while the challenge is waiting to be answered
+    TimingWheel.Timeout<Challenge> timeout;
+
+    Challenge(int id, Player challenger, Player challenged, long issuedMillis, long expiresMillis) {
+        this.id = id;
+        this.challenger = challenger;
+        this.challenged = challenged;
+        this.issuedMillis = issuedMillis;
+        this.expiresMillis = expiresMillis;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Player getChallenger() {
+        return challenger;
+    }
+
+    public Player getChallenged() {
+        return challenged;
+    }
+
+    public Instant getIssuedAt() {
+        return Instant.ofEpochMilli(issuedMillis);
+    }
+
+    /**
+     * @return when it defaults if it hasn't been accepted by then
+     */
+    public Instant getExpiresAt() {
+        return Instant.ofEpochMilli(expiresMillis);
+    }
+
+    public MatchStatus getStatus() {
+        return status;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public boolean isOpen() {
+        return status == MatchStatus.CHALLENGE;
+    }
+
+    boolean involves(Player player) {
+        return player == challenger || player == challenged;
+    }
+
+    void accepted() {
+        accepted = true;
+    }
+
+    void closed(MatchStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return challenger.getFirstName() + " " + challenger.getLastName() + " -> "
+                + challenged.getFirstName() + " " + challenged.getLastName() + " " + status;
+    }
+}
@@ -0,0 +1,266 @@
+package org.example.challenge;
+
+import org.example.MatchStatus;
+import org.example.component.Ladder;
+import org.example.component.LadderListener;
+import org.example.component.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Challenges on one ladder. A player may challenge anyone up to Ladder.getMaxChallengeRange()
+ * places above them, and each player can only be in one open challenge at a time (as either
+ * side). The challenged player has until the challenge expires to accept it, after that the
+ * challenger wins by default (Ladder.defaultResult), so not answering costs you your place.
+ *
+ * Once accepted a challenge stays open until the match is played, see recordResult. Results
+ * between the two entered straight on the ladder close it as well, and a challenge is
+ * cancelled if either player leaves.
+ *
+ * Expiry runs off a hashed timing wheel: issuing, accepting and cancelling are O(1) and
+ * advance only looks at the ticks that have passed and the challenges due in them, however
+ * many are pending. Time comes from the ladder's clock, nothing expires until advance is
+ * called (eg from a scheduled task on whatever thread owns the ladder).
+ *
+ * Open challenges live in memory only, the results they end in go to the ladder as normal.
+ * Not thread safe, use from the same thread as the ladder.
+ */
+public class ChallengeBoard {
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    private static final int DEFAULT_BUCKETS = 4096;
+
+    private final Ladder ladder;
+    private final long expiryMillis;
+    private final TimingWheel<Challenge> wheel;
+
+    // open challenges by the id of each player in them (so each is in here twice)
+    private final Map<Integer, Challenge> openByPlayer = new HashMap<>();
+    private int numOpen = 0;
+    private int nextId = 1;
+
+    private final LadderListener listener = new LadderListener() {
+        @Override
+        public void playerRemoved(Player player) {
+            Challenge challenge = openByPlayer.get(player.getId());
+            if (challenge != null) {
+                close(challenge, MatchStatus.CHALLENGE_CANCELLED);
+            }
+        }
+
+        @Override
+        public void matchPlayed(Player winner, Player loser, int winnerPosition, int loserPosition) {
+            played(winner, loser, MatchStatus.VICTORY);
+        }
+
+        @Override
+        public void matchDefaulted(Player winner, Player loser, int winnerPosition, int loserPosition) {
+            played(winner, loser, MatchStatus.DEFAULT_VICTORY);
+        }
+
+        @Override
+        public void allPlayersRemoved() {
+            for (Challenge challenge : new ArrayList<>(openByPlayer.values())) {
+                if (challenge.isOpen()) {
+                    close(challenge, MatchStatus.CHALLENGE_CANCELLED);
+                }
+            }
+        }
+    };
+
+    /**
+     * Expiry is checked to the nearest second
+     * @param ladder
+     * @param expiry how long a challenge has to be accepted
+     * @param unit
+     */
+    public ChallengeBoard(Ladder ladder, long expiry, TimeUnit unit) {
+        this(ladder, expiry, unit, DEFAULT_TICK_MILLIS, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param ladder
+     * @param expiry how long a challenge has to be accepted
+     * @param unit
+     * @param tickMillis how precisely expiry is checked, challenges expire up to this late
+     * @param numBuckets size of the wheel, ideally about expiry / tickMillis
+     */
+    public ChallengeBoard(Ladder ladder, long expiry, TimeUnit unit, long tickMillis, int numBuckets) {
+        if (expiry < 0) {
+            throw new IllegalArgumentException("Expiry can't be negative: " + expiry);
+        }
+        this.ladder = ladder;
+        this.expiryMillis = unit.toMillis(expiry);
+        this.wheel = new TimingWheel<>(tickMillis, numBuckets, ladder.getClock().millis());
+        ladder.addListener(listener);
+    }
+
+    /**
+     * @param challenger
+     * @param challenged must be above challenger, and no more than the ladder's challenge
+     * range above
+     * @return the new challenge
+     * @throws IllegalArgumentException if challenged is out of range or either player isn't
+     * on the ladder
+     * @throws IllegalStateException if either player is already in an open challenge
+     */
+    public Challenge issue(Player challenger, Player challenged) {
+        checkOnLadder(challenger);
+        checkOnLadder(challenged);
+        // two rank lookups, O(log n) each
+        int gap = challenger.getCurrentPosition() - challenged.getCurrentPosition();
+        if (gap < 1 || gap > ladder.getMaxChallengeRange()) {
+            throw new IllegalArgumentException("Can only challenge 1 to " + ladder.getMaxChallengeRange()
+                    + " places above: " + challenger.getCurrentPosition() + " -> " + challenged.getCurrentPosition());
+        }
+        checkFree(challenger);
+        checkFree(challenged);
+
+        long now = ladder.getClock().millis();
+        Challenge challenge = new Challenge(nextId++, challenger, challenged, now, now + expiryMillis);
+        challenge.timeout = wheel.add(challenge, now + expiryMillis);
+        openByPlayer.put(challenger.getId(), challenge);
+        openByPlayer.put(challenged.getId(), challenge);
+        numOpen++;
+        return challenge;
+    }
+
+    public Challenge issue(int challengerPosition, int challengedPosition) {
+        return issue(ladder.getPlayer(challengerPosition), ladder.getPlayer(challengedPosition));
+    }
+
+    /**
+     * The challenged player takes it up, so it no longer expires
+     */
+    public void accept(Challenge challenge) {
+        checkOpen(challenge);
+        if (challenge.timeout != null) {
+            wheel.cancel(challenge.timeout);
+            challenge.timeout = null;
+        }
+        challenge.accepted();
+    }
+
+    /**
+     * Withdraws an open challenge, nothing is recorded on the ladder
+     */
+    public void cancel(Challenge challenge) {
+        checkOpen(challenge);
+        close(challenge, MatchStatus.CHALLENGE_CANCELLED);
+    }
+
+    /**
+     * Records the match on the ladder (with both players' positions as they are now), which
+     * closes the challenge
+     */
+    public void recordResult(Challenge challenge, boolean challengerWon) {
+        checkOpen(challenge);
+        Player winner = challengerWon ? challenge.getChallenger() : challenge.getChallenged();
+        Player loser = challengerWon ? challenge.getChallenged() : challenge.getChallenger();
+        ladder.matchResult(loser.getCurrentPosition(), winner.getCurrentPosition());
+    }
+
+    /**
+     * Expires everything due by the ladder clock's current time
+     * @return number of challenges that defaulted
+     */
+    public int advance() {
+        return advanceTo(ladder.getClock().millis());
+    }
+
+    /**
+     * Every challenge not accepted by epochMillis is won by the challenger by default
+     * @return number of challenges that defaulted
+     */
+    public int advanceTo(long epochMillis) {
+        return wheel.advance(epochMillis, this::expired);
+    }
+
+    /**
+     * @return the open challenge the player is in, or null if there isn't one
+     */
+    public Challenge getOpenChallenge(Player player) {
+        return openByPlayer.get(player.getId());
+    }
+
+    public int getNumOpen() {
+        return numOpen;
+    }
+
+    // open challenges not yet accepted
+    public int getNumPending() {
+        return wheel.size();
+    }
+
+    public List<Challenge> getOpenChallenges() {
+        List<Challenge> open = new ArrayList<>(numOpen);
+        for (Map.Entry<Integer, Challenge> entry : openByPlayer.entrySet()) {
+            // each challenge is in the map under both players, only take it once
+            if (entry.getKey() == entry.getValue().getChallenger().getId()) {
+                open.add(entry.getValue());
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Stops following the ladder, open challenges are left as they are
+     */
+    public void detach() {
+        ladder.removeListener(listener);
+    }
+
+    private void expired(Challenge challenge) {
+        challenge.timeout = null; // already off the wheel
+        Player challenger = challenge.getChallenger();
+        Player challenged = challenge.getChallenged();
+        // closed by the listener once the ladder has it
+        ladder.defaultResult(challenged.getCurrentPosition(), challenger.getCurrentPosition());
+        if (challenge.isOpen()) {
+            close(challenge, MatchStatus.DEFAULT_VICTORY); // board no longer listening
+        }
+    }
+
+    // a result between two players closes the challenge between them, if there is one
+    private void played(Player winner, Player loser, MatchStatus status) {
+        Challenge challenge = openByPlayer.get(winner.getId());
+        if (challenge == null || !challenge.involves(loser)) {
+            return;
+        }
+        close(challenge, winner == challenge.getChallenger() ? status : status.opposite());
+    }
+
+    private void close(Challenge challenge, MatchStatus status) {
+        if (challenge.timeout != null) {
+            wheel.cancel(challenge.timeout);
+            challenge.timeout = null;
+        }
+        openByPlayer.remove(challenge.getChallenger().getId());
+        openByPlayer.remove(challenge.getChallenged().getId());
+        numOpen--;
+        challenge.closed(status);
+    }
+
+    private void checkOnLadder(Player player) {
+        if (player == null || ladder.getPlayerById(player.getId()) != player) {
+            throw new IllegalArgumentException("Not on the ladder: "
+                    + (player == null ? null : player.getFirstName() + " " + player.getLastName()));
+        }
+    }
+
+    private void checkFree(Player player) {
+        Challenge open = openByPlayer.get(player.getId());
+        if (open != null) {
+            throw new IllegalStateException("Already in a challenge: " + open);
+        }
+    }
+
+    private void checkOpen(Challenge challenge) {
+        if (!challenge.isOpen() || openByPlayer.get(challenge.getChallenger().getId()) != challenge) {
+            throw new IllegalStateException("Challenge isn't open: " + challenge);
+        }
+    }
+}
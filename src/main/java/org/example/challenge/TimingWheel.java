@@ -0,0 +1,124 @@
+package org.example.challenge;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: timeouts are hung off a ring of buckets by their deadline tick, so
+ * adding or cancelling one is O(1) and moving time on only looks at the buckets for the ticks
+ * that have passed, never at every pending timeout.
+ *
+ * Each bucket is an intrusive doubly linked list. A timeout more than one turn of the wheel
+ * away sits in its bucket until its turn comes round, so a bucket is only walked once per
+ * turn however long the timeouts in it have to wait.
+ *
+ * Not thread safe.
+ */
+final class TimingWheel<T> {
+
+    static final class Timeout<T> {
+        final T value;
+        final long deadlineTick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean pending;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timeout<T>[] buckets;
+    private final int mask;
+    private long currentTick; // every tick before this has been expired
+    private int size = 0;
+
+    /**
+     * @param tickMillis resolution, timeouts fire on the first tick at or after their deadline
+     * @param numBuckets rounded up to a power of 2
+     * @param startMillis
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int numBuckets, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1ms: " + tickMillis);
+        }
+        int size = Integer.highestOneBit(Math.max(1, numBuckets));
+        if (size < numBuckets) {
+            size <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = (Timeout<T>[]) new Timeout<?>[size];
+        this.mask = size - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    Timeout<T> add(T value, long deadlineMillis) {
+        // round up, and anything already due goes in the next bucket to be looked at
+        long tick = Math.max(currentTick, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(value, tick);
+        int bucket = (int) tick & mask;
+        timeout.next = buckets[bucket];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        buckets[bucket] = timeout;
+        timeout.pending = true;
+        size++;
+        return timeout;
+    }
+
+    // does nothing if it has already fired or been cancelled
+    void cancel(Timeout<T> timeout) {
+        if (!timeout.pending) {
+            return;
+        }
+        unlink(timeout);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Fires every timeout with a deadline up to nowMillis. expired mustn't add or cancel
+     * timeouts itself
+     * @return number fired
+     */
+    int advance(long nowMillis, Consumer<T> expired) {
+        long lastTick = nowMillis / tickMillis;
+        int fired = 0;
+        // a whole turn covers every bucket, no need to go round again
+        long stop = Math.min(lastTick, currentTick + buckets.length - 1);
+        for (long tick = currentTick; tick <= stop && size > 0; tick++) {
+            Timeout<T> timeout = buckets[(int) tick & mask];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.deadlineTick <= lastTick) {
+                    unlink(timeout);
+                    expired.accept(timeout.value);
+                    fired++;
+                }
+                timeout = next;
+            }
+        }
+        currentTick = Math.max(currentTick, lastTick + 1);
+        return fired;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous == null) {
+            buckets[(int) timeout.deadlineTick & mask] = timeout.next;
+        } else {
+            timeout.previous.next = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.pending = false;
+        size--;
+    }
+}
@@ -3,37 +3,137 @@ package org.example.component;
 import org.apache.commons.math3.util.Pair;
 import org.apache.commons.math3.util.Precision;
 import org.example.MatchStatus;
+import org.example.metrics.LadderMetrics;
+import org.example.metrics.Operation;
+import org.example.stats.HeadToHead;
+import org.example.stats.MatchHistory;
 import org.example.stats.OpponentResult;
-
+import org.example.stats.PlayerRatings;
+import org.example.stats.PositionTimeline;
+import org.example.stats.RankChangeLog;
+import org.example.stats.RatingSettings;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.time.Instant;
 import java.util.*;
 
 public class AllPlayerStats {
 
-    // Map<Player, MatchResults> playerStats = new HashMap<>(); // cant use Map if player is changed
-    List<Pair<Player, OpponentResults>> playerStats = new ArrayList<>();
+    // Indexed by player id (ids are dense, handed out by the ladder), null once a player's
+    // stats are removed. The array is kept when the ladder is emptied so repeated resets
+    // reuse the same slots rather than growing
+    private OpponentResults[] playerStats = new OpponentResults[16];
+
+    // every match played, one row per match, plus the names of everyone who's played
+    private final MatchHistory history = new MatchHistory();
+    private final HeadToHead headToHead = new HeadToHead();
+    // players moved without playing, see getFullTimeline
+    private final RankChangeLog rankChanges = new RankChangeLog();
+    // by player id, how far the walk for their highest position got, see highestMovedUpTo
+    private TimelineWalk[] highWalks = new TimelineWalk[16];
+    // time of the ladder event being applied, matches are recorded with it
+    private long eventMillis = 0;
+    private PlayerRatings ratings = new PlayerRatings(RatingSettings.DEFAULTS);
+    private LadderMetrics metrics = LadderMetrics.none();
 
     private OpponentResults getResults(Player p) {
-        for (Pair<Player, OpponentResults> stats: playerStats) {
-            if (stats.getFirst() == p) {
-                return stats.getSecond();
-            }
-        }
-        return null;
+        int id = p.getId();
+        return id < playerStats.length ? playerStats[id] : null;
     }
 
+    /**
+     * Records the match for both player & opponent, ie player VICTORY is also opponent DEFEAT.
+     * Positions are taken from the players as they stand now, so call this after the ladder
+     * has been updated
+     * @param player
+     * @param status of the match from player's side
+     * @param opponent
+     */
     public void updatePlayerStats(Player player, MatchStatus status, Player opponent) {
-        OpponentResults results = getResults(player);
-        results.updateResult(player, status, opponent);
+        updatePlayerStats(player, status, opponent, player.getCurrentPosition(), opponent.getCurrentPosition());
+    }
+
+    /**
+     * As updatePlayerStats(player, status, opponent) but with the players' current positions
+     * supplied by the caller, saves working them out again when the caller already knows them
+     */
+    public void updatePlayerStats(Player player, MatchStatus status, Player opponent,
+                                  int playerPosition, int opponentPosition) {
+        int row = history.record(player.getId(), opponent.getId(), status,
+                player.getPreviousPosition(), playerPosition,
+                opponent.getPreviousPosition(), opponentPosition, eventMillis);
+
+        getResults(player).updateResult(row);
+        headToHead.record(player.getId(), opponent.getId(), status); // both sides at once
+        if (opponent != player) {
+            getResults(opponent).updateResult(row);
+            if (status == MatchStatus.VICTORY) {
+                ratings.record(player.getId(), opponent.getId());
+            } else if (status == MatchStatus.DEFEAT) {
+                ratings.record(opponent.getId(), player.getId());
+            }
+        }
     }
 
     // Assign an empty MatchResults to player
     public void addNewPlayer(Player player) {
-        OpponentResults results = new OpponentResults();
-        playerStats.add(Pair.create(player, results));
+        int id = player.getId();
+        if (id >= playerStats.length) {
+            int capacity = Math.max(id + 1, playerStats.length * 2);
+            playerStats = Arrays.copyOf(playerStats, capacity);
+        }
+        history.registerPlayer(id, player.getFirstName(), player.getLastName());
+        ratings.registerPlayer(id);
+        headToHead.reservePlayer(id);
+        playerStats[id] = new OpponentResults(history, id);
+        trackPosition(player);
+    }
+
+    // set by the ladder before each change, see Ladder.setClock
+    void setEventTime(long epochMillis) {
+        eventMillis = epochMillis;
+    }
+
+    // exact timelines are worked out from the player's current position onwards
+    void trackPosition(Player player) {
+        rankChanges.playerJoined(player.getId(), player.getCurrentPosition());
+        forgetHighWalk(player.getId());
+    }
+
+    /**
+     * Positions fromPosition to toPosition (inclusive) have just been moved by shift places
+     * without playing, ie bumped down by an upset or insert, or up by a removal
+     */
+    void playersShifted(int fromPosition, int toPosition, int shift) {
+        rankChanges.record(fromPosition, toPosition, shift, history.size());
+    }
+
+    // see Ladder.setMetrics
+    void setMetrics(LadderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void playerLeft(Player player) {
+        rankChanges.playerLeft(player.getId());
     }
 
     public OpponentResults getPlayerStats(Player player) {
-        return new OpponentResults();
+        return getResults(player);
+    }
+
+    // read only access to the underlying stores, for code walking them directly (eg reports)
+    public MatchHistory getMatchHistory() {
+        return history;
+    }
+
+    public HeadToHead getHeadToHeadIndex() {
+        return headToHead;
+    }
+
+    public RankChangeLog getRankChangeLog() {
+        return rankChanges;
     }
 
     public Pair<Integer, Integer> getPlayerWinsLosses(Player player) {
@@ -50,84 +150,203 @@ public class AllPlayerStats {
     }
 
     public String playerHistoryAgainstOpponent(Player player, Player opponent) {
-        OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsAgainstPlayer(opponent);
-
-        int numWins=0;
-        int numLosses=0;
-
-        for (OpponentResult data: stats) {
-            if (data.getStatus() == MatchStatus.VICTORY) {
-                numWins++;
-            }
-            else if (data.getStatus() == MatchStatus.DEFEAT) {
-                numLosses++;
-            }
-        }
+        int numWins = headToHead.getWins(player.getId(), opponent.getId());
+        int numLosses = headToHead.getLosses(player.getId(), opponent.getId());
         return opponent.getFirstName()+opponent.getLastName()+
                 ":W"+numWins + ",L"+ numLosses;
     }
 
     /**
-     * This will return all the history of opponents played for a particular player
-     * If a player has played the same opponent > 1 times, it will aggregate the results for
-     * that opponent
+     * @return Pair<wins, losses> of player against opponent
+     */
+    public Pair<Integer, Integer> getHeadToHead(Player player, Player opponent) {
+        long start = metrics.start();
+        Pair<Integer, Integer> winsLosses = Pair.create(headToHead.getWins(player.getId(), opponent.getId()),
+                headToHead.getLosses(player.getId(), opponent.getId()));
+        metrics.stop(Operation.HEAD_TO_HEAD, start);
+        return winsLosses;
+    }
+
+    /**
+     * This will return the aggregated history against each of the given opponents,
+     * opponents the player hasn't played are left out
      * @param player
      * @param opponents
      * @return
      */
     public String getAllOpponentsHistory(Player player, List<Player> opponents) {
-        OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsResults();
+        long start = metrics.start();
+        StringBuilder sb = new StringBuilder();
+        for (Player opponent: opponents) {
+            int numWins = headToHead.getWins(player.getId(), opponent.getId());
+            int numLosses = headToHead.getLosses(player.getId(), opponent.getId());
+            if (numLosses>0 || numWins>0) {
+                sb.append(opponent.getFirstName()).append(opponent.getLastName())
+                        .append(":W").append(numWins).append(",L").append(numLosses).append(' ');
+            }
+        }
+        metrics.stop(Operation.HEAD_TO_HEAD, start);
+        return sb.toString();
+    }
 
-        // Use a map to to collect aggregate info so only have to pass around the loop of
-        // opponentData just once
-        Map<String, AggregateOpponentData> winsLosses = new HashMap<>();
+    /**
+     * This will return all the history of opponents played for a particular player,
+     * one aggregated entry per opponent in the order they were first played
+     * @param player
+     * @return
+     */
+    public String getAllOpponentsHistory(Player player) {
+        long start = metrics.start();
+        StringBuilder sb = new StringBuilder();
+        for (int e = headToHead.firstEntry(player.getId()); e != HeadToHead.NONE; e = headToHead.nextEntry(e)) {
+            int opponentId = headToHead.getOpponentId(e);
+            sb.append(history.getFirstName(opponentId)).append(history.getLastName(opponentId))
+                    .append(":W").append(headToHead.getWins(e))
+                    .append(",L").append(headToHead.getLosses(e)).append(' ');
+        }
+        metrics.stop(Operation.HEAD_TO_HEAD, start);
+        return sb.toString();
+    }
 
-        // First, create an empty AggregateOpponentData for each opponent
-        for (Player opponent: opponents) {
-            winsLosses.putIfAbsent(opponent.getFirstName() + opponent.getLastName(),
-                    new AggregateOpponentData());
+    public void removePlayerStats(Player p) {
+        OpponentResults results = getResults(p);
+        if (results != null) {
+            playerStats[p.getId()] = null;
         }
+        forgetHighWalk(p.getId());
+    }
 
-        // Second, Aggregate all OpponentData sets
-        // eg if player played "A" twice then add all results against "A" into
-        // 1x AggregateOpponentData
-        for (OpponentResult data : stats) {
-            // only have to loop around once, cause using a map to collect info
-            AggregateOpponentData info = winsLosses.get(data.getOpponentFirstName()
-                    +data.getOpponentLastName());
-            if (data.getStatus() == MatchStatus.VICTORY) {
-                info.numWins++;
+    // grow the history once for a batch of matches rather than as it fills
+    void reserveMatches(int numMatches) {
+        history.reserve(numMatches);
+    }
+
+    /**
+     * Make room for numMatches more results in everything a result is recorded in, see
+     * Ladder.reserveMatches. Timelines are per player so each gets four times the
+     * average numMatches / numPlayers, plus two
+     */
+    void reserveAll(int numMatches, int numPlayers) {
+        history.reserve(numMatches);
+        rankChanges.reserve(numMatches);
+        // at most one new pairing a match, and there are only so many pairs
+        long pairs = (long) numPlayers * (numPlayers - 1) / 2 - headToHead.size();
+        headToHead.reserve((int) Math.max(0, Math.min(numMatches, pairs)));
+        int share = numPlayers == 0 ? 0 : (int) Math.min(numMatches, 4L * numMatches / numPlayers + 2);
+        for (OpponentResults results : playerStats) {
+            if (results != null) {
+                results.getTimeline().reserve(share);
             }
-            if (data.getStatus() == MatchStatus.DEFEAT) {
-                info.numLosses++;
+        }
+    }
+
+    // drop everything, used when the ladder is emptied and ids start again
+    public void removeAllPlayerStats() {
+        Arrays.fill(playerStats, null);
+        history.clear();
+        headToHead.clear();
+        ratings.clear();
+        rankChanges.clear();
+        Arrays.fill(highWalks, null);
+    }
+
+    void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(playerStats.length);
+        for (OpponentResults results : playerStats) {
+            out.putInt(results == null ? 0 : 1);
+            if (results != null) {
+                results.writeTo(out);
             }
         }
+        history.writeTo(out);
+        headToHead.writeTo(out);
+        ratings.writeTo(out);
+        rankChanges.writeTo(out);
+    }
 
-        // Third, create output string of history of opponents played against
-        StringBuffer sb = new StringBuffer();
-        for (Map.Entry winLoss : winsLosses.entrySet()) {
-            AggregateOpponentData info = (AggregateOpponentData)winLoss.getValue();
-            if (info.numLosses>0 || info.numWins>0) {
-                // only collect opponent stats if played against them - TODO already done?
-                sb.append(winLoss.getKey() + ":W" + info.numWins + ",L" + info.numLosses + " ");
+    void readFrom(SnapshotReader in) throws IOException {
+        playerStats = new OpponentResults[in.getInt()];
+        for (int id = 0; id < playerStats.length; id++) {
+            if (in.getInt() == 1) {
+                playerStats[id] = new OpponentResults(history, id);
+                playerStats[id].readFrom(in);
             }
         }
-        return sb.toString();
+        history.readFrom(in);
+        headToHead.readFrom(in);
+        ratings.readFrom(in);
+        rankChanges.readFrom(in);
+        highWalks = new TimelineWalk[playerStats.length];
     }
 
-    public void removePlayerStats(Player p) {
-        playerStats.remove(p);
+    // -- ratings, updated with every match, see PlayerRatings --
+
+    public double getEloRating(Player player) {
+        return ratings.getElo(player.getId());
+    }
+
+    public double getGlickoRating(Player player) {
+        return ratings.getGlickoRating(player.getId());
+    }
+
+    public double getGlickoDeviation(Player player) {
+        return ratings.getGlickoDeviation(player.getId());
+    }
+
+    public PlayerRatings getRatings() {
+        return ratings;
+    }
+
+    public RatingSettings getRatingSettings() {
+        return ratings.getSettings();
     }
 
-    // loop around each player & collect their match stats
+    /**
+     * Switch to new rating settings, everyone's ratings are worked out again from the
+     * whole history as if the new settings had always been in place
+     */
+    public void setRatingSettings(RatingSettings settings) {
+        ratings = PlayerRatings.replay(history, settings);
+    }
+
+    // total num of matches played, each match counted once
     public int getTotalMatchCount() {
-        int totNumMatches = 0;
-        for (Pair<Player, OpponentResults> playerData: playerStats) {
-            totNumMatches += playerData.getSecond().getTotalNumOfMatches();
+        return history.size();
+    }
+
+    // num of matches played in [from, to), found with a binary search on the history
+    public int getMatchCountBetween(Instant from, Instant to) {
+        long start = metrics.start();
+        int count = Math.max(0, history.firstRowAtOrAfter(to.toEpochMilli()) - history.firstRowAtOrAfter(from.toEpochMilli()));
+        metrics.stop(Operation.RESULTS_BETWEEN, start);
+        return count;
+    }
+
+    /**
+     * The player's results from matches played in [from, to), oldest first. Goes through
+     * whichever is shorter, the player's own matches or every match in the range
+     */
+    public List<OpponentResult> getResultsBetween(Player player, Instant from, Instant to) {
+        long start = metrics.start();
+        int id = player.getId();
+        int firstRow = history.firstRowAtOrAfter(from.toEpochMilli());
+        int endRow = history.firstRowAtOrAfter(to.toEpochMilli());
+        List<OpponentResult> results = new ArrayList<>();
+        if (endRow - firstRow <= getResults(player).getTotalNumOfMatches()) {
+            for (int row = firstRow; row < endRow; row++) {
+                if (history.getPlayerId(row) == id || history.getOpponentId(row, history.getPlayerId(row)) == id) {
+                    results.add(history.getResult(row, id));
+                }
+            }
+        } else {
+            for (int row = history.firstRow(id); row != MatchHistory.NONE && row < endRow; row = history.nextRow(row, id)) {
+                if (row >= firstRow) {
+                    results.add(history.getResult(row, id));
+                }
+            }
         }
-        return totNumMatches;
+        metrics.stop(Operation.RESULTS_BETWEEN, start);
+        return results;
     }
 
     /**
@@ -136,25 +355,54 @@ public class AllPlayerStats {
      * @return
      */
     public int getAllTimeHighestPosition(Player player) {
-        // First, get highest of current position or previous position
+        long start = metrics.start();
+        int highest = allTimeHighestPosition(player);
+        metrics.stop(Operation.HIGHEST_POSITION, start);
+        return highest;
+    }
+
+    private int allTimeHighestPosition(Player player) {
+        int id = player.getId();
+        // They only move up by winning or by someone above them leaving, so it's the highest
+        // of their current, previous & joining positions, what's in the match records and
+        // the highest they've been moved up to
         int allTimeHighPosition = player.getCurrentPosition();
         if (allTimeHighPosition > player.getPreviousPosition()) {
             allTimeHighPosition = player.getPreviousPosition();
         }
+        allTimeHighPosition = Math.min(allTimeHighPosition, rankChanges.getJoinPosition(id));
+        allTimeHighPosition = Math.min(allTimeHighPosition, highestMovedUpTo(id));
+        return Math.min(allTimeHighPosition, getResults(player).getHighestPosition());
+    }
 
-        // Second, go through all the historical records to see if there was a previous high higher
-        // than the current highs
-        OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsResults();
-        for (OpponentResult result: stats) {
-            if (result.getMyCurrentPosition() < allTimeHighPosition) {
-                allTimeHighPosition = result.getMyCurrentPosition();
-            }
-            if (result.getMyPreviousPosition() < allTimeHighPosition) {
-                allTimeHighPosition = result.getMyPreviousPosition();
-            }
+    /**
+     * Highest position the player has been at along their full timeline, as far as
+     * that's needed to cover being moved up by removals. It's only walked when someone's been
+     * moved up since the walk last got to, and then carries on from there, so it's O(1) until
+     * there's a removal and each part of a timeline is walked at most once after that
+     */
+    private int highestMovedUpTo(int id) {
+        if (rankChanges.getLastUpShift() < rankChanges.getJoinedAt(id)) {
+            return Integer.MAX_VALUE; // nobody's left from above them since they joined
+        }
+        if (id >= highWalks.length) {
+            highWalks = Arrays.copyOf(highWalks, Math.max(id + 1, highWalks.length * 2));
+        }
+        TimelineWalk walk = highWalks[id];
+        if (walk == null) {
+            walk = startWalk(id, null);
+            walk(id, walk, null);
+            highWalks[id] = walk;
+        } else if (rankChanges.getLastUpShift() >= walk.shift) {
+            walk(id, walk, null);
+        }
+        return walk.best;
+    }
+
+    private void forgetHighWalk(int id) {
+        if (id < highWalks.length) {
+            highWalks[id] = null;
         }
-        return allTimeHighPosition;
     }
 
     /**
@@ -163,19 +411,13 @@ public class AllPlayerStats {
      * @return double average opponent position
      */
     public double getAverageOpponentPosition(Player player) {
-        double averagePosn = 0;
-
         OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsResults();
-        if (stats.isEmpty()) {
-            return averagePosn;
+        int numMatches = results.getTotalNumOfMatches();
+        if (numMatches == 0) {
+            return 0;
         }
 
-        for (OpponentResult result: stats) {
-            averagePosn += result.getOpponentCurrentPosition();
-        }
-
-        averagePosn = averagePosn/stats.size();
+        double averagePosn = (double) results.getSumOfOpponentPositions() / numMatches;
         return Precision.round(averagePosn, 2);
     }
 
@@ -185,101 +427,120 @@ public class AllPlayerStats {
      * @return Pair<opponent first/last name, int opponent position>
      */
     public Pair<String, Integer> getHighestOpponentDefeated(Player player) {
-        int highestOppPosition = 1_000_000;
-        String opponentFirstName = "";
-        String opponentLastName = "";
-
-        OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsResults();
-        if (stats.isEmpty()) {
-            return Pair.create(opponentFirstName, highestOppPosition);
-        }
-
-        for (OpponentResult result: stats) {
-            if (highestOppPosition > result.getOpponentPreviousPosition() && result.getStatus()==MatchStatus.VICTORY) {
-                highestOppPosition = result.getOpponentPreviousPosition();
-                opponentFirstName = result.getOpponentFirstName();
-                opponentLastName = result.getOpponentLastName();
-            }
-        }
-        return Pair.create(opponentFirstName + opponentLastName, highestOppPosition);
+        return getResults(player).getHighestOpponentDefeated();
     }
 
     /**
      * Return  the full historical position timeline AND best winning streak
-     * (eg how the player's position rose & fell after each match)
+     * (eg how the player's position rose & fell after each match, or being bumped down/up)
+     * See getFullTimeline for the same without boxing
      * @param player
      * @return Pair<List<Integer>, List<Integer>>, first list is tiemline & 2nd is winning streak
      */
     public Pair<List<Integer>, List<Integer>> getPositionTimeline(Player player) {
-        List<Integer> timeline = new ArrayList<>();
-
-        OpponentResults results = getResults(player);
-        List<OpponentResult> stats = results.getStatsResults();
-
-        if (stats.isEmpty()) {
+        PositionTimeline positions = getFullTimeline(player);
+        List<Integer> timeline = new ArrayList<>(positions.size());
+        for (int position : positions.toArray()) {
+            timeline.add(position);
+        }
+        if (timeline.isEmpty()) {
             return Pair.create(timeline, timeline); // empty lists
         }
-        timeline.add(stats.get(0).getMyPreviousPosition()); // position where (s)he started on the ladder
-        for (OpponentResult result: stats) {
-            timeline.add(result.getMyCurrentPosition());
+        // indexes into the timeline of the best streak
+        List<Integer> bestWinningStreak = new ArrayList<>();
+        for (int i = positions.getBestStreakStart(); i <= positions.getBestStreakEnd(); i++) {
+            bestWinningStreak.add(i);
         }
-        List<Integer> bestWinningStreak = getBestWinningStreak(timeline);
+        return Pair.create(timeline, bestWinningStreak);
+    }
 
-        return Pair.create(timeline,bestWinningStreak);
+    /**
+     * Position after each match with the best streak (longest, latest if tied, run at
+     * their highest ever position), kept up to date as results come in. Moves between
+     * matches aren't in it, see getFullTimeline
+     */
+    public PositionTimeline getTimeline(Player player) {
+        return getResults(player).getTimeline();
+    }
+
+    public PositionTimeline getFullTimeline(Player player) {
+        return getFullTimeline(player, new PositionTimeline());
     }
 
     /**
-     * Get best winning streak
-     * if more than 1 winning streak of same size, then get the latest streak
-     * @param timeline
+     * Every position the player has held, in order: where they joined, then after each of
+     * their matches and each time they were bumped down (or moved up) by someone else's
+     * match, insert or removal. Rebuilt from the match history & the rank change log, each
+     * move found in O(log positions * log shifts), see RankChangeLog
+     * @param player
+     * @param into cleared & filled in, so callers going through lots of players can reuse one
+     * @return into
      */
-    private List<Integer> getBestWinningStreak(List<Integer> timeline) {
-        // Find best winning streak, min value in collection represents highest position in ladder
-        int startPosition = timeline.indexOf (Collections.min(timeline));
-        int endPosition = timeline.lastIndexOf (Collections.min(timeline));
-        // could be 1 or more gaps in best streak ie mini streaks,
-        // need to find all mini streaks & get longest one
-
-        // get all time highest ladder position all ministreaks will have this value
-        int highestPosition = timeline.get(startPosition);
-        Map<Integer, List<Integer>> winningStreaks = new HashMap<>();
-
-        int numOfMiniStreaks=1; // have to have 1 at least
-
-        for (int i = startPosition; i <= endPosition; i++) {
-            if (timeline.get(i) == highestPosition) {
-                if (!winningStreaks.containsKey(numOfMiniStreaks)) {
-                    // create a new ministreak
-                    List<Integer> miniStreak = new ArrayList<>();
-                    winningStreaks.put(numOfMiniStreaks, miniStreak);
-                }
-                List<Integer> miniStreak = winningStreaks.get(numOfMiniStreaks);
-                miniStreak.add(i);
-            }
-            else {
-                // gap detected, so create another ministreak
-                numOfMiniStreaks++;
-            }
-        }
+    public PositionTimeline getFullTimeline(Player player, PositionTimeline into) {
+        long start = metrics.start();
+        into.clear();
+        walkFullTimeline(player.getId(), into);
+        metrics.stop(Operation.TIMELINE, start);
+        return into;
+    }
 
-        // which of the ministreaks is the longest?
-        List<Integer> longestMiniStreak = null;
-        int numOfHighestPositions = 0;
-        for (Map.Entry<Integer,List<Integer>> entry : winningStreaks.entrySet()) {
-            if (numOfHighestPositions <= entry.getValue().size()) {
-                // NOTE the "<=" will ensure we get the latest mini streak (if more than 1 of the same size)
-                // If we wanted just the 1st mini streak then use "<"
-                longestMiniStreak = entry.getValue();
-                numOfHighestPositions = entry.getValue().size();
+    /**
+     * Goes through every position the player has held, see getFullTimeline
+     * @param into each position is added to it, if not null
+     * @return the highest of them
+     */
+    private int walkFullTimeline(int id, PositionTimeline into) {
+        TimelineWalk walk = startWalk(id, into);
+        walk(id, walk, into);
+        return walk.best;
+    }
+
+    // a walk from where the player joined
+    private TimelineWalk startWalk(int id, PositionTimeline into) {
+        TimelineWalk walk = new TimelineWalk();
+        walk.reach(rankChanges.getJoinPosition(id), into);
+        walk.shift = rankChanges.getJoinedAt(id);
+        return walk;
+    }
+
+    // carries the walk on through everything that's happened to the player since it got to
+    private void walk(int id, TimelineWalk walk, PositionTimeline into) {
+        int row = walk.lastRow == MatchHistory.NONE ? history.firstRow(id) : history.nextRow(walk.lastRow, id);
+        int end = rankChanges.getLeftAt(id);
+        while (true) {
+            int next = rankChanges.nextShift(walk.shift, end, walk.position);
+            if (row != MatchHistory.NONE && (next == RankChangeLog.NONE || row < rankChanges.getMatchCount(next))) {
+                // their own match comes first, carry on from the shifts after it
+                walk.shift = rankChanges.firstShiftAfterMatch(row);
+                walk.lastRow = row;
+                walk.reach(history.getMyCurrentPosition(row, id), into);
+                row = history.nextRow(row, id);
+            } else if (next != RankChangeLog.NONE) {
+                walk.shift = next + 1;
+                walk.reach(walk.position + rankChanges.getShift(next), into);
+            } else {
+                return;
             }
         }
-        return longestMiniStreak;
     }
 
-    private class AggregateOpponentData {
-        private int numWins = 0;
-        private int numLosses = 0;
+    /**
+     * How far a walk along a player's full timeline has got: the position they're at, the
+     * next shift & after the last of their matches to look from, and the highest so far
+     */
+    private static final class TimelineWalk {
+        int position;
+        int shift;
+        int lastRow = MatchHistory.NONE;
+        int best = Integer.MAX_VALUE;
+
+        void reach(int newPosition, PositionTimeline into) {
+            position = newPosition;
+            best = Math.min(best, newPosition);
+            if (into != null) {
+                into.add(newPosition);
+            }
+        }
     }
 }
 
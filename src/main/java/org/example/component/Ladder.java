@@ -1,154 +1,185 @@
 package org.example.component;
 
-import org.apache.commons.math3.util.Pair;
 import org.example.MatchStatus;
-import org.example.stats.Colours;
-
+import org.example.metrics.LadderMetrics;
+import org.example.metrics.Operation;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+import org.example.report.LadderReport;
+import org.example.report.ReportFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 public class Ladder {
-    PriorityQueue<Player> pQueue = new PriorityQueue<>();
+    RankTree<Player> standings = new RankTree<>();
     AllPlayerStats allPlayerStats = new AllPlayerStats();
 
-    private final int maxChallengeRange = 2;
+    // Player ids are handed out in join order and never reused while the ladder is live,
+    // playersById.get(id) is the player (or null once removed), slot 0 is unused
+    private final List<Player> playersById = new ArrayList<>();
+    private int nextPlayerId = 1;
+
+    // keyed on the normalised name / email the player joined with
+    private final Map<String, Player> nameIndex = new HashMap<>();
+    private final Map<String, Player> emailIndex = new HashMap<>();
+
+    // array rather than a list so telling them about a change doesn't create an iterator
+    private LadderListener[] listeners = new LadderListener[0];
+
+    // every change is timestamped from the clock, see setClock
+    private Clock clock = Clock.systemUTC();
+    private long eventMillis = 0;
+    final StandingsHistory standingsHistory = new StandingsHistory();
+
+    // how many places above themselves a player may challenge, see org.example.challenge
+    private int maxChallengeRange = 2;
+
+    private LadderMetrics metrics = LadderMetrics.none();
+    // this ladder's gauges, kept so they can be taken off the metrics again, see setMetrics
+    private String gaugePrefix = "";
+    private final LongSupplier playersGauge = this::getNumPlayers;
+    private final LongSupplier matchesGauge = () -> allPlayerStats.getTotalMatchCount();
+    private final LongSupplier standingsEventsGauge = () -> standingsHistory.size();
 
     public void addPlayers(List<Player> players) {
-        for (Player player : players) {
-            addPlayer(player);
+        // add in position order so positions given out of order still end up in the right slots
+        List<Player> sorted = new ArrayList<>(players);
+        Collections.sort(sorted);
+        batchStarted();
+        try {
+            for (Player player : sorted) {
+                addPlayer(player);
+            }
+        } finally {
+            batchFinished();
+        }
+    }
+
+    /**
+     * Fills an empty ladder in one go, for bulk imports (see org.example.persistence.LadderImport).
+     * Same result as addPlayers but linear in the number of players: the standings are built
+     * in one pass rather than by n inserts, and the history gets one checkpoint at the end
+     * rather than one every ladder's worth of joins. Everyone joins at the same instant.
+     * @param players in position order, top first, their current positions are ignored
+     */
+    public void loadPlayers(List<Player> players) {
+        if (!standings.isEmpty()) {
+            throw new IllegalStateException("Can only load players into an empty ladder, this one has "
+                    + standings.size());
+        }
+        stamp();
+        batchStarted();
+        try {
+            int[] ids = new int[players.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Player player = players.get(i);
+                player.setCurrentPosition(i + 1);
+                register(player);
+                allPlayerStats.addNewPlayer(player);
+                ids[i] = player.getId();
+            }
+            standings.build(players);
+            for (RankTree.Node<Player> node = standings.first(); node != null; node = RankTree.next(node)) {
+                node.value.rankNode = node;
+            }
+            standingsHistory.insertedAll(ids, eventMillis, standings);
+            for (Player player : players) {
+                for (LadderListener listener : listeners) {
+                    listener.playerAdded(player);
+                }
+            }
+        } finally {
+            batchFinished();
         }
     }
 
+    /**
+     * Adds the player at their current position, or at the bottom of the ladder if that
+     * position is further down than the ladder goes. If the position is already taken
+     * then the player is inserted, see insertPlayer
+     * @param player
+     */
     public void addPlayer(Player player) {
-        pQueue.add(player);
-        allPlayerStats.addNewPlayer(player);
+        long start = metrics.start();
+        stamp();
+        join(player);
+        for (LadderListener listener : listeners) {
+            listener.playerAdded(player);
+        }
+        metrics.stop(Operation.ADD_PLAYER, start);
     }
 
+    /**
+     * Inserts the player at their current position, all players from that position
+     * down are pushed down one place
+     * @param newPlayer
+     */
     public void insertPlayer(Player newPlayer) {
-        addPlayer(newPlayer);
-        PriorityQueue<Player> pQueueCopy = new PriorityQueue<>(pQueue);
-
-        // Need to find all players below newPlayer and push them down one
-        while (!pQueueCopy.isEmpty()) {
-            Player p = pQueueCopy.poll();
-            if (newPlayer.getCurrentPosition() > p.getCurrentPosition()) {
-                continue; // skip over the players positioned higher than the new player
-            } else if (newPlayer.getCurrentPosition() == p.getCurrentPosition()
-                    && newPlayer.getFirstName().equalsIgnoreCase(p.getFirstName())
-                    && newPlayer.getLastName().equalsIgnoreCase(p.getLastName())) {
-                continue; // found the new player
-            }
-            // Need to reset the position of all players under the new player
-            p.setCurrentPosition(p.getCurrentPosition() + 1);
+        long start = metrics.start();
+        stamp();
+        join(newPlayer);
+        for (LadderListener listener : listeners) {
+            listener.playerInserted(newPlayer);
         }
-        resetQueue(); // resort the queue
+        metrics.stop(Operation.INSERT_PLAYER, start);
     }
 
     public void removePlayer(String firstName/*, String secondName, int currentPosition*/) {
-        ArrayList<Player> playersList = new ArrayList<>(pQueue.size());
+        removePlayer(findByFirstName(firstName));
+    }
 
-        while (!pQueue.isEmpty()) {
-            Player p = pQueue.poll(); // NOTE, this will empty our pQueue!
-            if (p.getFirstName().equalsIgnoreCase(firstName)) {  //TODO check both 1st & 2nd names
-                continue;              // player is filtered out of arrayList
-            }
-            playersList.add(p);
-        }
+    public void removePlayer(String firstName, String lastName) {
+        removePlayer(getPlayer(firstName, lastName));
+    }
 
-        // player is removed from playersList, need to move positions up now
-        int rank = 1;
-        for (Player p : playersList) {
-            if (p.getCurrentPosition() > rank) {
-                p.setCurrentPosition(p.getCurrentPosition() - 1); // This will find the gap in the list
-            }
-            rank++;
-            pQueue.add(p); // add player back into pQueue
-        }
-        resetQueue(); //resort the queue  - is it needed in removal?
+    public void removePlayerById(int id) {
+        removePlayer(getPlayerById(id));
     }
 
-    public void dumpLadder() {
-        PriorityQueue<Player> pQueueCopy = new PriorityQueue<>(pQueue);
-        System.out.println();
-        System.out.println("== Ladder ==");
-        while (!pQueueCopy.isEmpty()) {
-            Player currentPlayer = pQueueCopy.poll();
-            String stats1 = allPlayerStats.playerWinsLossesToString(currentPlayer);
-
-            // String stats2 = allPlayerStats.playerHistoryAgainstOpponent(p, getPlayer(4));
-
-            List<Player> opponents = getAllPlayers();
-            opponents.remove(currentPlayer);
-
-            String stats5 = allPlayerStats.getAllOpponentsHistory(currentPlayer, opponents);
-            int allTimeHighPosition = allPlayerStats.getAllTimeHighestPosition(currentPlayer);
-            double avgOpponentPosition = allPlayerStats.getAverageOpponentPosition(currentPlayer);
-            Pair<String, Integer> highestOpponent = allPlayerStats.getHighestOpponentDefeated(currentPlayer);
-
-            String highestOppStr = "highestOpp:" + highestOpponent.getFirst()+","+highestOpponent.getSecond();
-
-            System.out.println(currentPlayer.getCurrentPosition()+": "
-                            + currentPlayer.getFirstName()
-                            + currentPlayer.getLastName()
-                            + " " + stats1
-                            + " History " + stats5
-                            + " AllTimeHigh: " + allTimeHighPosition
-                            + " AvgOppPos: " + avgOpponentPosition
-                            + (!highestOpponent.getFirst().isEmpty()?highestOppStr:""));
-
-            Pair<List<Integer>, List<Integer>> positions = allPlayerStats.getPositionTimeline(currentPlayer);
-            String timeline = getHilightedBestStreak(positions);
-            if (!timeline.isEmpty()) {
-                System.out.println(timeline);
-                System.out.println();
-            }
+    private void removePlayer(Player player) {
+        if (player == null) {
+            return; // not on the ladder
         }
-
-        // don't double count matches eg "A" vs "B" is 1 match but "B" vs "A" is the same match
-        System.out.println("Total Num of matches: " + allPlayerStats.getTotalMatchCount()/2);
-        System.out.println();
+        // everyone below moves up one as part of the removal
+        long start = metrics.start();
+        stamp();
+        int position = player.getCurrentPosition();
+        allPlayerStats.playerLeft(player);
+        allPlayerStats.playersShifted(position + 1, standings.size(), -1);
+        unplace(position);
+        standingsHistory.removed(position, eventMillis, standings);
+        unregister(player);
+        for (LadderListener listener : listeners) {
+            listener.playerRemoved(player);
+        }
+        metrics.stop(Operation.REMOVE_PLAYER, start);
     }
 
     /**
-     * LHS array is full timeline of how player position changed after each match
-     * RHS is the longest (latest) best winning streak
-     * @param positions
-     * @return
+     * Prints the whole ladder with everyone's stats to System.out, see LadderReport for
+     * other formats, paging or writing somewhere else
      */
-    private String getHilightedBestStreak(Pair<List<Integer>, List<Integer>> positions) {
-        if (!positions.getFirst().isEmpty()) {
-            List<Integer> timeline = positions.getFirst();
-            List<Integer> streak = positions.getSecond();
-
-            StringBuffer sb = new StringBuffer();
-            int streakStart = streak.get(0);
-            int streakEnd = streak.get(streak.size()-1);
-            sb.append("[");
-
-            for (int position = 0; position < timeline.size(); position++) {
-                String bgColor = Colours.ANSI_BLUE;
-
-                if (position >= streakStart && position <= streakEnd) {
-                    //overwrite bgColor with winning streak entries
-                    bgColor = Colours.ANSI_GREEN_BACKGROUND;
-                }
-
-                if (position == 0) {
-                    sb.append(bgColor + timeline.get(position) + Colours.ANSI_RESET);
-                }
-                else {
-                    sb.append(bgColor + ", " + timeline.get(position) + Colours.ANSI_RESET);
-                }
-            }
-            sb.append("]");
-
-            return("Position Timeline: " + sb.toString());
+    public void dumpLadder() {
+        try {
+            new LadderReport(this).format(ReportFormat.ANSI).writeTo(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return "";
     }
 
-
     /**
      * Updates the match stats for each player and will also update the ladder positions
      * only if lower ranked player beat higher ranked player, otherwise ladder positions
@@ -162,16 +193,37 @@ public class Ladder {
      * @param winnerCurrentPosition
      */
     public void matchResult(int loserCurrentPosition, int winnerCurrentPosition) {
+        long start = metrics.start();
+        result(loserCurrentPosition, winnerCurrentPosition, MatchStatus.VICTORY);
+        metrics.stop(Operation.MATCH_RESULT, start);
+    }
+
+    /**
+     * As matchResult, but the match wasn't played: the loser defaulted (eg didn't answer a
+     * challenge in time). Positions change just the same, the match is recorded as a
+     * DEFAULT_VICTORY so it doesn't count towards wins, losses or ratings
+     * @param loserCurrentPosition
+     * @param winnerCurrentPosition
+     */
+    public void defaultResult(int loserCurrentPosition, int winnerCurrentPosition) {
+        long start = metrics.start();
+        result(loserCurrentPosition, winnerCurrentPosition, MatchStatus.DEFAULT_VICTORY);
+        metrics.stop(Operation.MATCH_RESULT, start);
+    }
+
+    private void result(int loserCurrentPosition, int winnerCurrentPosition, MatchStatus status) {
+        stamp();
         // Retrieve the Players using their current positions
-        Player pWinner = getPlayer(winnerCurrentPosition);
-        Player pLoser = getPlayer(loserCurrentPosition);
+        Player pWinner = standings.get(winnerCurrentPosition);
+        Player pLoser = standings.get(loserCurrentPosition);
 
         // Did the higher ranked player win?
-        if (pWinner.getCurrentPosition() < pLoser.getCurrentPosition()) {
+        if (winnerCurrentPosition < loserCurrentPosition) {
             // Winner is the higher ranked player, therefore no position swap is needed
             // but update the match stats
-            allPlayerStats.updatePlayerStats(pWinner, MatchStatus.VICTORY, pLoser);
-            allPlayerStats.updatePlayerStats(pLoser, MatchStatus.DEFEAT, pWinner);
+            allPlayerStats.updatePlayerStats(pWinner, status, pLoser,
+                    winnerCurrentPosition, loserCurrentPosition);
+            matchPlayed(pWinner, pLoser, winnerCurrentPosition, loserCurrentPosition, status);
             return;
         }
 
@@ -179,88 +231,426 @@ public class Ladder {
         pWinner.setPreviousPosition(winnerCurrentPosition);
         pLoser.setPreviousPosition(loserCurrentPosition);
 
-        // get all intermediate players beginning with loser
-        int midRange = loserCurrentPosition;
-        List<Player> midRangePlayers = new ArrayList<>();
-        while (midRange != winnerCurrentPosition) {
-            Player midRangePlayer = getPlayer(midRange);
-            midRangePlayers.add(midRangePlayer);
-            midRange++;
-        }
+        // bump up winner into the loser's slot, this bumps the loser and any intermediate
+        // players down one place without having to touch them (the intermediate ones are
+        // logged as a single shift, winner & loser get the match itself)
+        allPlayerStats.playersShifted(loserCurrentPosition + 1, winnerCurrentPosition - 1, 1);
+        standings.move(pWinner.rankNode, loserCurrentPosition);
+        standingsHistory.moved(winnerCurrentPosition, loserCurrentPosition, eventMillis, standings);
+
+        // update match results - only need 1 call as it sets loser stats to lost & v/v
+        // (we already know where everyone ended up so no need to ask the tree again)
+        int loserNewPosition = pLoser == pWinner ? loserCurrentPosition : loserCurrentPosition + 1;
+        allPlayerStats.updatePlayerStats(pWinner, status, pLoser,
+                loserCurrentPosition, loserNewPosition);
+        matchPlayed(pWinner, pLoser, winnerCurrentPosition, loserCurrentPosition, status);
+    }
 
-        // Only after we've got all the players impacted by the match result
-        // we can then start changing player positions
-        // - ie bump up winner
-        pWinner.setCurrentPosition(loserCurrentPosition);
+    /**
+     * Grows everything a result is recorded in (match history, head to head, rank change log,
+     * standings history and its checkpoints, timelines) up front so the next numMatches
+     * results allocate nothing at all, no garbage for the collector and no pauses to copy big
+     * arrays mid-stream. Worth calling ahead of a known volume of results, eg at the start of
+     * a busy session.
+     *
+     * Each player's timeline gets room for about four times their even share of the matches,
+     * someone playing a lot more than that can still grow theirs. Adding or removing players
+     * allocates as normal
+     * @param numMatches
+     */
+    public void reserveMatches(int numMatches) {
+        allPlayerStats.reserveAll(numMatches, standings.size());
+        standingsHistory.reserve(numMatches, standings.size());
+    }
 
-        // then bump midrange players down (includes the loser)
-        for (Player p: midRangePlayers) {
-            p.setCurrentPosition(p.getCurrentPosition() + 1);
+    /**
+     * Applies a batch of results in order, exactly as if matchResult was called for each one
+     * (so each record's positions are as they stand after the records before it). Every
+     * position is checked before anything is applied, the history is grown once for the whole
+     * batch and listeners see it as one batch, see LadderListener.batchStarted
+     * @param results
+     */
+    public void applyResults(List<MatchRecord> results) {
+        int size = standings.size();
+        for (MatchRecord result : results) {
+            // matches don't change the size of the ladder so every position can be checked now
+            if (result.getLoserPosition() < 1 || result.getLoserPosition() > size
+                    || result.getWinnerPosition() < 1 || result.getWinnerPosition() > size) {
+                throw new IllegalArgumentException("No such position on a ladder of " + size + ": " + result);
+            }
         }
+        long start = metrics.start();
+        allPlayerStats.reserveMatches(results.size());
+        batchStarted();
+        try {
+            for (int i = 0, n = results.size(); i < n; i++) {
+                MatchRecord result = results.get(i);
+                matchResult(result.getLoserPosition(), result.getWinnerPosition());
+            }
+        } finally {
+            batchFinished();
+        }
+        metrics.stop(Operation.APPLY_RESULTS, start);
+    }
 
-        resetQueue(); // resort the queue, otherwise its out of sync
+    public int getPlayerPosition(String firstName/*, String lastName, String email*/) {
+        Player p = findByFirstName(firstName);
+        return p == null ? 0 : p.getCurrentPosition(); // if player is not found, zero is invalid value
+    }
 
-        // update match results per player - only need 1 call as can set loser stats to stats to lost & v/v
-        allPlayerStats.updatePlayerStats(pWinner, MatchStatus.VICTORY, pLoser);
-        allPlayerStats.updatePlayerStats(pLoser, MatchStatus.DEFEAT, pWinner);
+    public int getPlayerPosition(String firstName, String lastName) {
+        Player p = getPlayer(firstName, lastName);
+        return p == null ? 0 : p.getCurrentPosition();
     }
 
-    public int getPlayerPosition(String firstName/*, String lastName, String email*/) {
-        PriorityQueue<Player> pQueueCopy = new PriorityQueue<>(pQueue);
-        while (!pQueueCopy.isEmpty()) {
-            Player p = pQueueCopy.poll();
-            if (p.getFirstName().equalsIgnoreCase(firstName)) {
-                return p.getCurrentPosition();
-            }
+    public Player getPlayerById(int id) {
+        if (id <= 0 || id >= playersById.size()) {
+            return null;
         }
-        return 0; // if player is not found, zero is invalid value
+        return playersById.get(id);
+    }
+
+    /**
+     * Case insensitive lookup on first & last name
+     * @return the player, or null if no such player is on the ladder
+     */
+    public Player getPlayer(String firstName, String lastName) {
+        return nameIndex.get(nameKey(firstName, lastName));
+    }
+
+    public Player getPlayerByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return emailIndex.get(normalise(email));
     }
 
     public Player getPlayer(int position) {
-        PriorityQueue<Player> pQueueCopy = new PriorityQueue<>(pQueue);
-        while (!pQueueCopy.isEmpty()) {
-            Player p = pQueueCopy.poll();
-            if (p.getCurrentPosition() == position) {
-                return p;
-            }
+        long start = metrics.start();
+        Player player = standings.get(position);
+        metrics.stop(Operation.GET_PLAYER, start);
+        return player;
+    }
+
+    public int getNumPlayers() {
+        return standings.size();
+    }
+
+    public int getMaxChallengeRange() {
+        return maxChallengeRange;
+    }
+
+    public void setMaxChallengeRange(int maxChallengeRange) {
+        if (maxChallengeRange < 1) {
+            throw new IllegalArgumentException("Challenge range must be at least 1: " + maxChallengeRange);
+        }
+        this.maxChallengeRange = maxChallengeRange;
+    }
+
+    /**
+     * Walks the ladder in position order from fromPosition, stopping after maxPlayers.
+     * Each step is O(1) (amortised), so walking the whole ladder is linear
+     * @param fromPosition
+     * @param maxPlayers
+     * @param action
+     */
+    public void forEachPlayer(int fromPosition, int maxPlayers, Consumer<Player> action) {
+        RankTree.Node<Player> node = standings.nodeAt(Math.max(1, fromPosition));
+        for (int n = 0; node != null && n < maxPlayers; n++, node = RankTree.next(node)) {
+            action.accept(node.value);
         }
-        return null;
     }
 
-    /** Turns out the players are only sorted when you add a player, can't just change the
-     * priority and expect the pQueue to auto sort -
-     * https://stackoverflow.com/questions/1871253/updating-java-priorityqueue-when-its-elements-change-priority
-     * This func will drain the queue into a list then re-add into queue
+    /**
+     * Read-only view of the players from fromPosition to toPosition inclusive, cut to however
+     * far the ladder goes, eg one page of a leaderboard. Nothing is copied, iterating it costs
+     * O(log n) to find the first player then O(1) a player. The view is of positions, so it
+     * shows the standings as they are when it's read (see StandingsView)
+     * @param fromPosition
+     * @param toPosition
      */
-    private void resetQueue() {
-        List<Player> players = new ArrayList<>(pQueue.size());
-        while (!pQueue.isEmpty()) {
-            players.add(pQueue.poll());
+    public List<Player> getRange(int fromPosition, int toPosition) {
+        return new StandingsView(standings, fromPosition, toPosition);
+    }
+
+    // the top n players, as getRange(1, n)
+    public List<Player> getTop(int n) {
+        return getRange(1, n);
+    }
+
+    /**
+     * The players up to radius places either side of player, player included, eg for a
+     * "players around me" list. Empty if the player isn't on this ladder
+     * @param player
+     * @param radius 0 or more, anything past the ends of the ladder is cut off
+     */
+    public List<Player> getNeighbours(Player player, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius can't be negative: " + radius);
+        }
+        if (player.rankNode == null || getPlayerById(player.getId()) != player) {
+            return Collections.emptyList();
         }
-        for (Player p: players) {
-            pQueue.add(p);
+        int position = RankTree.rankOf(player.rankNode);
+        // in long so a huge radius can't wrap round past the bottom of the ladder
+        return getRange(Math.max(1, position - radius), (int) Math.min(standings.size(), position + (long) radius));
+    }
+
+    /**
+     * Cursor over the whole ladder for paging either way: next() gives the player at position,
+     * previous() the one above. Its indexes are position - 1. Don't change the ladder while
+     * using one
+     * @param position 1..getNumPlayers()+1
+     */
+    public ListIterator<Player> standingsCursor(int position) {
+        if (position < 1 || position > standings.size() + 1) {
+            throw new IndexOutOfBoundsException("Position " + position + " on a ladder of " + standings.size());
         }
+        return new StandingsView.Cursor(standings, 1, Integer.MAX_VALUE, position);
     }
 
     public void removeAllPlayers() {
-        while (!pQueue.isEmpty()) {
-            Player p = pQueue.poll();
+        stamp();
+        while (!standings.isEmpty()) {
+            Player p = unplace(standings.size());
             allPlayerStats.removePlayerStats(p);
         }
+        // nobody left to refer to the old ids so start again from 1
+        allPlayerStats.removeAllPlayerStats();
+        playersById.clear();
+        nameIndex.clear();
+        emailIndex.clear();
+        nextPlayerId = 1;
+        standingsHistory.clear();
+        for (LadderListener listener : listeners) {
+            listener.allPlayersRemoved();
+        }
+    }
+
+    /**
+     * Ids of the players on the ladder at instant, in position order, worked out from the
+     * nearest checkpoint before it (see StandingsHistory). Players that have since left can
+     * still be named from the match history. Only goes back as far as the last
+     * removeAllPlayers
+     */
+    public int[] getStandingsAt(Instant instant) {
+        long start = metrics.start();
+        int[] ids = standingsHistory.getStandingsAt(instant.toEpochMilli());
+        metrics.stop(Operation.STANDINGS_AT, start);
+        return ids;
+    }
+
+    /**
+     * Where change timestamps come from, the system UTC clock by default. Timestamps never
+     * go backwards, if the clock does then changes are stamped with the latest time seen
+     * until it catches up
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Times the main operations (and the AllPlayerStats queries) into metrics, and adds
+     * gauges for the number of players, matches and standings history events. Off
+     * (LadderMetrics.none()) by default, see MetricsRecorder. The gauges are taken off
+     * whatever metrics the ladder had before
+     */
+    public void setMetrics(LadderMetrics metrics) {
+        setMetrics(metrics, null);
+    }
+
+    /**
+     * As setMetrics(metrics) for a ladder sharing metrics with others, its gauges are
+     * called name.players, name.matches & name.standingsEvents
+     */
+    public void setMetrics(LadderMetrics metrics, String name) {
+        this.metrics.removeGauge(gaugePrefix + "players", playersGauge);
+        this.metrics.removeGauge(gaugePrefix + "matches", matchesGauge);
+        this.metrics.removeGauge(gaugePrefix + "standingsEvents", standingsEventsGauge);
+        this.metrics = metrics;
+        allPlayerStats.setMetrics(metrics);
+        gaugePrefix = name == null ? "" : name + ".";
+        metrics.gauge(gaugePrefix + "players", playersGauge);
+        metrics.gauge(gaugePrefix + "matches", matchesGauge);
+        metrics.gauge(gaugePrefix + "standingsEvents", standingsEventsGauge);
+    }
+
+    // time the latest change was made
+    public Instant getLastEventTime() {
+        return Instant.ofEpochMilli(eventMillis);
+    }
+
+    public AllPlayerStats getAllPlayerStats() {
+        return allPlayerStats;
+    }
+
+    public void addListener(LadderListener listener) {
+        LadderListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public void removeListener(LadderListener listener) {
+        List<LadderListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new LadderListener[0]);
+    }
+
+    /**
+     * Write the whole ladder, players in rank order followed by all the stats,
+     * see LadderSnapshot for the file handling
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.putLong(eventMillis);
+        out.putInt(nextPlayerId);
+        out.putInt(standings.size());
+        for (RankTree.Node<Player> node = standings.first(); node != null; node = RankTree.next(node)) {
+            Player p = node.value;
+            out.putInt(p.getId());
+            out.putInt(p.getPreviousPosition());
+            out.putString(p.getFirstName());
+            out.putString(p.getLastName());
+            out.putString(p.getEmail());
+        }
+        allPlayerStats.writeTo(out);
+        standingsHistory.writeTo(out);
     }
 
-    private List<Player> getAllPlayers() {
-        List<Player> players = new ArrayList<>();
-        PriorityQueue<Player> pQueueCopy = new PriorityQueue<>(pQueue);
-        while (!pQueueCopy.isEmpty()) {
-            Player p = pQueueCopy.poll();
-            players.add(p);
+    /**
+     * Rebuild a ladder written by writeTo, players keep their ids
+     */
+    public static Ladder readFrom(SnapshotReader in) throws IOException {
+        Ladder ladder = new Ladder();
+        ladder.eventMillis = in.getLong();
+        ladder.nextPlayerId = in.getInt();
+        ladder.playersById.addAll(Collections.<Player>nCopies(ladder.nextPlayerId, null));
+        int numPlayers = in.getInt();
+        for (int position = 1; position <= numPlayers; position++) {
+            int id = in.getInt();
+            int previousPosition = in.getInt();
+            Player p = new Player(in.getString(), in.getString(), position);
+            p.setPreviousPosition(previousPosition);
+            p.setEmail(in.getString());
+            p.setId(id);
+            ladder.playersById.set(id, p);
+            ladder.place(p, position);
         }
+        // index in id (ie joining) order so shared names resolve the same way they did before
+        for (Player p : ladder.playersById) {
+            if (p != null) {
+                ladder.index(p);
+            }
+        }
+        ladder.allPlayerStats.readFrom(in);
+        ladder.standingsHistory.readFrom(in);
+        ladder.allPlayerStats.setEventTime(ladder.eventMillis);
+        return ladder;
+    }
 
-        return players;
+    private void join(Player player) {
+        int position = Math.max(1, Math.min(player.getCurrentPosition(), standings.size() + 1));
+        register(player);
+        // anyone from that position down is pushed down one
+        allPlayerStats.playersShifted(position, standings.size(), 1);
+        place(player, position);
+        allPlayerStats.addNewPlayer(player);
+        standingsHistory.inserted(player.getId(), position, eventMillis, standings);
+    }
+
+    // takes the time for the change about to be made
+    private void stamp() {
+        eventMillis = Math.max(eventMillis, clock.millis());
+        allPlayerStats.setEventTime(eventMillis);
+        for (LadderListener listener : listeners) {
+            listener.eventTime(eventMillis);
+        }
     }
-}
 
+    private void matchPlayed(Player winner, Player loser, int winnerPosition, int loserPosition, MatchStatus status) {
+        for (LadderListener listener : listeners) {
+            if (status == MatchStatus.DEFAULT_VICTORY) {
+                listener.matchDefaulted(winner, loser, winnerPosition, loserPosition);
+            } else {
+                listener.matchPlayed(winner, loser, winnerPosition, loserPosition);
+            }
+        }
+    }
 
+    private void batchStarted() {
+        for (LadderListener listener : listeners) {
+            listener.batchStarted();
+        }
+    }
 
+    private void batchFinished() {
+        for (LadderListener listener : listeners) {
+            listener.batchFinished();
+        }
+    }
+
+    private void place(Player player, int position) {
+        player.rankNode = standings.insert(position, player);
+    }
+
+    // takes the player at position off the ladder, they keep that position as their last known one
+    private Player unplace(int position) {
+        Player player = standings.remove(position).value;
+        player.rankNode = null;
+        player.setCurrentPosition(position);
+        return player;
+    }
 
+    /**
+     * Most callers only know the first name (players with no last name), so try that as
+     * a full name first and only fall back to a scan if there's no such entry
+     */
+    private Player findByFirstName(String firstName) {
+        Player p = getPlayer(firstName, "");
+        if (p != null) {
+            return p;
+        }
+        for (RankTree.Node<Player> node = standings.first(); node != null; node = RankTree.next(node)) {
+            if (node.value.getFirstName().equalsIgnoreCase(firstName)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    private void register(Player player) {
+        if (playersById.isEmpty()) {
+            playersById.add(null); // id 0 is "no player"
+        }
+        player.setId(nextPlayerId++);
+        playersById.add(player);
+        index(player);
+    }
+
+    private void index(Player player) {
+        // first player in wins if two share a name/email, the other is still reachable by id
+        nameIndex.putIfAbsent(nameKey(player.getFirstName(), player.getLastName()), player);
+        if (player.getEmail() != null) {
+            emailIndex.putIfAbsent(normalise(player.getEmail()), player);
+        }
+    }
+
+    private void unregister(Player player) {
+        playersById.set(player.getId(), null);
+        nameIndex.remove(nameKey(player.getFirstName(), player.getLastName()), player);
+        if (player.getEmail() != null) {
+            emailIndex.remove(normalise(player.getEmail()), player);
+        }
+    }
+
+    private static String nameKey(String firstName, String lastName) {
+        return normalise(firstName) + '\u0000' + normalise(lastName);
+    }
+
+    private static String normalise(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.component;
+
+/**
+ * Gets told about every change made to a Ladder, after the change has been applied.
+ * Called on the thread making the change, so implementations should be quick.
+ * All methods default to doing nothing so listeners only pick what they need.
+ */
+public interface LadderListener {
+
+    /**
+     * Time (epoch millis) of the change that's about to be reported, called before each one.
+     * Never goes backwards, see Ladder.setClock
+     */
+    default void eventTime(long epochMillis) {
+    }
+
+    // added with Ladder.addPlayer(s), player.getCurrentPosition() is where they ended up
+    default void playerAdded(Player player) {
+    }
+
+    // added with Ladder.insertPlayer
+    default void playerInserted(Player player) {
+    }
+
+    // player.getCurrentPosition() is the position they were removed from
+    default void playerRemoved(Player player) {
+    }
+
+    /**
+     * A match result has been recorded
+     * @param winner
+     * @param loser
+     * @param winnerPosition winner's position before the match
+     * @param loserPosition loser's position before the match
+     */
+    default void matchPlayed(Player winner, Player loser, int winnerPosition, int loserPosition) {
+    }
+
+    /**
+     * As matchPlayed but the loser defaulted, see Ladder.defaultResult. Positions have changed
+     * just as for a match, so by default it's passed on to matchPlayed
+     */
+    default void matchDefaulted(Player winner, Player loser, int winnerPosition, int loserPosition) {
+        matchPlayed(winner, loser, winnerPosition, loserPosition);
+    }
+
+    default void allPlayersRemoved() {
+    }
+
+    /**
+     * A run of changes is about to be made in one go (eg Ladder.addPlayers), each change is
+     * still reported as normal in between. Listeners that do something expensive per change
+     * can wait for batchFinished instead
+     */
+    default void batchStarted() {
+    }
+
+    default void batchFinished() {
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.component;
+
+/**
+ * One result for Ladder.applyResults, positions are the players' positions when the
+ * match is applied (ie after any results ahead of it in the same batch)
+ */
+public final class MatchRecord {
+    private final int loserPosition;
+    private final int winnerPosition;
+
+    public MatchRecord(int loserPosition, int winnerPosition) {
+        this.loserPosition = loserPosition;
+        this.winnerPosition = winnerPosition;
+    }
+
+    public int getLoserPosition() {
+        return loserPosition;
+    }
+
+    public int getWinnerPosition() {
+        return winnerPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchRecord{loser=" + loserPosition + ", winner=" + winnerPosition + "}";
+    }
+}
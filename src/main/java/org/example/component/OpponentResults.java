@@ -3,74 +3,166 @@ package org.example.component;
 
 import org.apache.commons.math3.util.Pair;
 import org.example.MatchStatus;
+import org.example.stats.MatchHistory;
 import org.example.stats.OpponentResult;
+import org.example.stats.PositionTimeline;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Each player will have a history of match results (OpponentResults)
- * OpponentResults will contain a list of individual results against opponents (OpponentResult)
+ * The results themselves live in the shared MatchHistory, this holds the player's running
+ * aggregates and gives a per-player view of the history
  * eg, player A played B,C,D ... etc with a full snapshot of time the match was player, opponent,
  * current and previous position etc
  */
 public class OpponentResults {
-    private List<OpponentResult> statsResults = new ArrayList<>();
+    private final MatchHistory history;
+    private final int playerId;
+    private int numMatches = 0;
+
+    // running aggregates, kept up to date by updateResult so they never need a rescan
+    private int numWins = 0;
+    private int numLosses = 0;
+    private int highestPosition = Integer.MAX_VALUE; // highest == numerically lowest
+    private long sumOpponentPositions = 0;
+    private int highestOpponentDefeatedPosition = 1_000_000;
+    private int highestOpponentDefeatedId = 0;
+    private final PositionTimeline timeline = new PositionTimeline();
+
+    public OpponentResults(MatchHistory history, int playerId) {
+        this.history = history;
+        this.playerId = playerId;
+    }
 
     /**
-     *  Add a new OponentResult to OpponentResults ie a summary of last match played
-     * @param player
-     * @param status
-     * @param opponent
+     *  Fold a newly recorded match (a row in the history) into this player's aggregates
+     * @param row
      */
-    public void updateResult(Player player, MatchStatus status, Player opponent) {
-        OpponentResult data = new OpponentResult(player, opponent, status);
-        statsResults.add(data);
+    public void updateResult(int row) {
+        numMatches++;
+        MatchStatus status = history.getStatus(row, playerId);
+        if (status == MatchStatus.VICTORY) {
+            numWins++;
+            int opponentPosition = history.getOpponentPreviousPosition(row, playerId);
+            if (highestOpponentDefeatedPosition > opponentPosition) {
+                highestOpponentDefeatedPosition = opponentPosition;
+                highestOpponentDefeatedId = history.getOpponentId(row, playerId);
+            }
+        }
+        else if (status == MatchStatus.DEFEAT) {
+            numLosses++;
+        }
+        highestPosition = Math.min(highestPosition,
+                Math.min(history.getMyCurrentPosition(row, playerId), history.getMyPreviousPosition(row, playerId)));
+        sumOpponentPositions += history.getOpponentCurrentPosition(row, playerId);
+        addToTimeline(row);
     }
 
     public Pair<Integer, Integer> getWinsLosses() {
-        int numWins=0;
-        int numLosses=0;
-        for (OpponentResult data: statsResults)  {
-            if (data.getStatus() == MatchStatus.VICTORY) {
-                numWins++;
-            }
-            else if (data.getStatus() == MatchStatus.DEFEAT) {
-                numLosses++;
-            }
-        }
         return Pair.create(numWins, numLosses);
     }
 
+    /**
+     * Highest (ie numerically lowest) position recorded in any result,
+     * Integer.MAX_VALUE if no matches played yet
+     */
+    public int getHighestPosition() {
+        return highestPosition;
+    }
+
+    public long getSumOfOpponentPositions() {
+        return sumOpponentPositions;
+    }
+
+    /**
+     * @return Pair<opponent first+last name, opponent position before the match>, or
+     * ("", 1_000_000) if no victories yet
+     */
+    public Pair<String, Integer> getHighestOpponentDefeated() {
+        if (highestOpponentDefeatedId == 0) {
+            return Pair.create("", highestOpponentDefeatedPosition);
+        }
+        return Pair.create(history.getFirstName(highestOpponentDefeatedId)
+                + history.getLastName(highestOpponentDefeatedId), highestOpponentDefeatedPosition);
+    }
+
+    // 0 if they haven't beaten anyone yet
+    public int getHighestOpponentDefeatedId() {
+        return highestOpponentDefeatedId;
+    }
+
+    /**
+     * Position after each match, starting with where they were before their first
+     */
+    public PositionTimeline getTimeline() {
+        return timeline;
+    }
+
     /**
      * Return all the results against a particular player
-     * (assumes no other player with same first.second name)
      * @param opponent
      * @return
      */
     public List<OpponentResult> getStatsAgainstPlayer(Player opponent) {
         List<OpponentResult> opponentResults = new ArrayList<>();
 
-        for (OpponentResult data: statsResults) {
-            if (data.getOpponentFirstName() == opponent.getFirstName() &&
-                data.getOpponentLastName() == opponent.getLastName()) {
-                opponentResults.add(data);
+        for (int row = history.firstRow(playerId); row != MatchHistory.NONE; row = history.nextRow(row, playerId)) {
+            if (history.getOpponentId(row, playerId) == opponent.getId()) {
+                opponentResults.add(history.getResult(row, playerId));
             }
         }
         return opponentResults;
     }
 
     /**
-     * Return all match results for a player
+     * Return all match results for a player, built from the history on each call
      * @return
      */
     public List<OpponentResult> getStatsResults() {
+        List<OpponentResult> statsResults = new ArrayList<>(numMatches);
+        for (int row = history.firstRow(playerId); row != MatchHistory.NONE; row = history.nextRow(row, playerId)) {
+            statsResults.add(history.getResult(row, playerId));
+        }
         return statsResults;
     }
 
+    void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(numMatches);
+        out.putInt(numWins);
+        out.putInt(numLosses);
+        out.putInt(highestPosition);
+        out.putLong(sumOpponentPositions);
+        out.putInt(highestOpponentDefeatedPosition);
+        out.putInt(highestOpponentDefeatedId);
+        timeline.writeTo(out);
+    }
+
+    void readFrom(SnapshotReader in) throws IOException {
+        numMatches = in.getInt();
+        numWins = in.getInt();
+        numLosses = in.getInt();
+        highestPosition = in.getInt();
+        sumOpponentPositions = in.getLong();
+        highestOpponentDefeatedPosition = in.getInt();
+        highestOpponentDefeatedId = in.getInt();
+        timeline.readFrom(in);
+    }
+
+    // the position after the match, after where they started if it's their first
+    private void addToTimeline(int row) {
+        if (timeline.isEmpty()) {
+            timeline.add(history.getMyPreviousPosition(row, playerId)); // where they started
+        }
+        timeline.add(history.getMyCurrentPosition(row, playerId));
+    }
+
     // total num of matches faced by this player
     public int getTotalNumOfMatches() {
-        return statsResults.size();
+        return numMatches;
     }
 }
-
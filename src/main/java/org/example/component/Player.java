@@ -1,12 +1,16 @@
 package org.example.component;
 
 public class Player implements Comparable<Player>{
+    private int id; // assigned by the ladder, 0 until then
     private String firstName;
     private String lastName;
     private int currentPosition;
     private int previousPosition;
     private String email;
 
+    // set while the player is on a ladder, position is then worked out from the rank tree
+    RankTree.Node<Player> rankNode;
+
     public Player(String firstName, String lastName, int currentPosition) {
         this.firstName = firstName;
         this.lastName = lastName;
@@ -23,6 +27,11 @@ public class Player implements Comparable<Player>{
         this.lastName = lastName;
     }
 
+    /**
+     * Only used while the player is off the ladder (eg before being added), once on a
+     * ladder the position comes from where the player sits in the ladder's rank tree
+     * @param currentPosition
+     */
     public void setCurrentPosition(int currentPosition) {
         this.currentPosition = currentPosition;
     }
@@ -35,6 +44,15 @@ public class Player implements Comparable<Player>{
         this.email = email;
     }
 
+    // ids are handed out by the ladder the player joins
+    void setId(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -44,6 +62,9 @@ public class Player implements Comparable<Player>{
     }
 
     public int getCurrentPosition() {
+        if (rankNode != null) {
+            return RankTree.rankOf(rankNode);
+        }
         return currentPosition;
     }
 
@@ -57,6 +78,6 @@ public class Player implements Comparable<Player>{
 
     @Override
     public int compareTo(Player player) {
-        return Integer.compare(currentPosition, player.currentPosition);
+        return Integer.compare(getCurrentPosition(), player.getCurrentPosition());
     }
 }
@@ -0,0 +1,362 @@
+package org.example.component;
+
+import java.util.List;
+
+/**
+ * Implicit treap that keeps the ladder in rank order.
+ *
+ * Positions are never stored, a node's rank is simply the number of nodes before it
+ * in an in-order walk, so shifting a whole block of players up or down one place is
+ * free - it falls out of removing/inserting a single node.
+ * Every operation is O(log n) expected, there is no re-sort of the ladder.
+ *
+ * Ranks are 1-based to match ladder positions.
+ *
+ * Each node holds the sizes of both its subtrees rather than its own size, so walking down
+ * only ever reads the node in hand - one dependent load per level instead of two, which is
+ * most of the cost of a lookup once the tree doesn't fit in the nearest cache.
+ */
+class RankTree<T> {
+
+    static final class Node<T> {
+        final T value;
+        private final int priority;
+        private Node<T> left;
+        private Node<T> right;
+        private Node<T> parent;
+        private int leftSize = 0;
+        private int rightSize = 0;
+
+        private Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private Node<T> root;
+    private int seed = 0x2545F491;
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @param rank 1-based
+     * @return the value at rank, or null if rank is outside the tree
+     */
+    public T get(int rank) {
+        Node<T> node = nodeAt(rank);
+        return node == null ? null : node.value;
+    }
+
+    public Node<T> nodeAt(int rank) {
+        if (rank < 1 || rank > size()) {
+            return null;
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = node.leftSize;
+            if (rank <= leftSize) {
+                node = node.left;
+            } else if (rank == leftSize + 1) {
+                return node;
+            } else {
+                rank -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Insert value at rank, everything currently at rank or below moves down one
+     * @param rank 1..size()+1
+     * @param value
+     * @return the node now holding value
+     */
+    public Node<T> insert(int rank, T value) {
+        Node<T> node = new Node<>(value, nextPriority());
+        insertNode(rank, node);
+        return node;
+    }
+
+    /**
+     * Fills an empty tree with values in rank order in O(n), rather than n inserts at
+     * O(log n) each. Nodes get random priorities as usual and are hung off the right spine
+     * of the tree built so far (a Cartesian tree, built with the spine as a stack), then
+     * subtree sizes are filled in bottom up. The result is the same shape of treap inserts
+     * would give.
+     * @param values in rank order, values.get(0) is rank 1
+     */
+    @SuppressWarnings("unchecked")
+    public void build(List<T> values) {
+        if (root != null) {
+            throw new IllegalStateException("Can only build an empty tree, this one has " + size());
+        }
+        Node<T>[] spine = (Node<T>[]) new Node<?>[values.size()];
+        int top = -1;
+        for (T value : values) {
+            Node<T> node = new Node<>(value, nextPriority());
+            Node<T> below = null;
+            while (top >= 0 && spine[top].priority < node.priority) {
+                below = spine[top--];
+            }
+            node.left = below;
+            if (below != null) {
+                below.parent = node;
+            }
+            if (top >= 0) {
+                spine[top].right = node;
+                node.parent = spine[top];
+            }
+            spine[++top] = node;
+        }
+        root = top >= 0 ? spine[0] : null;
+
+        // post-order walk using the parent links, a node's size once both its subtrees are done
+        Node<T> node = root;
+        Node<T> from = null;
+        while (node != null) {
+            if (from == node.parent && node.left != null) {
+                from = node;
+                node = node.left;
+            } else if ((from == node.parent || from == node.left) && node.right != null) {
+                from = node;
+                node = node.right;
+            } else {
+                node.leftSize = size(node.left);
+                node.rightSize = size(node.right);
+                from = node;
+                node = node.parent;
+            }
+        }
+    }
+
+    /**
+     * Remove whatever is at rank, everything below moves up one
+     * @param rank 1..size()
+     * @return the detached node
+     */
+    public Node<T> remove(int rank) {
+        checkRank(rank, size());
+        Node<T> removed = nodeAt(rank);
+        removeNode(removed);
+        return removed;
+    }
+
+    /**
+     * Move the node at rank "from" to rank "to", everything in between shifts by one.
+     * The node itself is reused so a move never allocates.
+     */
+    public void move(int from, int to) {
+        Node<T> node = remove(from);
+        insertNode(to, node);
+    }
+
+    // as move(from, to) when the caller already has the node, saves finding it again
+    public void move(Node<T> node, int to) {
+        removeNode(node);
+        insertNode(to, node);
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    public Node<T> first() {
+        Node<T> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    public Node<T> last() {
+        Node<T> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * 1-based rank of a node that is currently in a tree, O(log n)
+     */
+    public static int rankOf(Node<?> node) {
+        int rank = node.leftSize + 1;
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                rank += node.parent.leftSize + 1;
+            }
+            node = node.parent;
+        }
+        return rank;
+    }
+
+    /**
+     * In-order successor, null if node is last. Amortised O(1) when walking the whole tree
+     */
+    public static <T> Node<T> next(Node<T> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * In-order predecessor, null if node is first
+     */
+    public static <T> Node<T> previous(Node<T> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
+        }
+        while (node.parent != null && node == node.parent.left) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * Walk down to where the node belongs (growing each subtree we pass through), hang it
+     * off as a leaf, then rotate it up until the heap order on priorities holds again.
+     * A treap only needs ~2 rotations per insert on average.
+     */
+    private void insertNode(int rank, Node<T> node) {
+        checkRank(rank, size() + 1);
+        if (root == null) {
+            root = node;
+            return;
+        }
+        Node<T> current = root;
+        while (true) {
+            int leftSize = current.leftSize;
+            if (rank <= leftSize + 1) {
+                current.leftSize++;
+                if (current.left == null) {
+                    current.left = node;
+                    break;
+                }
+                current = current.left;
+            } else {
+                rank -= leftSize + 1;
+                current.rightSize++;
+                if (current.right == null) {
+                    current.right = node;
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        node.parent = current;
+        while (node.parent != null && node.priority > node.parent.priority) {
+            rotateUp(node);
+        }
+    }
+
+    /**
+     * Rotate the node down until it has at most one child, splice it out and shrink
+     * every subtree above it by one
+     */
+    private void removeNode(Node<T> node) {
+        while (node.left != null && node.right != null) {
+            rotateUp(node.left.priority > node.right.priority ? node.left : node.right);
+        }
+        Node<T> child = node.left != null ? node.left : node.right;
+        Node<T> parent = node.parent;
+        if (child != null) {
+            child.parent = parent;
+        }
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == node) {
+            parent.left = child;
+            parent.leftSize--;
+        } else {
+            parent.right = child;
+            parent.rightSize--;
+        }
+        for (Node<T> below = parent; below != null && below.parent != null; below = below.parent) {
+            if (below.parent.left == below) {
+                below.parent.leftSize--;
+            } else {
+                below.parent.rightSize--;
+            }
+        }
+
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+        node.leftSize = 0;
+        node.rightSize = 0;
+    }
+
+    // swaps node with its parent, keeping the in-order (ie rank) order the same
+    private void rotateUp(Node<T> node) {
+        Node<T> parent = node.parent;
+        Node<T> grandParent = parent.parent;
+        if (node == parent.left) {
+            parent.left = node.right;
+            parent.leftSize = node.rightSize;
+            if (node.right != null) {
+                node.right.parent = parent;
+            }
+            node.right = parent;
+            node.rightSize = size(parent);
+        } else {
+            parent.right = node.left;
+            parent.rightSize = node.leftSize;
+            if (node.left != null) {
+                node.left.parent = parent;
+            }
+            node.left = parent;
+            node.leftSize = size(parent);
+        }
+        parent.parent = node;
+        node.parent = grandParent;
+        if (grandParent == null) {
+            root = node;
+        } else if (grandParent.left == parent) {
+            grandParent.left = node;
+        } else {
+            grandParent.right = node;
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.leftSize + 1 + node.rightSize;
+    }
+
+    private static void checkRank(int rank, int maxRank) {
+        if (rank < 1 || rank > maxRank) {
+            throw new IndexOutOfBoundsException("rank " + rank + " outside 1.." + maxRank);
+        }
+    }
+
+    // xorshift, good enough for treap priorities and never allocates
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -0,0 +1,375 @@
+package org.example.component;
+
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Timestamped log of every change to the order of a ladder, so the standings at any past
+ * instant can be worked out again (see Ladder.getStandingsAt).
+ *
+ * Changes are kept as small primitive events (a player moving up from one position to another,
+ * a player joining or leaving at a position). Every so often the whole order is saved as a
+ * checkpoint, often enough that working out past standings never replays more than about
+ * one ladder's worth of events, and rarely enough that checkpoints cost about one int per event.
+ * A past order is rebuilt from the nearest checkpoint before it, not from the start.
+ * Events are added after the change has been made to the ladder.
+ *
+ * Timestamps never go backwards (see Ladder.setClock), so events & checkpoints are found
+ * with a binary search.
+ */
+class StandingsHistory {
+    private static final int MIN_CHECKPOINT_INTERVAL = 1024;
+
+    private static final byte MOVE = 1;   // a = from position, b = to position
+    private static final byte INSERT = 2; // a = player id, b = position
+    private static final byte REMOVE = 3; // b = position
+
+    private byte[] types = new byte[64];
+    private int[] as = new int[64];
+    private int[] bs = new int[64];
+    private long[] times = new long[64];
+    private int size = 0;
+
+    // checkpoint i is the order (player ids, top first) once the first checkpointEvents[i]
+    // events have been applied
+    private int[] checkpointEvents = new int[8];
+    private int[][] checkpoints = new int[8][];
+    private int numCheckpoints = 0;
+    // checkpoint arrays made up front by reserve, used while they're the right length
+    private int[][] spareCheckpoints = new int[0][];
+    private int numSpareCheckpoints = 0;
+
+    StandingsHistory() {
+        checkpoints[numCheckpoints++] = new int[0]; // the empty ladder, before any events
+    }
+
+    void moved(int fromPosition, int toPosition, long millis, RankTree<Player> standings) {
+        add(MOVE, fromPosition, toPosition, millis, standings);
+    }
+
+    void inserted(int playerId, int position, long millis, RankTree<Player> standings) {
+        add(INSERT, playerId, position, millis, standings);
+    }
+
+    // a whole ladder's worth of players joining at once, at the bottom in order, see Ladder.loadPlayers
+    void insertedAll(int[] playerIds, long millis, RankTree<Player> standings) {
+        if (size + playerIds.length > types.length) {
+            grow(Math.max(size + playerIds.length, types.length * 2));
+        }
+        int position = standings.size() - playerIds.length;
+        for (int id : playerIds) {
+            add(INSERT, id, ++position, millis, null);
+        }
+        checkpoint(standings);
+    }
+
+    void removed(int position, long millis, RankTree<Player> standings) {
+        add(REMOVE, 0, position, millis, standings);
+    }
+
+    // ids are handed out again once a ladder is emptied, so the history has to start again too
+    void clear() {
+        size = 0;
+        numCheckpoints = 1;
+        numSpareCheckpoints = 0;
+    }
+
+    /**
+     * Make room for this many more events that don't change the size of the ladder (ie
+     * matches), including the checkpoints they'll need, so adding them allocates nothing
+     */
+    void reserve(int extraEvents, int ladderSize) {
+        if (size + extraEvents > types.length) {
+            grow(Math.max(size + extraEvents, types.length * 2));
+        }
+        int interval = Math.max(MIN_CHECKPOINT_INTERVAL, ladderSize);
+        int extraCheckpoints = (size - checkpointEvents[numCheckpoints - 1] + extraEvents) / interval;
+        if (numCheckpoints + extraCheckpoints > checkpoints.length) {
+            int capacity = Math.max(numCheckpoints + extraCheckpoints, checkpoints.length * 2);
+            checkpointEvents = Arrays.copyOf(checkpointEvents, capacity);
+            checkpoints = Arrays.copyOf(checkpoints, capacity);
+        }
+        if (numSpareCheckpoints > 0 && spareCheckpoints[0].length != ladderSize) {
+            numSpareCheckpoints = 0;
+        }
+        if (extraCheckpoints > spareCheckpoints.length) {
+            spareCheckpoints = Arrays.copyOf(spareCheckpoints, extraCheckpoints);
+        }
+        while (numSpareCheckpoints < extraCheckpoints) {
+            spareCheckpoints[numSpareCheckpoints++] = new int[ladderSize];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return ids of the players on the ladder, in position order, once every change made
+     * at or before epochMillis had been applied
+     */
+    public int[] getStandingsAt(long epochMillis) {
+        // events [0, end) had happened by then
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] > epochMillis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        int end = low;
+
+        // nearest checkpoint at or before that
+        int checkpoint = 0;
+        low = 0;
+        high = numCheckpoints - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (checkpointEvents[mid] <= end) {
+                checkpoint = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int[] start = checkpoints[checkpoint];
+        int event = checkpointEvents[checkpoint];
+        if (event == end) {
+            return start.clone();
+        }
+        IdOrder order = new IdOrder(start, end - event);
+        for (; event < end; event++) {
+            switch (types[event]) {
+                case MOVE:
+                    order.insert(bs[event], order.remove(as[event]));
+                    break;
+                case INSERT:
+                    order.insert(bs[event], order.newNode(as[event]));
+                    break;
+                default:
+                    order.remove(bs[event]);
+                    break;
+            }
+        }
+        return order.toArray();
+    }
+
+    /**
+     * Player ids in position order while events are replayed from a checkpoint. An implicit
+     * treap as RankTree, but with its nodes in int arrays so rebuilding an old order is a few
+     * allocations however big the ladder is, rather than a node per player. Node 0 is none.
+     */
+    private static final class IdOrder {
+        private final int[] ids;
+        private final int[] priorities;
+        private final int[] lefts;
+        private final int[] rights;
+        private final int[] sizes;
+        private int numNodes = 1;
+        private int root = 0;
+        private int seed = 0x2545F491;
+        // the two halves from the last split
+        private int splitLow;
+        private int splitHigh;
+
+        /**
+         * Built in O(n) as RankTree.build, as a Cartesian tree hung off a stack of the right
+         * spine. A node's subtree is complete once it's popped, so that's when it's sized
+         * @param extraNodes room for this many inserts
+         */
+        IdOrder(int[] start, int extraNodes) {
+            int capacity = 1 + start.length + extraNodes;
+            ids = new int[capacity];
+            priorities = new int[capacity];
+            lefts = new int[capacity];
+            rights = new int[capacity];
+            sizes = new int[capacity];
+            int[] spine = new int[start.length];
+            int top = -1;
+            for (int id : start) {
+                int node = newNode(id);
+                int below = 0;
+                while (top >= 0 && priorities[spine[top]] < priorities[node]) {
+                    below = spine[top--];
+                    resize(below);
+                }
+                lefts[node] = below;
+                if (top >= 0) {
+                    rights[spine[top]] = node;
+                }
+                spine[++top] = node;
+            }
+            for (int i = top; i >= 0; i--) {
+                resize(spine[i]);
+            }
+            root = top >= 0 ? spine[0] : 0;
+        }
+
+        int newNode(int id) {
+            int node = numNodes++;
+            ids[node] = id;
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            priorities[node] = seed;
+            sizes[node] = 1;
+            return node;
+        }
+
+        // takes the node out from position, everyone below moves up one
+        int remove(int position) {
+            split(root, position - 1);
+            int above = splitLow;
+            split(splitHigh, 1);
+            int node = splitLow;
+            root = merge(above, splitHigh);
+            return node;
+        }
+
+        // puts a node (new or just removed) in at position, everyone from there down moves down one
+        void insert(int position, int node) {
+            split(root, position - 1);
+            int below = splitHigh;
+            root = merge(merge(splitLow, node), below);
+        }
+
+        int[] toArray() {
+            int[] out = new int[sizes[root]];
+            fill(root, out, 0);
+            return out;
+        }
+
+        private int fill(int node, int[] out, int index) {
+            if (node == 0) {
+                return index;
+            }
+            index = fill(lefts[node], out, index);
+            out[index++] = ids[node];
+            return fill(rights[node], out, index);
+        }
+
+        // the first count nodes of node's subtree to splitLow, the rest to splitHigh
+        private void split(int node, int count) {
+            if (node == 0) {
+                splitLow = 0;
+                splitHigh = 0;
+            } else if (sizes[lefts[node]] >= count) {
+                split(lefts[node], count);
+                lefts[node] = splitHigh;
+                resize(node);
+                splitHigh = node;
+            } else {
+                split(rights[node], count - sizes[lefts[node]] - 1);
+                rights[node] = splitLow;
+                resize(node);
+                splitLow = node;
+            }
+        }
+
+        // everything in low then everything in high, as one tree
+        private int merge(int low, int high) {
+            if (low == 0) {
+                return high;
+            }
+            if (high == 0) {
+                return low;
+            }
+            if (priorities[low] > priorities[high]) {
+                rights[low] = merge(rights[low], high);
+                resize(low);
+                return low;
+            }
+            lefts[high] = merge(low, lefts[high]);
+            resize(high);
+            return high;
+        }
+
+        private void resize(int node) {
+            sizes[node] = 1 + sizes[lefts[node]] + sizes[rights[node]];
+        }
+    }
+
+    void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(size);
+        out.putBytes(types, size);
+        out.putInts(as, size);
+        out.putInts(bs, size);
+        out.putLongs(times, size);
+        out.putInt(numCheckpoints);
+        out.putInts(checkpointEvents, numCheckpoints);
+        for (int i = 0; i < numCheckpoints; i++) {
+            out.putInt(checkpoints[i].length);
+            out.putInts(checkpoints[i], checkpoints[i].length);
+        }
+    }
+
+    void readFrom(SnapshotReader in) throws IOException {
+        size = in.getInt();
+        int capacity = Math.max(64, size);
+        types = new byte[capacity];
+        as = new int[capacity];
+        bs = new int[capacity];
+        times = new long[capacity];
+        in.getBytes(types, size);
+        in.getInts(as, size);
+        in.getInts(bs, size);
+        in.getLongs(times, size);
+        numCheckpoints = in.getInt();
+        checkpointEvents = new int[Math.max(8, numCheckpoints)];
+        checkpoints = new int[checkpointEvents.length][];
+        in.getInts(checkpointEvents, numCheckpoints);
+        for (int i = 0; i < numCheckpoints; i++) {
+            checkpoints[i] = new int[in.getInt()];
+            in.getInts(checkpoints[i], checkpoints[i].length);
+        }
+    }
+
+    private void add(byte type, int a, int b, long millis, RankTree<Player> standings) {
+        if (size == types.length) {
+            grow(size * 2);
+        }
+        types[size] = type;
+        as[size] = a;
+        bs[size] = b;
+        times[size] = millis;
+        size++;
+        if (standings != null
+                && size - checkpointEvents[numCheckpoints - 1] >= Math.max(MIN_CHECKPOINT_INTERVAL, standings.size())) {
+            checkpoint(standings);
+        }
+    }
+
+    private void checkpoint(RankTree<Player> standings) {
+        if (numCheckpoints == checkpoints.length) {
+            checkpointEvents = Arrays.copyOf(checkpointEvents, numCheckpoints * 2);
+            checkpoints = Arrays.copyOf(checkpoints, numCheckpoints * 2);
+        }
+        int[] ids;
+        if (numSpareCheckpoints > 0 && spareCheckpoints[numSpareCheckpoints - 1].length == standings.size()) {
+            ids = spareCheckpoints[--numSpareCheckpoints];
+            spareCheckpoints[numSpareCheckpoints] = null;
+        } else {
+            ids = new int[standings.size()];
+        }
+        int i = 0;
+        for (RankTree.Node<Player> node = standings.first(); node != null; node = RankTree.next(node)) {
+            ids[i++] = node.value.getId();
+        }
+        checkpointEvents[numCheckpoints] = size;
+        checkpoints[numCheckpoints++] = ids;
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        as = Arrays.copyOf(as, capacity);
+        bs = Arrays.copyOf(bs, capacity);
+        times = Arrays.copyOf(times, capacity);
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.component;
+
+import org.apache.commons.math3.util.Pair;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write read path for a Ladder. After every change the writer builds the next
+ * StandingsSnapshot and publishes it with a single volatile write, readers just call
+ * current() and can query that snapshot for as long as they like without locking and
+ * without ever seeing a half applied change.
+ *
+ * Only the chunks a change touches are copied, so a match between two players close
+ * together on the ladder costs a few KB rather than a copy of the whole ladder. Joins and
+ * removals shift everyone below them and are rebuilt in full, as is anything done inside a
+ * batch (see LadderListener.batchFinished).
+ *
+ *   StandingsPublisher publisher = StandingsPublisher.attach(ladder);
+ *   ...
+ *   StandingsSnapshot now = publisher.current(); // from any thread
+ */
+public class StandingsPublisher implements LadderListener {
+    private final Ladder ladder;
+    private volatile StandingsSnapshot current;
+
+    // writer side only, the columns for the version being built
+    private final IntColumn idByPosition = new IntColumn();
+    private final IntColumn positionById = new IntColumn();
+    private final IntColumn winsById = new IntColumn();
+    private final IntColumn lossesById = new IntColumn();
+    private final IntColumn highestPositionById = new IntColumn();
+    private final NameColumn firstNameById = new NameColumn();
+    private final NameColumn lastNameById = new NameColumn();
+    private long version = 0;
+    private int batchDepth = 0;
+    private boolean stale = false;
+
+    private StandingsPublisher(Ladder ladder) {
+        this.ladder = ladder;
+        rebuild();
+    }
+
+    /**
+     * Publishes the ladder as it is now and keeps publishing after every change.
+     * Changes must still come from one thread at a time.
+     */
+    public static StandingsPublisher attach(Ladder ladder) {
+        StandingsPublisher publisher = new StandingsPublisher(ladder);
+        ladder.addListener(publisher);
+        return publisher;
+    }
+
+    public void detach() {
+        ladder.removeListener(this);
+    }
+
+    // latest published standings, safe from any thread
+    public StandingsSnapshot current() {
+        return current;
+    }
+
+    @Override
+    public void playerAdded(Player player) {
+        changed();
+    }
+
+    @Override
+    public void playerInserted(Player player) {
+        changed();
+    }
+
+    @Override
+    public void playerRemoved(Player player) {
+        changed();
+    }
+
+    @Override
+    public void allPlayersRemoved() {
+        changed();
+    }
+
+    @Override
+    public void batchStarted() {
+        batchDepth++;
+    }
+
+    @Override
+    public void batchFinished() {
+        if (--batchDepth == 0 && stale) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void matchPlayed(Player winner, Player loser, int winnerPosition, int loserPosition) {
+        if (batchDepth > 0) {
+            stale = true;
+            return;
+        }
+        if (winnerPosition > loserPosition) {
+            // winner takes the loser's slot, everyone from there to the winner's old slot moves down one
+            for (int position = winnerPosition; position > loserPosition; position--) {
+                int id = idByPosition.get(position - 1);
+                idByPosition.set(position, id);
+                positionById.set(id, position);
+            }
+            idByPosition.set(loserPosition, winner.getId());
+            positionById.set(winner.getId(), loserPosition);
+        }
+        updateStats(winner);
+        updateStats(loser);
+        publish();
+    }
+
+    private void changed() {
+        if (batchDepth > 0) {
+            stale = true;
+        } else {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        int size = ladder.standings.size();
+        idByPosition.reset(size + 1);
+        int maxId = 0;
+        for (RankTree.Node<Player> node = ladder.standings.first(); node != null; node = RankTree.next(node)) {
+            maxId = Math.max(maxId, node.value.getId());
+        }
+        positionById.reset(maxId + 1);
+        winsById.reset(maxId + 1);
+        lossesById.reset(maxId + 1);
+        highestPositionById.reset(maxId + 1);
+        firstNameById.reset(maxId + 1);
+        lastNameById.reset(maxId + 1);
+
+        int position = 1;
+        for (RankTree.Node<Player> node = ladder.standings.first(); node != null; node = RankTree.next(node)) {
+            Player p = node.value;
+            idByPosition.set(position, p.getId());
+            positionById.set(p.getId(), position);
+            firstNameById.set(p.getId(), p.getFirstName());
+            lastNameById.set(p.getId(), p.getLastName());
+            updateStats(p);
+            position++;
+        }
+        stale = false;
+        publish();
+    }
+
+    private void updateStats(Player player) {
+        Pair<Integer, Integer> winsLosses = ladder.allPlayerStats.getPlayerWinsLosses(player);
+        winsById.set(player.getId(), winsLosses.getFirst());
+        lossesById.set(player.getId(), winsLosses.getSecond());
+        highestPositionById.set(player.getId(), ladder.allPlayerStats.getAllTimeHighestPosition(player));
+    }
+
+    private void publish() {
+        current = new StandingsSnapshot(++version, ladder.standings.size(),
+                idByPosition.publish(), positionById.publish(),
+                winsById.publish(), lossesById.publish(), highestPositionById.publish(),
+                firstNameById.publish(), lastNameById.publish());
+    }
+
+    /**
+     * Chunked int column, chunks already handed out in a snapshot are never written to again,
+     * the first write to one after a publish copies it
+     */
+    private static final class IntColumn {
+        private int[][] chunks = new int[0][];
+        private boolean[] owned = new boolean[0];  // chunk copied since the last publish
+        private int[] ownedList = new int[16];
+        private int numOwned = 0;
+
+        void reset(int length) {
+            int numChunks = (length + StandingsSnapshot.CHUNK_MASK) >>> StandingsSnapshot.CHUNK_BITS;
+            chunks = new int[numChunks][];
+            owned = new boolean[numChunks];
+            numOwned = 0;
+        }
+
+        int get(int index) {
+            return StandingsSnapshot.get(chunks, index);
+        }
+
+        void set(int index, int value) {
+            int chunk = index >>> StandingsSnapshot.CHUNK_BITS;
+            if (chunk >= chunks.length) {
+                int numChunks = Math.max(chunk + 1, chunks.length * 2);
+                chunks = Arrays.copyOf(chunks, numChunks);
+                owned = Arrays.copyOf(owned, numChunks);
+            }
+            if (!owned[chunk]) {
+                int[] old = chunks[chunk];
+                chunks[chunk] = old == null ? new int[StandingsSnapshot.CHUNK_SIZE] : old.clone();
+                owned[chunk] = true;
+                if (numOwned == ownedList.length) {
+                    ownedList = Arrays.copyOf(ownedList, numOwned * 2);
+                }
+                ownedList[numOwned++] = chunk;
+            }
+            chunks[chunk][index & StandingsSnapshot.CHUNK_MASK] = value;
+        }
+
+        // hands the current chunks over to a snapshot, the spine is copied so later
+        // writes can't be seen through it
+        int[][] publish() {
+            int[][] published = chunks.clone();
+            for (int i = 0; i < numOwned; i++) {
+                owned[ownedList[i]] = false;
+            }
+            numOwned = 0;
+            return published;
+        }
+    }
+
+    // same again for names, they only change on a rebuild so no copy on write needed
+    private static final class NameColumn {
+        private String[][] chunks = new String[0][];
+
+        void reset(int length) {
+            int numChunks = (length + StandingsSnapshot.CHUNK_MASK) >>> StandingsSnapshot.CHUNK_BITS;
+            chunks = new String[numChunks][];
+        }
+
+        void set(int index, String value) {
+            int chunk = index >>> StandingsSnapshot.CHUNK_BITS;
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new String[StandingsSnapshot.CHUNK_SIZE];
+            }
+            chunks[chunk][index & StandingsSnapshot.CHUNK_MASK] = value;
+        }
+
+        String[][] publish() {
+            return chunks;
+        }
+    }
+}
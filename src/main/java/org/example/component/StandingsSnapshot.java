@@ -0,0 +1,171 @@
+package org.example.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, versioned copy of the standings as they were after one ladder change.
+ * Safe to read from any number of threads without locking, see StandingsPublisher.
+ *
+ * Columns are split into fixed size chunks and chunks are shared between versions, a new
+ * version only copies the chunks the change actually touched.
+ */
+public final class StandingsSnapshot {
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * One row of the standings
+     */
+    public static final class Standing {
+        private final int position;
+        private final int playerId;
+        private final String firstName;
+        private final String lastName;
+        private final int wins;
+        private final int losses;
+
+        Standing(int position, int playerId, String firstName, String lastName, int wins, int losses) {
+            this.position = position;
+            this.playerId = playerId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.wins = wins;
+            this.losses = losses;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public int getPlayerId() {
+            return playerId;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+    }
+
+    private final long version;
+    private final int size;
+    // by position (index 0 unused)
+    private final int[][] idByPosition;
+    // by player id
+    private final int[][] positionById;
+    private final int[][] winsById;
+    private final int[][] lossesById;
+    private final int[][] highestPositionById;
+    private final String[][] firstNameById;
+    private final String[][] lastNameById;
+
+    StandingsSnapshot(long version, int size, int[][] idByPosition, int[][] positionById,
+                      int[][] winsById, int[][] lossesById, int[][] highestPositionById,
+                      String[][] firstNameById, String[][] lastNameById) {
+        this.version = version;
+        this.size = size;
+        this.idByPosition = idByPosition;
+        this.positionById = positionById;
+        this.winsById = winsById;
+        this.lossesById = lossesById;
+        this.highestPositionById = highestPositionById;
+        this.firstNameById = firstNameById;
+        this.lastNameById = lastNameById;
+    }
+
+    // bumped on every ladder change
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return id of the player at position, 0 if nobody is there
+     */
+    public int getPlayerId(int position) {
+        if (position < 1 || position > size) {
+            return 0;
+        }
+        return get(idByPosition, position);
+    }
+
+    /**
+     * @return position of the player, 0 if they're not on the ladder
+     */
+    public int getPosition(int playerId) {
+        return get(positionById, playerId);
+    }
+
+    public String getFirstName(int playerId) {
+        return get(firstNameById, playerId);
+    }
+
+    public String getLastName(int playerId) {
+        return get(lastNameById, playerId);
+    }
+
+    public int getWins(int playerId) {
+        return get(winsById, playerId);
+    }
+
+    public int getLosses(int playerId) {
+        return get(lossesById, playerId);
+    }
+
+    public int getAllTimeHighestPosition(int playerId) {
+        return get(highestPositionById, playerId);
+    }
+
+    public Standing getStanding(int position) {
+        int id = getPlayerId(position);
+        if (id == 0) {
+            return null;
+        }
+        return new Standing(position, id, getFirstName(id), getLastName(id), getWins(id), getLosses(id));
+    }
+
+    /**
+     * Standings from fromPosition to toPosition inclusive (clipped to the ladder)
+     */
+    public List<Standing> getRange(int fromPosition, int toPosition) {
+        int from = Math.max(1, fromPosition);
+        int to = Math.min(size, toPosition);
+        List<Standing> range = new ArrayList<>(Math.max(0, to - from + 1));
+        for (int position = from; position <= to; position++) {
+            range.add(getStanding(position));
+        }
+        return range;
+    }
+
+    static int get(int[][] chunks, int index) {
+        int chunk = index >>> CHUNK_BITS;
+        if (index < 0 || chunk >= chunks.length || chunks[chunk] == null) {
+            return 0;
+        }
+        return chunks[chunk][index & CHUNK_MASK];
+    }
+
+    static <T> T get(T[][] chunks, int index) {
+        int chunk = index >>> CHUNK_BITS;
+        if (index < 0 || chunk >= chunks.length || chunks[chunk] == null) {
+            return null;
+        }
+        return chunks[chunk][index & CHUNK_MASK];
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.component;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Read-only view of positions fromPosition..toPosition of a ladder, straight over the rank
+ * tree, see Ladder.getRange. Nothing is copied: iterating finds the first player in
+ * O(log n) then steps along the tree in O(1) amortised, get(i) is O(log n).
+ *
+ * The view is of positions, not players - it always shows whoever is in those places now,
+ * and shrinks if the ladder does. Iterators and cursors keep their place in the tree, so
+ * don't change the ladder while using one, start a new one afterwards.
+ */
+final class StandingsView extends AbstractList<Player> {
+    private final RankTree<Player> standings;
+    private final int fromPosition;
+    private final int toPosition;
+
+    StandingsView(RankTree<Player> standings, int fromPosition, int toPosition) {
+        this.standings = standings;
+        this.fromPosition = Math.max(1, fromPosition);
+        this.toPosition = toPosition;
+    }
+
+    @Override
+    public Player get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size());
+        }
+        return standings.get(fromPosition + index);
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, Math.min(toPosition, standings.size()) - fromPosition + 1);
+    }
+
+    // AbstractList would iterate, forEach and stream through get(i), O(log n) each
+
+    @Override
+    public Iterator<Player> iterator() {
+        return new Cursor(standings, fromPosition, toPosition, fromPosition);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Player> action) {
+        Objects.requireNonNull(action);
+        RankTree.Node<Player> node = standings.nodeAt(fromPosition);
+        for (int position = fromPosition; node != null && position <= toPosition; position++) {
+            action.accept(node.value);
+            node = RankTree.next(node);
+        }
+    }
+
+    @Override
+    public Spliterator<Player> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public ListIterator<Player> listIterator(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size());
+        }
+        return new Cursor(standings, fromPosition, toPosition, fromPosition + index);
+    }
+
+    /**
+     * Walks positions fromPosition..toPosition either way, indexes are from fromPosition.
+     * next() returns the player at position, previous() the one above it
+     */
+    static final class Cursor implements ListIterator<Player> {
+        private final int fromPosition;
+        private final int toPosition;
+        private RankTree.Node<Player> next;
+        private RankTree.Node<Player> previous;
+        private int nextPosition;
+
+        Cursor(RankTree<Player> standings, int fromPosition, int toPosition, int position) {
+            this.fromPosition = fromPosition;
+            this.toPosition = toPosition;
+            nextPosition = position;
+            next = standings.nodeAt(position);
+            if (next != null) {
+                previous = RankTree.previous(next);
+            } else if (position > 1) {
+                previous = standings.nodeAt(position - 1);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null && nextPosition <= toPosition;
+        }
+
+        @Override
+        public Player next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            previous = next;
+            next = RankTree.next(next);
+            nextPosition++;
+            return previous.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return previous != null && nextPosition > fromPosition;
+        }
+
+        @Override
+        public Player previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            next = previous;
+            previous = RankTree.previous(previous);
+            nextPosition--;
+            return next.value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextPosition - fromPosition;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextPosition - fromPosition - 1;
+        }
+
+        // the standings only change through the ladder
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(Player player) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(Player player) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
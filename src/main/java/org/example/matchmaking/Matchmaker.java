@@ -0,0 +1,257 @@
+package org.example.matchmaking;
+
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.example.stats.HeadToHead;
+import org.example.stats.MatchHistory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Proposes a full round of challenge matches for a ladder: as many pairings as it can, each
+ * between players no more than the challenge range apart, steering away from recent rematches
+ * and towards the players who've played least lately (see MatchmakingSettings for the scoring).
+ *
+ * Since every pairing is between near neighbours, the best set of pairings is found exactly by
+ * dynamic programming down the ladder: the only state is which of the last few players are
+ * still free, so it's linear in the number of players (2^range states per player, with the
+ * range capped at MAX_RANGE). The ladder is cut into segments that are solved independently
+ * in parallel on a fork/join pool, the only thing lost is pairings across a cut.
+ *
+ * The standings are read once up front, head-to-head counts come from the O(1) HeadToHead
+ * index and recent meetings from the match history since the start of the recent window, so
+ * nothing walks a player's whole history. The ladder mustn't be changed while a round is
+ * being planned.
+ *
+ *   List<Pairing> round = new Matchmaker(MatchmakingSettings.DEFAULTS).planRound(ladder);
+ */
+public class Matchmaker {
+    // pairings are at most this far apart whatever the ladder's challenge range
+    public static final int MAX_RANGE = 6;
+
+    private final MatchmakingSettings settings;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public Matchmaker() {
+        this(MatchmakingSettings.DEFAULTS);
+    }
+
+    public Matchmaker(MatchmakingSettings settings) {
+        this.settings = settings;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return pairings in order down the ladder, players not in any of them sit this round out
+     */
+    public List<Pairing> planRound(Ladder ladder) {
+        Round round = new Round(ladder, settings);
+        if (round.numPlayers > 1 && round.range > 0) {
+            int numSegments = (round.numPlayers + settings.getSegmentSize() - 1) / settings.getSegmentSize();
+            pool.invoke(new SegmentsTask(round, 0, numSegments));
+        }
+        return round.pairings();
+    }
+
+    private class SegmentsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Round round;
+        private final int from;
+        private final int to;
+
+        SegmentsTask(Round round, int from, int to) {
+            this.round = round;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int start = from * settings.getSegmentSize();
+                round.solve(start, Math.min(round.numPlayers, start + settings.getSegmentSize()));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SegmentsTask(round, from, middle), new SegmentsTask(round, middle, to));
+        }
+    }
+
+    // everything the segments need, read from the ladder up front; players are by index (position - 1)
+    private static final class Round {
+        final int numPlayers;
+        final int range;
+        final Player[] players;
+        final int[] ids;
+        final double[] need;
+        final long[] recentPairs; // sorted, one per recent match
+        final HeadToHead headToHead;
+        final MatchmakingSettings settings;
+        final int[] challenged; // index of the player each one challenges, -1 if none
+
+        Round(Ladder ladder, MatchmakingSettings settings) {
+            this.settings = settings;
+            numPlayers = ladder.getNumPlayers();
+            range = Math.min(ladder.getMaxChallengeRange(), MAX_RANGE);
+            players = new Player[numPlayers];
+            ids = new int[numPlayers];
+            int[] index = {0};
+            ladder.forEachPlayer(1, numPlayers, p -> {
+                players[index[0]] = p;
+                ids[index[0]++] = p.getId();
+            });
+
+            AllPlayerStats stats = ladder.getAllPlayerStats();
+            headToHead = stats.getHeadToHeadIndex();
+            MatchHistory history = stats.getMatchHistory();
+            int maxId = 0;
+            for (int id : ids) {
+                maxId = Math.max(maxId, id);
+            }
+            int[] recentMatches = new int[Math.max(maxId + 1, history.getPlayerCapacity())];
+            long now = ladder.getClock().millis();
+            int firstRow = history.firstRowAtOrAfter(now - settings.getRecentMillis());
+            recentPairs = new long[history.size() - firstRow];
+            for (int row = firstRow; row < history.size(); row++) {
+                int playerId = history.getPlayerId(row);
+                int opponentId = history.getOpponentId(row, playerId);
+                recentMatches[playerId]++;
+                recentMatches[opponentId]++;
+                recentPairs[row - firstRow] = pairKey(playerId, opponentId);
+            }
+            Arrays.sort(recentPairs);
+
+            need = new double[numPlayers];
+            for (int i = 0; i < numPlayers; i++) {
+                need[i] = 1.0 / (1 + recentMatches[ids[i]]);
+            }
+            challenged = new int[numPlayers];
+            Arrays.fill(challenged, -1);
+        }
+
+        /**
+         * Best pairings within players [start, end). DP state after player i is a mask of which
+         * of players i, i-1 .. i-range+1 are still free (bit 0 is i), each player either stays
+         * free or pairs with a free player up to range above. choices holds the previous mask
+         * and how far up the pairing was (0 for none) for every state, to walk back through
+         */
+        void solve(int start, int end) {
+            int numStates = 1 << range;
+            int full = numStates - 1;
+            double[] best = new double[numStates];
+            double[] next = new double[numStates];
+            short[] choices = new short[(end - start) * numStates];
+            double[] weights = new double[range];
+            Arrays.fill(best, Double.NEGATIVE_INFINITY);
+            best[0] = 0;
+
+            for (int i = start; i < end; i++) {
+                for (int j = 0; j < range; j++) {
+                    int above = i - 1 - j;
+                    weights[j] = above >= start ? weight(above, i) : 0;
+                }
+                Arrays.fill(next, Double.NEGATIVE_INFINITY);
+                int choice = (i - start) * numStates;
+                for (int mask = 0; mask < numStates; mask++) {
+                    double value = best[mask];
+                    if (value == Double.NEGATIVE_INFINITY) {
+                        continue;
+                    }
+                    int free = ((mask << 1) | 1) & full;
+                    if (value > next[free]) {
+                        next[free] = value;
+                        choices[choice + free] = (short) (mask << 3);
+                    }
+                    for (int j = 0; j < range; j++) {
+                        if ((mask & (1 << j)) == 0 || weights[j] <= 0) {
+                            continue;
+                        }
+                        int paired = ((mask & ~(1 << j)) << 1) & full;
+                        if (value + weights[j] > next[paired]) {
+                            next[paired] = value + weights[j];
+                            choices[choice + paired] = (short) ((mask << 3) | (j + 1));
+                        }
+                    }
+                }
+                double[] swap = best;
+                best = next;
+                next = swap;
+            }
+
+            int mask = 0;
+            for (int m = 1; m < numStates; m++) {
+                if (best[m] > best[mask]) {
+                    mask = m;
+                }
+            }
+            for (int i = end - 1; i >= start; i--) {
+                int choice = choices[(i - start) * numStates + mask];
+                int up = choice & 7;
+                if (up > 0) {
+                    challenged[i] = i - up;
+                }
+                mask = choice >>> 3;
+            }
+        }
+
+        // what pairing player i with player j below them is worth
+        double weight(int i, int j) {
+            int a = ids[i];
+            int b = ids[j];
+            double weight = 1 + settings.getActivityWeight() * (need[i] + need[j]);
+            if (settings.getRematchPenalty() != 0) {
+                weight -= settings.getRematchPenalty() * countRecent(pairKey(a, b));
+            }
+            if (settings.getHeadToHeadPenalty() != 0) {
+                weight -= settings.getHeadToHeadPenalty() * (headToHead.getWins(a, b) + headToHead.getLosses(a, b));
+            }
+            return weight;
+        }
+
+        int countRecent(long key) {
+            int from = lowerBound(key);
+            if (from == recentPairs.length || recentPairs[from] != key) {
+                return 0;
+            }
+            return lowerBound(key + 1) - from;
+        }
+
+        int lowerBound(long key) {
+            int low = 0;
+            int high = recentPairs.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (recentPairs[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        List<Pairing> pairings() {
+            List<Pairing> pairings = new ArrayList<>();
+            for (int i = 0; i < numPlayers; i++) {
+                int above = challenged[i];
+                if (above >= 0) {
+                    pairings.add(new Pairing(players[i], players[above], i + 1, above + 1));
+                }
+            }
+            return pairings;
+        }
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.matchmaking;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tuning for Matchmaker, immutable, change one setting at a time with the with* methods
+ *
+ *   MatchmakingSettings settings = MatchmakingSettings.DEFAULTS.withRecentDays(14).withRematchPenalty(0.5);
+ *
+ * Every pairing is worth 1, plus activityWeight * (need of each player) where a player's need
+ * is 1 / (1 + matches they played in the recent window), less rematchPenalty for each time the
+ * two met in the recent window and headToHeadPenalty for each time they've ever met. Pairings
+ * worth nothing or less are never made, so a rematchPenalty of 1 or more rules recent
+ * rematches out altogether.
+ */
+public final class MatchmakingSettings {
+    public static final MatchmakingSettings DEFAULTS =
+            new MatchmakingSettings(TimeUnit.DAYS.toMillis(28), 10, 0.05, 1, 4096);
+
+    private final long recentMillis;
+    private final double rematchPenalty;
+    private final double headToHeadPenalty;
+    private final double activityWeight;
+    private final int segmentSize;
+
+    /**
+     * @param recentMillis how far back counts as recent, for rematches and activity
+     * @param rematchPenalty taken off a pairing for each recent meeting
+     * @param headToHeadPenalty taken off a pairing for each meeting ever
+     * @param activityWeight how much to favour pairing players who've played less recently
+     * @param segmentSize players per independent segment, pairs never cross segments
+     */
+    public MatchmakingSettings(long recentMillis, double rematchPenalty, double headToHeadPenalty,
+                               double activityWeight, int segmentSize) {
+        if (segmentSize < 2) {
+            throw new IllegalArgumentException("Segments need at least 2 players: " + segmentSize);
+        }
+        this.recentMillis = recentMillis;
+        this.rematchPenalty = rematchPenalty;
+        this.headToHeadPenalty = headToHeadPenalty;
+        this.activityWeight = activityWeight;
+        this.segmentSize = segmentSize;
+    }
+
+    public long getRecentMillis() {
+        return recentMillis;
+    }
+
+    public double getRematchPenalty() {
+        return rematchPenalty;
+    }
+
+    public double getHeadToHeadPenalty() {
+        return headToHeadPenalty;
+    }
+
+    public double getActivityWeight() {
+        return activityWeight;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public MatchmakingSettings withRecentDays(int days) {
+        return withRecentMillis(TimeUnit.DAYS.toMillis(days));
+    }
+
+    public MatchmakingSettings withRecentMillis(long millis) {
+        return new MatchmakingSettings(millis, rematchPenalty, headToHeadPenalty, activityWeight, segmentSize);
+    }
+
+    public MatchmakingSettings withRematchPenalty(double penalty) {
+        return new MatchmakingSettings(recentMillis, penalty, headToHeadPenalty, activityWeight, segmentSize);
+    }
+
+    public MatchmakingSettings withHeadToHeadPenalty(double penalty) {
+        return new MatchmakingSettings(recentMillis, rematchPenalty, penalty, activityWeight, segmentSize);
+    }
+
+    public MatchmakingSettings withActivityWeight(double weight) {
+        return new MatchmakingSettings(recentMillis, rematchPenalty, headToHeadPenalty, weight, segmentSize);
+    }
+
+    public MatchmakingSettings withSegmentSize(int size) {
+        return new MatchmakingSettings(recentMillis, rematchPenalty, headToHeadPenalty, activityWeight, size);
+    }
+
+    @Override
+    public String toString() {
+        return "MatchmakingSettings{recent=" + recentMillis + "ms rematch=" + rematchPenalty
+                + " h2h=" + headToHeadPenalty + " activity=" + activityWeight + " segment=" + segmentSize + "}";
+    }
+}
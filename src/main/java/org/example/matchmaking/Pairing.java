@@ -0,0 +1,43 @@
+package org.example.matchmaking;
+
+import org.example.component.Player;
+
+/**
+ * One proposed match: challenger plays someone up to the challenge range above them.
+ * Positions are as they were when the round was planned
+ */
+public final class Pairing {
+    private final Player challenger;
+    private final Player challenged;
+    private final int challengerPosition;
+    private final int challengedPosition;
+
+    Pairing(Player challenger, Player challenged, int challengerPosition, int challengedPosition) {
+        this.challenger = challenger;
+        this.challenged = challenged;
+        this.challengerPosition = challengerPosition;
+        this.challengedPosition = challengedPosition;
+    }
+
+    public Player getChallenger() {
+        return challenger;
+    }
+
+    public Player getChallenged() {
+        return challenged;
+    }
+
+    public int getChallengerPosition() {
+        return challengerPosition;
+    }
+
+    public int getChallengedPosition() {
+        return challengedPosition;
+    }
+
+    @Override
+    public String toString() {
+        return challengerPosition + " " + challenger.getFirstName() + " " + challenger.getLastName()
+                + " v " + challengedPosition + " " + challenged.getFirstName() + " " + challenged.getLastName();
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.metrics;
+
+import java.util.Map;
+
+/**
+ * Current gauge values over JMX, registered by MetricsJmx
+ */
+public interface GaugesMXBean {
+    Map<String, Long> getValues();
+
+    // resets every operation's latencies
+    void resetLatencies();
+}
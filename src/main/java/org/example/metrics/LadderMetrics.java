@@ -0,0 +1,40 @@
+package org.example.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Where a Ladder reports how long its operations take, see Ladder.setMetrics.
+ *
+ *   long start = metrics.start();
+ *   ...
+ *   metrics.stop(Operation.MATCH_RESULT, start);
+ *
+ * Ladders start with none(), whose methods do nothing (start doesn't even read the clock), so
+ * once the JIT has inlined them the instrumentation costs nothing. MetricsRecorder is the one
+ * that records.
+ */
+public interface LadderMetrics {
+
+    static LadderMetrics none() {
+        return NoMetrics.INSTANCE;
+    }
+
+    /**
+     * @return a start time to pass to stop
+     */
+    long start();
+
+    void stop(Operation operation, long start);
+
+    /**
+     * A value that's read whenever the metrics are looked at (eg ladder size), so it may be
+     * read from another thread and should be cheap. Replaces any gauge of the same name
+     */
+    void gauge(String name, LongSupplier value);
+
+    /**
+     * Drops the gauge called name if it's still value, ie it hasn't since been replaced by
+     * someone else's gauge of the same name
+     */
+    void removeGauge(String name, LongSupplier value);
+}
@@ -0,0 +1,83 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond latencies, in the style of HdrHistogram: values below 32
+ * get a bucket each, above that each power of 2 is split into 32 buckets. So any value is
+ * within about 3% of its bucket's bounds, from 1ns up to centuries, in under 2,000 buckets
+ * (15KB) that never grow or need resizing.
+ *
+ * Recording is one atomic increment, safe from any thread. Reading while recording goes on
+ * gives counts that may be a few records out, fine for monitoring.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int NUM_BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // a copy of the bucket counts, see valueAtPercentile
+    long[] copyCounts() {
+        long[] copy = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        // top SUB_BITS + 1 bits of the value, ie SUB_BUCKETS .. 2 * SUB_BUCKETS - 1
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // highest value that lands in the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param counts from copyCounts
+     * @param percentile 0 - 100
+     * @return the value at or below which that percentage of the recorded values fall (to the
+     * bucket's upper bound), 0 if nothing's been recorded
+     */
+    static long valueAtPercentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return highestValueIn(bucket);
+            }
+        }
+        return highestValueIn(counts.length - 1);
+    }
+}
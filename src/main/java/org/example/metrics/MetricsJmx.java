@@ -0,0 +1,123 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes a MetricsRecorder as platform MXBeans, one per operation plus one for the gauges:
+ *
+ *   org.example.ladder:type=Metrics,name="juniors",operation=matchResult
+ *   org.example.ladder:type=Metrics,name="juniors",operation=gauges
+ *
+ * Values are read from the recorder whenever JMX asks, nothing is copied in between.
+ *
+ *   try (Closeable jmx = MetricsJmx.register(metrics, "juniors")) { ... }
+ */
+public final class MetricsJmx {
+    public static final String DOMAIN = "org.example.ladder";
+
+    private MetricsJmx() {
+    }
+
+    /**
+     * @param name eg the ladder's name, must be unique among registered recorders
+     * @return closing it unregisters the beans
+     * @throws IllegalStateException if the beans can't be registered (eg the name's taken)
+     */
+    public static Closeable register(MetricsRecorder metrics, String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<ObjectName> names = new ArrayList<>();
+        try {
+            for (Operation operation : Operation.values()) {
+                ObjectName objectName = objectName(name, operation.getLabel());
+                server.registerMBean(new OperationBean(metrics, operation), objectName);
+                names.add(objectName);
+            }
+            ObjectName objectName = objectName(name, "gauges");
+            server.registerMBean(new GaugesBean(metrics), objectName);
+            names.add(objectName);
+        } catch (JMException e) {
+            unregister(server, names);
+            throw new IllegalStateException("Couldn't register metrics for " + name, e);
+        }
+        return () -> unregister(server, names);
+    }
+
+    private static ObjectName objectName(String name, String operation) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name) + ",operation=" + operation);
+    }
+
+    private static void unregister(MBeanServer server, List<ObjectName> names) {
+        for (ObjectName name : names) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already gone
+            }
+        }
+    }
+
+    private static final class OperationBean implements OperationMetricsMXBean {
+        private final MetricsRecorder metrics;
+        private final Operation operation;
+
+        OperationBean(MetricsRecorder metrics, Operation operation) {
+            this.metrics = metrics;
+            this.operation = operation;
+        }
+
+        @Override
+        public long getCount() {
+            return metrics.snapshot(operation).getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return metrics.snapshot(operation).getMeanNanos() / 1000;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return metrics.snapshot(operation).getPercentileNanos(50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return metrics.snapshot(operation).getPercentileNanos(99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return metrics.snapshot(operation).getPercentileNanos(99.9) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return metrics.snapshot(operation).getMaxNanos() / 1000.0;
+        }
+    }
+
+    private static final class GaugesBean implements GaugesMXBean {
+        private final MetricsRecorder metrics;
+
+        GaugesBean(MetricsRecorder metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Map<String, Long> getValues() {
+            return metrics.readGauges();
+        }
+
+        @Override
+        public void resetLatencies() {
+            metrics.reset();
+        }
+    }
+}
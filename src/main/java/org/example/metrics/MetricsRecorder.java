@@ -0,0 +1,107 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * LadderMetrics that records: a count, total time, max and LatencyHistogram for each
+ * Operation, plus any number of gauges.
+ *
+ * Counts & totals are striped LongAdders so threads recording at once (eg queries on
+ * different threads) don't fight over one cache line, the histogram is one atomic
+ * increment. One recorder can be shared by several ladders to see their timings added up
+ * together, give each ladder a name (Ladder.setMetrics(metrics, name)) so their gauges are
+ * kept apart. Look at it with snapshot(), or through JMX, see MetricsJmx.
+ *
+ *   MetricsRecorder metrics = new MetricsRecorder();
+ *   ladder.setMetrics(metrics);
+ *   ...
+ *   System.out.println(metrics.snapshot());
+ */
+public final class MetricsRecorder implements LadderMetrics {
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private static final class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LatencyHistogram histogram = new LatencyHistogram();
+    }
+
+    private final Timer[] timers = new Timer[OPERATIONS.length];
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public MetricsRecorder() {
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new Timer();
+        }
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stop(Operation operation, long start) {
+        record(operation, System.nanoTime() - start);
+    }
+
+    public void record(Operation operation, long nanos) {
+        Timer timer = timers[operation.ordinal()];
+        timer.count.increment();
+        timer.totalNanos.add(nanos);
+        timer.maxNanos.accumulate(nanos);
+        timer.histogram.record(nanos);
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    @Override
+    public void removeGauge(String name, LongSupplier value) {
+        gauges.remove(name, value);
+    }
+
+    // latencies only, gauges are left alone
+    public void reset() {
+        for (Timer timer : timers) {
+            timer.count.reset();
+            timer.totalNanos.reset();
+            timer.maxNanos.reset();
+            timer.histogram.reset();
+        }
+    }
+
+    public OperationSnapshot snapshot(Operation operation) {
+        Timer timer = timers[operation.ordinal()];
+        return new OperationSnapshot(operation, timer.count.sum(), timer.totalNanos.sum(),
+                timer.maxNanos.get(), timer.histogram.copyCounts());
+    }
+
+    Map<String, Long> readGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        return values;
+    }
+
+    public MetricsSnapshot snapshot() {
+        OperationSnapshot[] operations = new OperationSnapshot[OPERATIONS.length];
+        for (Operation operation : OPERATIONS) {
+            operations[operation.ordinal()] = snapshot(operation);
+        }
+        return new MetricsSnapshot(operations, readGauges());
+    }
+}
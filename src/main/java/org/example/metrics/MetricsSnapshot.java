@@ -0,0 +1,49 @@
+package org.example.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Everything a MetricsRecorder had at one moment, see MetricsRecorder.snapshot
+ */
+public final class MetricsSnapshot {
+    private final OperationSnapshot[] operations;
+    private final Map<String, Long> gauges;
+
+    MetricsSnapshot(OperationSnapshot[] operations, Map<String, Long> gauges) {
+        this.operations = operations;
+        this.gauges = Collections.unmodifiableMap(gauges);
+    }
+
+    public OperationSnapshot get(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    // gauge values by name, in name order
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * @return the gauge's value, or 0 if there's no such gauge
+     */
+    public long getGauge(String name) {
+        Long value = gauges.get(name);
+        return value == null ? 0 : value;
+    }
+
+    // operations that have been used, one per line, then the gauges
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (OperationSnapshot operation : operations) {
+            if (operation.getCount() > 0) {
+                sb.append(operation).append('\n');
+            }
+        }
+        for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+            sb.append(gauge.getKey()).append('=').append(gauge.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.metrics;
+
+import java.util.function.LongSupplier;
+
+// see LadderMetrics.none
+final class NoMetrics implements LadderMetrics {
+    static final NoMetrics INSTANCE = new NoMetrics();
+
+    private NoMetrics() {
+    }
+
+    @Override
+    public long start() {
+        return 0;
+    }
+
+    @Override
+    public void stop(Operation operation, long start) {
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+    }
+
+    @Override
+    public void removeGauge(String name, LongSupplier value) {
+    }
+}
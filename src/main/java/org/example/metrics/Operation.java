@@ -0,0 +1,29 @@
+package org.example.metrics;
+
+/**
+ * Timed operations, see LadderMetrics
+ */
+public enum Operation {
+    MATCH_RESULT("matchResult"),       // matchResult & defaultResult
+    APPLY_RESULTS("applyResults"),     // a whole batch
+    ADD_PLAYER("addPlayer"),
+    INSERT_PLAYER("insertPlayer"),
+    REMOVE_PLAYER("removePlayer"),
+    GET_PLAYER("getPlayer"),           // by position
+    STANDINGS_AT("getStandingsAt"),
+    HEAD_TO_HEAD("headToHead"),        // AllPlayerStats head to head & opponent history queries
+    RESULTS_BETWEEN("resultsBetween"), // AllPlayerStats time range queries
+    HIGHEST_POSITION("highestPosition"),
+    TIMELINE("timeline");              // full position timelines
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    // short name used in reports & JMX
+    public String getLabel() {
+        return label;
+    }
+}
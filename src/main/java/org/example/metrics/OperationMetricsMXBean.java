@@ -0,0 +1,18 @@
+package org.example.metrics;
+
+/**
+ * One operation's latencies over JMX, registered by MetricsJmx. Times are in microseconds
+ */
+public interface OperationMetricsMXBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,55 @@
+package org.example.metrics;
+
+/**
+ * One operation's latencies at the time MetricsRecorder.snapshot was called, all in nanos.
+ * Percentiles are to within about 3%, see LatencyHistogram
+ */
+public final class OperationSnapshot {
+    private final Operation operation;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] histogram;
+
+    OperationSnapshot(Operation operation, long count, long totalNanos, long maxNanos, long[] histogram) {
+        this.operation = operation;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.histogram = histogram;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @param percentile 0 - 100, eg 99.9
+     */
+    public long getPercentileNanos(double percentile) {
+        return Math.min(maxNanos, LatencyHistogram.valueAtPercentile(histogram, percentile));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s n=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns",
+                operation.getLabel(), count, getMeanNanos(), getPercentileNanos(50),
+                getPercentileNanos(99), getPercentileNanos(99.9), maxNanos);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.persistence;
+
+/**
+ * How hard the journal tries to get each event onto disk before carrying on
+ */
+public enum Durability {
+    /**
+     * Events are buffered and written when the buffer fills, on sync() or on close.
+     * Fastest, but a crash can lose whatever was still buffered
+     */
+    BUFFERED,
+    /**
+     * Events are written and fsync'd in groups, once enough events have built up or the
+     * oldest unsynced event is older than the group delay, checked as events come in and on
+     * a timer (see LadderJournal.setGroupCommit). A crash loses at most one group, ie the
+     * events of about the last group delay
+     */
+    GROUP_COMMIT,
+    /**
+     * Every event is written and fsync'd before the ladder call returns, a batch
+     * (eg Ladder.applyResults) is fsync'd once at the end
+     */
+    SYNC
+}
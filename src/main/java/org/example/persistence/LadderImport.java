@@ -0,0 +1,406 @@
+package org.example.persistence;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/**
+ * Bulk import of a ladder from text files, CSV or TSV (whichever the first line uses), UTF-8:
+ *
+ *   players: position, first name, last name[, email]
+ *   results: date, loser position, winner position[, "default"]
+ *
+ * A first line that doesn't start with a number is taken to be a header and skipped, as are
+ * blank lines and lines starting with #. Fields may be quoted with ", with "" for a quote
+ * inside, but can't span lines. Result dates are epoch millis, yyyy-MM-dd (midnight UTC) or
+ * ISO-8601 instants / offset date-times, and must never go backwards. Positions are the
+ * standings as each result is applied, as for Ladder.matchResult.
+ *
+ * Files are streamed through a fixed size buffer and parsed in place, so memory doesn't grow
+ * with the file, only with the ladder. Players are checked to hold positions 1..n, each once,
+ * and go onto the ladder in one linear pass (see Ladder.loadPlayers). Results are applied one
+ * by one, stamped with their own dates, with the ladder's history reserved up front from the
+ * size of the file. Anything wrong in a file is an IOException giving the file & line, a bad
+ * result leaves the ones before it applied (see loadResults).
+ *
+ *   LadderImport.loadPlayers(ladder, Paths.get("players.csv"));
+ *   LadderImport.loadResults(ladder, Paths.get("results.csv"));
+ */
+public final class LadderImport {
+    private static final int BUFFER_SIZE = 1024 * 1024; // also the longest line allowed
+
+    private LadderImport() {
+    }
+
+    /**
+     * As loadPlayers(ladder, file, seededAt) with everyone joining at the ladder clock's now
+     */
+    public static int loadPlayers(Ladder ladder, Path file) throws IOException {
+        return loadPlayers(ladder, file, ladder.getClock().instant());
+    }
+
+    /**
+     * Fills an empty ladder from a players file
+     * @param seededAt when the players joined, results loaded afterwards can't be dated before it
+     * @return number of players loaded
+     */
+    public static int loadPlayers(Ladder ladder, Path file, Instant seededAt) throws IOException {
+        if (ladder.getNumPlayers() > 0) {
+            throw new IllegalStateException("Can only load players into an empty ladder, this one has "
+                    + ladder.getNumPlayers());
+        }
+        Player[] byPosition;
+        int numPlayers = 0;
+        try (LineReader in = new LineReader(file)) {
+            byPosition = new Player[(int) Math.min(in.estimateLines(), 1 << 24) + 1];
+            while (in.nextLine()) {
+                if (in.numFields < 3) {
+                    throw in.error("expected position, first name, last name[, email]");
+                }
+                int position = in.intField(0, "position");
+                // positions have to run 1..number of lines, so any bigger can't be right
+                if (position < 1 || position > in.fileSize) {
+                    throw in.error("position " + position + " is out of range");
+                }
+                if (position > byPosition.length) {
+                    byPosition = Arrays.copyOf(byPosition, Math.max(position, byPosition.length * 2));
+                }
+                if (byPosition[position - 1] != null) {
+                    throw in.error("position " + position + " is already taken");
+                }
+                Player player = new Player(in.field(1), in.field(2), position);
+                if (in.numFields > 3 && !in.isEmpty(3)) {
+                    player.setEmail(in.field(3));
+                }
+                byPosition[position - 1] = player;
+                numPlayers++;
+            }
+        }
+        for (int i = 0; i < numPlayers; i++) {
+            if (byPosition[i] == null) {
+                throw new IOException(file + ": positions must run from 1 to the number of players ("
+                        + numPlayers + ") with no gaps, " + (i + 1) + " is missing");
+            }
+        }
+
+        Clock ladderClock = ladder.getClock();
+        ReplayClock clock = new ReplayClock();
+        clock.millis = seededAt.toEpochMilli();
+        ladder.setClock(clock);
+        try {
+            ladder.loadPlayers(Arrays.asList(byPosition).subList(0, numPlayers));
+        } finally {
+            ladder.setClock(ladderClock);
+        }
+        return numPlayers;
+    }
+
+    /**
+     * Applies every result in a results file to the ladder, in file order. Each result is
+     * checked as it's reached, so if one is bad the results before it stay applied and the
+     * IOException says how many that was - fix the file from that line on and load the rest
+     * @return number of results applied
+     */
+    public static long loadResults(Ladder ladder, Path file) throws IOException {
+        long numResults = 0;
+        Clock ladderClock = ladder.getClock();
+        ReplayClock clock = new ReplayClock();
+        long lastMillis = ladder.getLastEventTime().toEpochMilli();
+        try (LineReader in = new LineReader(file)) {
+            ladder.reserveMatches((int) Math.min(in.estimateLines(), Integer.MAX_VALUE));
+            ladder.setClock(clock);
+            try {
+                while (in.nextLine()) {
+                    if (in.numFields < 3) {
+                        throw in.error("expected date, loser position, winner position[, default]");
+                    }
+                    long millis = in.millisField(0);
+                    if (millis < lastMillis) {
+                        throw in.error("result dated " + Instant.ofEpochMilli(millis)
+                                + " is before the one before it, " + Instant.ofEpochMilli(lastMillis));
+                    }
+                    int loser = in.intField(1, "loser position");
+                    int winner = in.intField(2, "winner position");
+                    int numPlayers = ladder.getNumPlayers();
+                    if (loser < 1 || loser > numPlayers || winner < 1 || winner > numPlayers || loser == winner) {
+                        throw in.error("positions " + loser + " & " + winner + " aren't two players on a ladder of "
+                                + numPlayers);
+                    }
+                    boolean defaulted = false;
+                    if (in.numFields > 3 && !in.isEmpty(3)) {
+                        String status = in.field(3);
+                        if (!status.equalsIgnoreCase("default")) {
+                            throw in.error("unknown result '" + status + "', should be default or nothing");
+                        }
+                        defaulted = true;
+                    }
+                    clock.millis = millis;
+                    lastMillis = millis;
+                    if (defaulted) {
+                        ladder.defaultResult(loser, winner);
+                    } else {
+                        ladder.matchResult(loser, winner);
+                    }
+                    numResults++;
+                }
+            } catch (IOException e) {
+                throw new IOException(e.getMessage() + " (the " + numResults
+                        + " results before it were applied)", e);
+            }
+        } finally {
+            ladder.setClock(ladderClock);
+        }
+        return numResults;
+    }
+
+    /**
+     * Splits a file into lines & fields without copying them out of the read buffer, fields
+     * are only turned into Strings or numbers when asked for
+     */
+    private static final class LineReader implements Closeable {
+        private final Path file;
+        private final FileChannel channel;
+        final long fileSize;
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] bytes = in.array();
+        private boolean eof;
+        private long lineNumber = 0;
+        private byte delimiter = 0; // worked out from the first line
+
+        // the current line's fields, [starts[i], ends[i]) in bytes
+        int numFields;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private boolean[] escapedQuotes = new boolean[8];
+
+        LineReader(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileSize = channel.size();
+            eof = readMore();
+            in.flip();
+        }
+
+        // lines in the file, going by the first buffer full
+        long estimateLines() {
+            int newLines = 0;
+            for (int i = in.position(); i < in.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    newLines++;
+                }
+            }
+            if (in.limit() == 0) {
+                return 0;
+            }
+            return (long) ((double) fileSize * (newLines + 1) / in.limit());
+        }
+
+        /**
+         * Moves on to the next line with data on it (skipping the header if there is one)
+         * @return false at the end of the file
+         */
+        boolean nextLine() throws IOException {
+            while (true) {
+                int start = in.position();
+                int end = start;
+                while (end < in.limit() && bytes[end] != '\n') {
+                    end++;
+                }
+                if (end == in.limit() && !eof) {
+                    if (start == 0 && in.limit() == in.capacity()) {
+                        lineNumber++;
+                        throw error("line is longer than " + BUFFER_SIZE + " bytes");
+                    }
+                    in.compact();
+                    eof = readMore();
+                    in.flip();
+                    continue;
+                }
+                if (start == in.limit()) {
+                    return false;
+                }
+                lineNumber++;
+                in.position(end == in.limit() ? end : end + 1);
+                if (end > start && bytes[end - 1] == '\r') {
+                    end--;
+                }
+                if (end == start || bytes[start] == '#') {
+                    continue;
+                }
+                if (delimiter == 0) {
+                    delimiter = ',';
+                    for (int i = start; i < end; i++) {
+                        if (bytes[i] == '\t') {
+                            delimiter = '\t';
+                            break;
+                        }
+                    }
+                    split(start, end);
+                    if (!isDigit(0)) {
+                        continue; // header
+                    }
+                    return true;
+                }
+                split(start, end);
+                return true;
+            }
+        }
+
+        private void split(int start, int end) throws IOException {
+            numFields = 0;
+            int i = start;
+            while (true) {
+                while (i < end && bytes[i] == ' ') {
+                    i++;
+                }
+                int fieldStart;
+                int fieldEnd;
+                boolean escaped = false;
+                if (i < end && bytes[i] == '"') {
+                    fieldStart = i + 1;
+                    int j = fieldStart;
+                    while (true) {
+                        if (j >= end) {
+                            throw error("unterminated quote");
+                        }
+                        if (bytes[j] == '"') {
+                            if (j + 1 < end && bytes[j + 1] == '"') {
+                                escaped = true;
+                                j += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        j++;
+                    }
+                    fieldEnd = j;
+                    i = j + 1;
+                    while (i < end && bytes[i] == ' ') {
+                        i++;
+                    }
+                    if (i < end && bytes[i] != delimiter) {
+                        throw error("unexpected text after a quoted field");
+                    }
+                } else {
+                    fieldStart = i;
+                    while (i < end && bytes[i] != delimiter) {
+                        i++;
+                    }
+                    fieldEnd = i;
+                    while (fieldEnd > fieldStart && bytes[fieldEnd - 1] == ' ') {
+                        fieldEnd--;
+                    }
+                }
+                if (numFields == starts.length) {
+                    starts = Arrays.copyOf(starts, numFields * 2);
+                    ends = Arrays.copyOf(ends, numFields * 2);
+                    escapedQuotes = Arrays.copyOf(escapedQuotes, numFields * 2);
+                }
+                starts[numFields] = fieldStart;
+                ends[numFields] = fieldEnd;
+                escapedQuotes[numFields++] = escaped;
+                if (i >= end) {
+                    return;
+                }
+                i++; // past the delimiter
+            }
+        }
+
+        boolean isEmpty(int field) {
+            return starts[field] == ends[field];
+        }
+
+        private boolean isDigit(int field) {
+            return !isEmpty(field) && bytes[starts[field]] >= '0' && bytes[starts[field]] <= '9';
+        }
+
+        String field(int field) {
+            String s = new String(bytes, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+            return escapedQuotes[field] ? s.replace("\"\"", "\"") : s;
+        }
+
+        int intField(int field, String what) throws IOException {
+            long value = digits(starts[field], ends[field]);
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw error("bad " + what + " '" + field(field) + "'");
+            }
+            return (int) value;
+        }
+
+        // epoch millis, yyyy-MM-dd, or an ISO instant / offset date-time
+        long millisField(int field) throws IOException {
+            int start = starts[field];
+            int end = ends[field];
+            long millis = digits(start, end);
+            if (millis >= 0) {
+                return millis;
+            }
+            try {
+                if (end - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+                    long year = digits(start, start + 4);
+                    long month = digits(start + 5, start + 7);
+                    long day = digits(start + 8, end);
+                    if (year >= 0 && month >= 0 && day >= 0) {
+                        return LocalDate.of((int) year, (int) month, (int) day).toEpochDay() * 86_400_000L;
+                    }
+                }
+                String s = field(field);
+                try {
+                    return Instant.parse(s).toEpochMilli();
+                } catch (DateTimeException e) {
+                    return OffsetDateTime.parse(s).toInstant().toEpochMilli();
+                }
+            } catch (DateTimeException e) {
+                throw error("bad date '" + field(field) + "'");
+            }
+        }
+
+        // the number in bytes [start, end), -1 if they aren't all digits (or there are too many)
+        private long digits(int start, int end) {
+            if (end == start || end - start > 18) {
+                return -1;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        IOException error(String message) {
+            return new IOException(file + ":" + lineNumber + ": " + message);
+        }
+
+        // fills in from the channel, returns true if the end of the file was reached
+        private boolean readMore() throws IOException {
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package org.example.persistence;
+
+import org.example.component.Ladder;
+import org.example.component.LadderListener;
+import org.example.component.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of every change made to a ladder, so the ladder (and its stats)
+ * can be rebuilt after a restart by replaying the journal.
+ *
+ * Attach it to a ladder with ladder.addListener(journal) - after any replay, otherwise the
+ * replayed events would be journalled a second time.
+ *
+ * File layout: int magic, short version, then one record per event of
+ *   int bodyLength, byte eventType, long epochMillis, body
+ * A record that was only partly written when the process died is ignored by replay and
+ * cut off when the journal is next opened.
+ *
+ * Appends can come from the ladder's thread while GROUP_COMMIT's timer flushes from its own,
+ * so everything that touches the buffer or the channel holds the journal's lock.
+ */
+public class LadderJournal implements LadderListener, Closeable {
+    static final int MAGIC = 0x4C414452; // "LADR"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 6;
+
+    static final byte ADD_PLAYER = 1;
+    static final byte INSERT_PLAYER = 2;
+    static final byte REMOVE_PLAYER = 3;
+    static final byte MATCH_RESULT = 4;
+    static final byte REMOVE_ALL_PLAYERS = 5;
+    static final byte DEFAULT_RESULT = 6;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private long eventMillis;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // group commit settings & state
+    private int groupSize = 256;
+    private long groupDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+    private int unsyncedEvents = 0;
+    private long oldestUnsyncedNanos;
+    private int batchDepth = 0;
+    // GROUP_COMMIT's timed flush, so a quiet spell doesn't leave the last group unsynced
+    private ScheduledFuture<?> flushTask;
+    private IOException flushFailure;
+
+    // one daemon thread flushes every group commit journal in the process
+    private static final ScheduledThreadPoolExecutor FLUSHER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "ladder-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        FLUSHER.setRemoveOnCancelPolicy(true);
+    }
+
+    private LadderJournal(FileChannel channel, Durability durability) {
+        this.channel = channel;
+        this.durability = durability;
+    }
+
+    /**
+     * Opens (or creates) a journal for appending
+     * @param file
+     * @param durability
+     * @return
+     * @throws IOException
+     */
+    public static LadderJournal open(Path file, Durability durability) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        } else {
+            // drop any torn record left at the end by a crash
+            ReadResult result = read(channel, null);
+            if (result.validEnd < channel.size()) {
+                channel.truncate(result.validEnd);
+            }
+        }
+        channel.position(channel.size());
+        LadderJournal journal = new LadderJournal(channel, durability);
+        if (durability == Durability.GROUP_COMMIT) {
+            journal.scheduleFlush();
+        }
+        return journal;
+    }
+
+    /**
+     * Rebuild a ladder by applying every event in the journal in order
+     * @param file
+     * @param ladder should normally be empty
+     * @return number of events replayed
+     * @throws IOException
+     */
+    public static long replay(Path file, Ladder ladder) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, ladder).numEvents;
+        }
+    }
+
+    /**
+     * Only used by GROUP_COMMIT, a group is synced once it has maxEvents events or its
+     * oldest event is maxDelayMillis old. The age is checked as each event is added and by
+     * a timer every maxDelayMillis / 2, so a group is synced within about 1.5x the delay
+     * even if nothing else comes in
+     */
+    public synchronized void setGroupCommit(int maxEvents, long maxDelayMillis) {
+        groupSize = maxEvents;
+        groupDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), groupDelayNanos / 2);
+        flushTask = FLUSHER.scheduleWithFixedDelay(this::flushIfDue, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    // on the flusher thread, a failure is thrown by the next append or sync instead
+    private synchronized void flushIfDue() {
+        if (unsyncedEvents > 0 && flushFailure == null && channel.isOpen()
+                && System.nanoTime() - oldestUnsyncedNanos >= groupDelayNanos) {
+            try {
+                syncChecked();
+            } catch (IOException e) {
+                flushFailure = e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void eventTime(long epochMillis) {
+        eventMillis = epochMillis;
+    }
+
+    @Override
+    public synchronized void playerAdded(Player player) {
+        appendPlayer(ADD_PLAYER, player);
+    }
+
+    @Override
+    public synchronized void playerInserted(Player player) {
+        appendPlayer(INSERT_PLAYER, player);
+    }
+
+    @Override
+    public synchronized void playerRemoved(Player player) {
+        ByteBuffer out = beginRecord(REMOVE_PLAYER, 4);
+        out.putInt(player.getId());
+        endRecord(out);
+    }
+
+    @Override
+    public synchronized void matchPlayed(Player winner, Player loser, int winnerPosition, int loserPosition) {
+        ByteBuffer out = beginRecord(MATCH_RESULT, 8);
+        out.putInt(loserPosition).putInt(winnerPosition);
+        endRecord(out);
+    }
+
+    @Override
+    public synchronized void matchDefaulted(Player winner, Player loser, int winnerPosition, int loserPosition) {
+        ByteBuffer out = beginRecord(DEFAULT_RESULT, 8);
+        out.putInt(loserPosition).putInt(winnerPosition);
+        endRecord(out);
+    }
+
+    @Override
+    public synchronized void allPlayersRemoved() {
+        endRecord(beginRecord(REMOVE_ALL_PLAYERS, 0));
+    }
+
+    // SYNC waits for the end of a batch and syncs the whole lot once
+    @Override
+    public synchronized void batchStarted() {
+        batchDepth++;
+    }
+
+    @Override
+    public synchronized void batchFinished() {
+        if (--batchDepth == 0 && durability == Durability.SYNC && unsyncedEvents > 0) {
+            sync();
+        }
+    }
+
+    /**
+     * Write out & fsync everything journalled so far, whatever the durability mode
+     */
+    public synchronized void sync() {
+        try {
+            syncChecked();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void syncChecked() throws IOException {
+        if (flushFailure != null) {
+            throw new IOException("Timed group commit failed", flushFailure);
+        }
+        writeBuffer();
+        channel.force(false);
+        unsyncedEvents = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        try {
+            syncChecked();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void appendPlayer(byte type, Player player) {
+        byte[] firstName = bytes(player.getFirstName());
+        byte[] lastName = bytes(player.getLastName());
+        byte[] email = bytes(player.getEmail());
+        ByteBuffer out = beginRecord(type, 8 + stringSize(firstName) + stringSize(lastName) + stringSize(email));
+        out.putInt(player.getCurrentPosition()).putInt(player.getPreviousPosition());
+        putString(out, firstName);
+        putString(out, lastName);
+        putString(out, email);
+        endRecord(out);
+    }
+
+    // returns the buffer to write the body into, almost always the shared write buffer
+    private ByteBuffer beginRecord(byte type, int bodySize) {
+        bodySize += 8; // the timestamp
+        int recordSize = 5 + bodySize;
+        ByteBuffer out;
+        if (recordSize > buffer.capacity()) {
+            writeBufferUnchecked();
+            out = ByteBuffer.allocate(recordSize);
+        } else {
+            if (buffer.remaining() < recordSize) {
+                writeBufferUnchecked();
+            }
+            out = buffer;
+        }
+        out.putInt(bodySize + 1).put(type).putLong(eventMillis);
+        return out;
+    }
+
+    private void endRecord(ByteBuffer out) {
+        try {
+            if (out != buffer) {
+                // oversized record, written straight out
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            if (unsyncedEvents++ == 0) {
+                oldestUnsyncedNanos = System.nanoTime();
+            }
+            switch (durability) {
+                case SYNC:
+                    if (batchDepth == 0) {
+                        sync();
+                    }
+                    break;
+                case GROUP_COMMIT:
+                    if (unsyncedEvents >= groupSize || System.nanoTime() - oldestUnsyncedNanos >= groupDelayNanos
+                            || flushFailure != null) {
+                        sync();
+                    }
+                    break;
+                default:
+                    break; // BUFFERED, written when the buffer fills
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBufferUnchecked() {
+        try {
+            writeBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] s) {
+        return 4 + (s == null ? 0 : s.length);
+    }
+
+    // length -1 is a null string
+    private static void putString(ByteBuffer out, byte[] s) {
+        if (s == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(s.length).put(s);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private static final class ReadResult {
+        long numEvents = 0;
+        long validEnd = HEADER_SIZE;
+    }
+
+    /**
+     * Reads the journal from the start in big sequential chunks, applying each event to
+     * ladder (or just checking the records if ladder is null)
+     */
+    private static ReadResult read(FileChannel channel, Ladder ladder) throws IOException {
+        ReadResult result = new ReadResult();
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        channel.position(0);
+        readMore(channel, in);
+        in.flip();
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("Not a ladder journal");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        Clock ladderClock = ladder == null ? null : ladder.getClock();
+        ReplayClock replayClock = new ReplayClock();
+        if (ladder != null) {
+            ladder.setClock(replayClock);
+        }
+        try {
+            readRecords(channel, in, ladder, replayClock, result);
+        } finally {
+            if (ladder != null) {
+                ladder.setClock(ladderClock);
+            }
+        }
+        return result;
+    }
+
+    private static void readRecords(FileChannel channel, ByteBuffer in, Ladder ladder,
+                                    ReplayClock replayClock, ReadResult result) throws IOException {
+        while (true) {
+            if (in.remaining() >= 4) {
+                int bodyLength = in.getInt(in.position());
+                if (bodyLength < 1 || bodyLength > MAX_RECORD_SIZE) {
+                    return; // garbage rather than a record, treat as the end
+                }
+                if (in.remaining() >= 4 + bodyLength) {
+                    in.getInt();
+                    int end = in.position() + bodyLength;
+                    byte type = in.get();
+                    replayClock.millis = in.getLong();
+                    if (ladder != null) {
+                        apply(type, in, ladder);
+                    }
+                    in.position(end);
+                    result.numEvents++;
+                    result.validEnd += 4 + bodyLength;
+                    continue;
+                }
+            }
+
+            // need more data for the next record
+            int needed = in.remaining() >= 4 ? 4 + in.getInt(in.position()) : 4;
+            in.compact();
+            if (needed > in.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(needed);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            boolean eof = readMore(channel, in);
+            in.flip();
+            if (eof && (in.remaining() < 4 || in.remaining() < 4 + in.getInt(in.position()))) {
+                return; // end of file, possibly with a torn record we ignore
+            }
+        }
+    }
+
+    // fills in from the channel, returns true if the end of the file was reached
+    private static boolean readMore(FileChannel channel, ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void apply(byte type, ByteBuffer in, Ladder ladder) throws IOException {
+        switch (type) {
+            case ADD_PLAYER:
+                ladder.addPlayer(readPlayer(in));
+                break;
+            case INSERT_PLAYER:
+                ladder.insertPlayer(readPlayer(in));
+                break;
+            case REMOVE_PLAYER:
+                ladder.removePlayerById(in.getInt());
+                break;
+            case MATCH_RESULT:
+                int loserPosition = in.getInt();
+                int winnerPosition = in.getInt();
+                ladder.matchResult(loserPosition, winnerPosition);
+                break;
+            case REMOVE_ALL_PLAYERS:
+                ladder.removeAllPlayers();
+                break;
+            case DEFAULT_RESULT:
+                int defaulterPosition = in.getInt();
+                ladder.defaultResult(defaulterPosition, in.getInt());
+                break;
+            default:
+                throw new IOException("Unknown journal event type " + type);
+        }
+    }
+
+    private static Player readPlayer(ByteBuffer in) {
+        int position = in.getInt();
+        int previousPosition = in.getInt();
+        Player player = new Player(getString(in), getString(in), position);
+        player.setPreviousPosition(previousPosition);
+        player.setEmail(getString(in));
+        return player;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.persistence;
+
+import org.example.component.Ladder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Full binary copy of a ladder - standings, players, per-player aggregates and the whole
+ * match history - so a ladder can be brought back up without replaying every result.
+ *
+ * Snapshots are written to a temp file which is then renamed over the target, so a crash
+ * mid-write leaves the previous snapshot in place.
+ */
+public class LadderSnapshot {
+    static final int MAGIC = 0x4C534E50; // "LSNP"
+    static final int VERSION = 1;
+
+    public static void write(Ladder ladder, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotWriter out = new SnapshotWriter(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            ladder.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static Ladder load(Path file) throws IOException {
+        try (SnapshotReader in = new SnapshotReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a ladder snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            return Ladder.readFrom(in);
+        }
+    }
+}
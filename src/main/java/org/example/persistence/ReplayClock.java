@@ -0,0 +1,46 @@
+package org.example.persistence;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// stands in for the ladder's clock while replaying or importing, so each change is stamped
+// with the time it was first made
+final class ReplayClock extends Clock {
+    long millis;
+
+    // withZone gives views that read the time from the original, so they follow the replay too
+    private final ReplayClock source;
+    private final ZoneId zone;
+
+    ReplayClock() {
+        source = this;
+        zone = ZoneOffset.UTC;
+    }
+
+    private ReplayClock(ReplayClock source, ZoneId zone) {
+        this.source = source;
+        this.zone = zone;
+    }
+
+    @Override
+    public long millis() {
+        return source.millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(source.millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new ReplayClock(source, zone);
+    }
+}
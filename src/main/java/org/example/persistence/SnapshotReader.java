@@ -0,0 +1,110 @@
+package org.example.persistence;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads back what SnapshotWriter wrote, in big sequential chunks with bulk array copies
+ */
+public class SnapshotReader implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotReader(FileChannel channel) {
+        this.channel = channel;
+        buffer.limit(0); // nothing read yet
+    }
+
+    public int getInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    public long getLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        getBytes(bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void getBytes(byte[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int n = Math.min(length - offset, buffer.remaining());
+            buffer.get(values, offset, n);
+            offset += n;
+        }
+    }
+
+    public void getInts(int[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(4);
+            int n = Math.min(length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * 4);
+            offset += n;
+        }
+    }
+
+    public void getLongs(long[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(8);
+            int n = Math.min(length - offset, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * 8);
+            offset += n;
+        }
+    }
+
+    public void getDoubles(double[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(8);
+            int n = Math.min(length - offset, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * 8);
+            offset += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // makes sure at least the given number of bytes are sitting in the buffer
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot is truncated");
+            }
+        }
+        // top up with as much as is available in one go
+        if (buffer.hasRemaining()) {
+            channel.read(buffer);
+        }
+        buffer.flip();
+    }
+}
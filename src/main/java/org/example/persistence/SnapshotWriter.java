@@ -0,0 +1,107 @@
+package org.example.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sequential binary writer used for ladder snapshots. Arrays are written in bulk through a
+ * large direct buffer so a column of millions of ints costs a handful of memory copies.
+ * Little endian throughout so loading on x86/ARM is a straight copy.
+ */
+public class SnapshotWriter implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    // length -1 is a null string
+    public void putString(String s) throws IOException {
+        if (s == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes, bytes.length);
+    }
+
+    public void putBytes(byte[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int n = Math.min(length - offset, buffer.remaining());
+            buffer.put(values, offset, n);
+            offset += n;
+        }
+    }
+
+    public void putInts(int[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(4);
+            int n = Math.min(length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * 4);
+            offset += n;
+        }
+    }
+
+    public void putLongs(long[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(8);
+            int n = Math.min(length - offset, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * 8);
+            offset += n;
+        }
+    }
+
+    public void putDoubles(double[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(8);
+            int n = Math.min(length - offset, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * 8);
+            offset += n;
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
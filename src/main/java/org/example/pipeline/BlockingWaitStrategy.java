@@ -0,0 +1,45 @@
+package org.example.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// see WaitStrategy.blocking()
+class BlockingWaitStrategy implements WaitStrategy {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final AtomicInteger numWaiting = new AtomicInteger();
+
+    @Override
+    public void idle(int attempt) {
+        if (attempt < 100) {
+            return; // a short spin first, most waits are over quickly
+        }
+        numWaiting.incrementAndGet();
+        lock.lock();
+        try {
+            // timed so a wake up that slips in just before we wait only costs a millisecond
+            changed.await(1, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+            numWaiting.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void wakeUp() {
+        // nobody asleep is the common case, don't touch the lock for it
+        if (numWaiting.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.pipeline;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.example.metrics.LadderMetrics;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lets any number of threads submit changes to one Ladder without a lock around it.
+ *
+ * Commands go into a bounded ring of pre-allocated slots. Producers claim a slot with a
+ * CAS on the claim counter, fill it in and mark it published, one consumer thread applies
+ * published commands to the ladder strictly in claim order. So the ladder itself only
+ * ever sees one thread, in one well defined order.
+ *
+ * When the ring is full the blocking submit methods wait (using the WaitStrategy) until
+ * the consumer frees a slot, the try* versions return null instead. Each command gets a
+ * future that completes once it has been applied, or completes exceptionally with whatever
+ * the ladder threw.
+ *
+ *   LadderPipeline pipeline = new LadderPipeline(ladder, 1024, WaitStrategy.yielding());
+ *   pipeline.start();
+ *   pipeline.matchResult(3, 5).join();
+ *   pipeline.close(); // applies anything already submitted first
+ */
+public class LadderPipeline implements Closeable {
+    private static final int MATCH_RESULT = 1;
+    private static final int INSERT_PLAYER = 2;
+    private static final int REMOVE_PLAYER = 3;
+
+    // set on the claim counter by close(), so a claim can't sneak in after the consumer
+    // has decided it's finished
+    private static final long CLOSED = 1L << 62;
+
+    // one slot in the ring, reused for every command that lands on it
+    private static final class Command {
+        int type;
+        int loserPosition;
+        int winnerPosition;
+        Player player;
+        String firstName;
+        String lastName;
+        CompletableFuture<Void> done;
+    }
+
+    private final Ladder ladder;
+    private final Command[] ring;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    // sequence number last published into each slot, the consumer knows a slot is ready when
+    // it holds the sequence it's expecting
+    private final AtomicLongArray published;
+    // counts of commands claimed & applied, sequence n is the (n+1)th command claimed
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong(); // slots before this are free again
+    private final Thread consumer;
+
+    /**
+     * @param ladder only touched by the pipeline's thread from start() until close()
+     * @param capacity number of slots, rounded up to a power of 2
+     * @param waitStrategy
+     */
+    public LadderPipeline(Ladder ladder, int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ladder = ladder;
+        this.waitStrategy = waitStrategy;
+        ring = new Command[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Command();
+            published.set(i, -1);
+        }
+        mask = size - 1;
+        consumer = new Thread(this::consume, "ladder-pipeline");
+        consumer.setDaemon(true);
+    }
+
+    public void start() {
+        consumer.start();
+    }
+
+    public CompletableFuture<Void> matchResult(int loserCurrentPosition, int winnerCurrentPosition) {
+        return submitMatchResult(claim(true), loserCurrentPosition, winnerCurrentPosition);
+    }
+
+    // as matchResult, but returns null straight away if the ring is full
+    public CompletableFuture<Void> tryMatchResult(int loserCurrentPosition, int winnerCurrentPosition) {
+        long sequence = claim(false);
+        return sequence < 0 ? null : submitMatchResult(sequence, loserCurrentPosition, winnerCurrentPosition);
+    }
+
+    public CompletableFuture<Void> insertPlayer(Player player) {
+        return submitPlayer(claim(true), INSERT_PLAYER, player, null, null);
+    }
+
+    public CompletableFuture<Void> tryInsertPlayer(Player player) {
+        long sequence = claim(false);
+        return sequence < 0 ? null : submitPlayer(sequence, INSERT_PLAYER, player, null, null);
+    }
+
+    public CompletableFuture<Void> removePlayer(String firstName, String lastName) {
+        return submitPlayer(claim(true), REMOVE_PLAYER, null, firstName, lastName);
+    }
+
+    public CompletableFuture<Void> tryRemovePlayer(String firstName, String lastName) {
+        long sequence = claim(false);
+        return sequence < 0 ? null : submitPlayer(sequence, REMOVE_PLAYER, null, firstName, lastName);
+    }
+
+    // commands submitted but not yet applied
+    public int backlog() {
+        return (int) ((claimed.get() & ~CLOSED) - consumed.get());
+    }
+
+    // reports the backlog (queue depth) as the "pipelineBacklog" gauge
+    public void addGauges(LadderMetrics metrics) {
+        metrics.gauge("pipelineBacklog", this::backlog);
+    }
+
+    /**
+     * Stops taking new commands, waits for everything already submitted to be applied
+     * and then stops the consumer thread
+     */
+    @Override
+    public void close() {
+        long current = claimed.get();
+        while ((current & CLOSED) == 0 && !claimed.compareAndSet(current, current | CLOSED)) {
+            current = claimed.get();
+        }
+        waitStrategy.wakeUp();
+        if (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private CompletableFuture<Void> submitMatchResult(long sequence, int loserCurrentPosition, int winnerCurrentPosition) {
+        Command command = ring[(int) sequence & mask];
+        command.type = MATCH_RESULT;
+        command.loserPosition = loserCurrentPosition;
+        command.winnerPosition = winnerCurrentPosition;
+        return publish(sequence, command);
+    }
+
+    private CompletableFuture<Void> submitPlayer(long sequence, int type, Player player, String firstName, String lastName) {
+        Command command = ring[(int) sequence & mask];
+        command.type = type;
+        command.player = player;
+        command.firstName = firstName;
+        command.lastName = lastName;
+        return publish(sequence, command);
+    }
+
+    private CompletableFuture<Void> publish(long sequence, Command command) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        command.done = done;
+        published.lazySet((int) sequence & mask, sequence); // orders the writes above before it
+        waitStrategy.wakeUp();
+        return done;
+    }
+
+    /**
+     * @param wait whether to wait for a free slot if the ring is full
+     * @return the claimed sequence, or -1 if the ring was full and we didn't wait
+     */
+    private long claim(boolean wait) {
+        int attempt = 0;
+        while (true) {
+            long current = claimed.get();
+            if ((current & CLOSED) != 0) {
+                throw new IllegalStateException("Pipeline is closed");
+            }
+            if (current - ring.length >= consumed.get()) {
+                // full, that slot still holds a command the consumer hasn't got to
+                if (!wait) {
+                    return -1;
+                }
+                waitStrategy.idle(attempt++);
+            } else if (claimed.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    private void consume() {
+        long next = consumed.get();
+        int attempt = 0;
+        while (true) {
+            if (published.get((int) next & mask) == next) {
+                // take everything that's ready in one go, only free the slots at the end
+                long last = next;
+                while (published.get((int) (last + 1) & mask) == last + 1) {
+                    last++;
+                }
+                for (long sequence = next; sequence <= last; sequence++) {
+                    apply(ring[(int) sequence & mask]);
+                }
+                consumed.lazySet(last + 1);
+                waitStrategy.wakeUp();
+                next = last + 1;
+                attempt = 0;
+            } else if (claimed.get() == (next | CLOSED)) {
+                return; // closed and drained
+            } else {
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+
+    private void apply(Command command) {
+        CompletableFuture<Void> done = command.done;
+        try {
+            switch (command.type) {
+                case MATCH_RESULT:
+                    ladder.matchResult(command.loserPosition, command.winnerPosition);
+                    break;
+                case INSERT_PLAYER:
+                    ladder.insertPlayer(command.player);
+                    break;
+                case REMOVE_PLAYER:
+                    ladder.removePlayer(command.firstName, command.lastName);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command " + command.type);
+            }
+            done.complete(null);
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+        } finally {
+            // don't keep players/futures alive until the slot comes round again
+            command.player = null;
+            command.firstName = null;
+            command.lastName = null;
+            command.done = null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a thread does while it waits on the ring buffer, ie the consumer waiting for
+ * commands or a producer waiting for a free slot. Trades latency against burning CPU.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called each time a check comes up empty
+     * @param attempt how many times in a row the check has come up empty, from 0
+     */
+    void idle(int attempt);
+
+    // something a waiter may be waiting on has changed
+    default void wakeUp() {
+    }
+
+    /**
+     * Spins flat out, lowest latency but keeps a core busy even when there's nothing to do
+     */
+    static WaitStrategy busySpin() {
+        return attempt -> {
+        };
+    }
+
+    /**
+     * Spins for a while then yields the CPU to other threads between checks
+     */
+    static WaitStrategy yielding() {
+        return attempt -> {
+            if (attempt > 100) {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * Spins, yields, then parks for longer and longer up to maxSleepNanos. Close to idle
+     * when there's nothing to do, at the cost of up to maxSleepNanos of extra latency
+     */
+    static WaitStrategy sleeping(long maxSleepNanos) {
+        return attempt -> {
+            if (attempt > 200) {
+                LockSupport.parkNanos(Math.min(maxSleepNanos, 1000L << Math.min(attempt - 200, 20)));
+            } else if (attempt > 100) {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * Waiters block until woken, doesn't use any CPU while idle but every wake up goes
+     * through a lock
+     */
+    static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+}
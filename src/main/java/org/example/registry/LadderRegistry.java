@@ -0,0 +1,444 @@
+package org.example.registry;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hosts any number of named ladders (divisions) in one JVM.
+ *
+ * Each ladder gets its own serial executor on a shared pool: everything done to one ladder
+ * runs one task at a time in submission order, so the Ladder itself needs no locking, while
+ * different ladders run in parallel on as many threads as the pool has.
+ *
+ * Ladders are either created empty or opened by name, an opened ladder is only loaded from
+ * the LadderStore when something is first submitted to it. Idle ladders can be evicted (saved
+ * back to the store and dropped from memory) and come back the same way the next time they're
+ * used, so rarely used ladders don't have to stay in memory.
+ *
+ * Members are players known across ladders, identified by email. The same member can join
+ * any number of ladders and be looked up in all of them. The member directory lives in memory
+ * only, the ladders hold the players themselves.
+ *
+ *   LadderRegistry registry = new LadderRegistry(4, LadderStore.snapshots(dir));
+ *   registry.create("juniors");
+ *   registry.join("juniors", registry.register("Jo", "Smith", "jo@example.com"), 1);
+ *   registry.matchResult("juniors", 1, 2).join();
+ *   registry.close(); // saves every ladder that's loaded
+ */
+public class LadderRegistry implements Closeable {
+
+    public static final class Member {
+        private final int id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final Set<String> ladders = ConcurrentHashMap.newKeySet();
+
+        private Member(int id, String firstName, String lastName, String email) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        // names of the ladders they're on
+        public Set<String> getLadders() {
+            return Collections.unmodifiableSet(ladders);
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final SerialExecutor executor;
+        // only touched from the executor
+        Ladder ladder;
+        boolean removed;
+        volatile boolean loaded;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        Entry(String name, Executor pool) {
+            this.name = name;
+            this.executor = new SerialExecutor(pool);
+        }
+    }
+
+    private final ExecutorService ownedPool; // null if the pool was passed in
+    private final Executor pool;
+    private final LadderStore store;
+    private final ConcurrentHashMap<String, Entry> ladders = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Member> membersByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Member> membersById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextMemberId = new AtomicInteger(1);
+
+    /**
+     * @param numThreads threads in the registry's own pool, shut down by close()
+     * @param store
+     */
+    public LadderRegistry(int numThreads, LadderStore store) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.ownedPool = Executors.newFixedThreadPool(numThreads, task -> {
+            Thread thread = new Thread(task, "ladder-registry-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pool = ownedPool;
+        this.store = store;
+    }
+
+    /**
+     * @param pool shared with whatever else uses it, the registry doesn't shut it down
+     * @param store
+     */
+    public LadderRegistry(Executor pool, LadderStore store) {
+        this.ownedPool = null;
+        this.pool = pool;
+        this.store = store;
+    }
+
+    /**
+     * Adds a new, empty ladder
+     * @throws IllegalStateException if there's already a ladder by that name
+     * @throws IllegalArgumentException if the store can't keep a ladder by that name
+     */
+    public void create(String name) {
+        store.checkName(name);
+        Entry entry = new Entry(name, pool);
+        entry.ladder = new Ladder();
+        entry.loaded = true;
+        if (ladders.putIfAbsent(name, entry) != null) {
+            throw new IllegalStateException("Ladder already exists: " + name);
+        }
+    }
+
+    public void createAll(Collection<String> names) {
+        for (String name : names) {
+            create(name);
+        }
+    }
+
+    /**
+     * Adds a ladder that's loaded from the store the first time it's used (or starts empty if
+     * the store doesn't have it). Does nothing if there's already a ladder by that name
+     * @throws IllegalArgumentException if the store can't keep a ladder by that name
+     */
+    public void open(String name) {
+        store.checkName(name);
+        ladders.putIfAbsent(name, new Entry(name, pool));
+    }
+
+    public void openAll(Collection<String> names) {
+        for (String name : names) {
+            open(name);
+        }
+    }
+
+    /**
+     * Runs task against the named ladder on that ladder's executor, after everything already
+     * submitted to it
+     * @return completes with what task returns, or exceptionally with whatever it threw
+     * @throws IllegalArgumentException if there's no such ladder
+     */
+    public <T> CompletableFuture<T> submit(String name, Function<Ladder, T> task) {
+        Entry entry = getEntry(name);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        entry.executor.execute(() -> {
+            try {
+                result.complete(task.apply(ladderOf(entry)));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<Void> matchResult(String name, int loserCurrentPosition, int winnerCurrentPosition) {
+        return submit(name, ladder -> {
+            ladder.matchResult(loserCurrentPosition, winnerCurrentPosition);
+            return null;
+        });
+    }
+
+    /**
+     * Saves the ladder to the store and drops it from memory, it's loaded again the next time
+     * it's used
+     * @return true if it was in memory
+     */
+    public CompletableFuture<Boolean> evict(String name) {
+        return evict(getEntry(name));
+    }
+
+    /**
+     * Evicts every ladder that hasn't been used for maxIdle
+     * @return number of ladders evicted
+     */
+    public CompletableFuture<Integer> evictIdle(long maxIdle, TimeUnit unit) {
+        long cutoff = System.nanoTime() - unit.toNanos(maxIdle);
+        List<CompletableFuture<Boolean>> evictions = new ArrayList<>();
+        for (Entry entry : ladders.values()) {
+            if (entry.loaded && entry.lastUsedNanos - cutoff < 0) {
+                evictions.add(evict(entry));
+            }
+        }
+        return countEvicted(evictions);
+    }
+
+    // evicts everything, eg before shutting down
+    public CompletableFuture<Integer> evictAll() {
+        List<CompletableFuture<Boolean>> evictions = new ArrayList<>();
+        for (Entry entry : ladders.values()) {
+            evictions.add(evict(entry));
+        }
+        return countEvicted(evictions);
+    }
+
+    private CompletableFuture<Boolean> evict(Entry entry) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        entry.executor.execute(() -> {
+            try {
+                result.complete(unload(entry));
+            } catch (IOException e) {
+                result.completeExceptionally(new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Drops the ladder altogether, including from the store
+     */
+    public CompletableFuture<Void> remove(String name) {
+        Entry entry = ladders.remove(name);
+        if (entry == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        entry.executor.execute(() -> {
+            entry.removed = true;
+            entry.ladder = null;
+            entry.loaded = false;
+            for (Member member : membersById.values()) {
+                member.ladders.remove(name);
+            }
+            try {
+                store.delete(name);
+                result.complete(null);
+            } catch (IOException e) {
+                result.completeExceptionally(new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(ladders.keySet());
+    }
+
+    public boolean contains(String name) {
+        return ladders.containsKey(name);
+    }
+
+    // whether the ladder is in memory right now
+    public boolean isLoaded(String name) {
+        Entry entry = ladders.get(name);
+        return entry != null && entry.loaded;
+    }
+
+    public int size() {
+        return ladders.size();
+    }
+
+    // -- members, ie players known across ladders --
+
+    /**
+     * @return the member with that email, added with the given names if there isn't one yet
+     */
+    public Member register(String firstName, String lastName, String email) {
+        String key = normalise(email);
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Members need an email");
+        }
+        return membersByEmail.computeIfAbsent(key, k -> {
+            Member member = new Member(nextMemberId.getAndIncrement(), firstName, lastName, email);
+            membersById.put(member.getId(), member);
+            return member;
+        });
+    }
+
+    public Member getMember(int id) {
+        return membersById.get(id);
+    }
+
+    public Member getMemberByEmail(String email) {
+        return email == null ? null : membersByEmail.get(normalise(email));
+    }
+
+    /**
+     * Inserts the member into the named ladder at position (see Ladder.insertPlayer). A member
+     * who's already on the ladder stays where they are
+     * @return the member's player on that ladder
+     */
+    public CompletableFuture<Player> join(String name, Member member, int position) {
+        return submit(name, ladder -> {
+            Player existing = ladder.getPlayerByEmail(member.getEmail());
+            if (existing != null) {
+                member.ladders.add(name);
+                return existing;
+            }
+            Player player = new Player(member.getFirstName(), member.getLastName(), position);
+            player.setEmail(member.getEmail());
+            ladder.insertPlayer(player);
+            member.ladders.add(name);
+            return player;
+        });
+    }
+
+    /**
+     * Takes the member off the named ladder
+     * @return false if they weren't on it
+     */
+    public CompletableFuture<Boolean> leave(String name, Member member) {
+        return submit(name, ladder -> {
+            member.ladders.remove(name);
+            Player player = ladder.getPlayerByEmail(member.getEmail());
+            if (player == null) {
+                return false;
+            }
+            ladder.removePlayerById(player.getId());
+            return true;
+        });
+    }
+
+    /**
+     * The member's current position on each ladder they're on (0 if they've since been taken
+     * off it some other way), asked of all the ladders at once
+     */
+    public CompletableFuture<Map<String, Integer>> getPositions(Member member) {
+        Map<String, CompletableFuture<Integer>> positions = new HashMap<>();
+        for (String name : member.ladders) {
+            if (ladders.containsKey(name)) {
+                positions.put(name, submit(name, ladder -> {
+                    Player player = ladder.getPlayerByEmail(member.getEmail());
+                    return player == null ? 0 : player.getCurrentPosition();
+                }));
+            }
+        }
+        return CompletableFuture.allOf(positions.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, Integer> result = new HashMap<>();
+            positions.forEach((name, position) -> result.put(name, position.join()));
+            return result;
+        });
+    }
+
+    /**
+     * Saves every ladder that's in memory and, if the registry made its own pool, shuts it down
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            evictAll().join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            if (ownedPool != null) {
+                ownedPool.shutdown();
+            }
+        }
+    }
+
+    private Entry getEntry(String name) {
+        Entry entry = ladders.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No such ladder: " + name);
+        }
+        return entry;
+    }
+
+    // called on the entry's executor
+    private Ladder ladderOf(Entry entry) {
+        if (entry.removed) {
+            throw new IllegalStateException("Ladder has been removed: " + entry.name);
+        }
+        entry.lastUsedNanos = System.nanoTime();
+        if (entry.ladder == null) {
+            try {
+                Ladder ladder = store.load(entry.name);
+                entry.ladder = ladder == null ? new Ladder() : ladder;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entry.loaded = true;
+        }
+        return entry.ladder;
+    }
+
+    // called on the entry's executor
+    private boolean unload(Entry entry) throws IOException {
+        if (entry.ladder == null) {
+            return false;
+        }
+        store.save(entry.name, entry.ladder);
+        entry.ladder = null;
+        entry.loaded = false;
+        return true;
+    }
+
+    private static CompletableFuture<Integer> countEvicted(List<CompletableFuture<Boolean>> evictions) {
+        return CompletableFuture.allOf(evictions.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            int count = 0;
+            for (CompletableFuture<Boolean> eviction : evictions) {
+                if (eviction.join()) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    private static String normalise(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.registry;
+
+import org.example.component.Ladder;
+import org.example.persistence.LadderSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Where a LadderRegistry keeps ladders that aren't in memory. Called from the ladder's own
+ * executor, so a store only ever sees one call at a time for any one ladder.
+ */
+public interface LadderStore {
+
+    /**
+     * @return the stored ladder, or null if there isn't one by that name
+     */
+    Ladder load(String name) throws IOException;
+
+    void save(String name, Ladder ladder) throws IOException;
+
+    void delete(String name) throws IOException;
+
+    /**
+     * Called when a ladder is added to a registry, so a name the store can't keep is turned
+     * away then rather than when the ladder's first evicted
+     * @throws IllegalArgumentException if the store can't keep a ladder by that name
+     */
+    default void checkName(String name) {
+    }
+
+    /**
+     * Keeps nothing, evicted ladders are simply dropped
+     */
+    static LadderStore none() {
+        return new LadderStore() {
+            @Override
+            public Ladder load(String name) {
+                return null;
+            }
+
+            @Override
+            public void save(String name, Ladder ladder) {
+            }
+
+            @Override
+            public void delete(String name) {
+            }
+        };
+    }
+
+    /**
+     * One LadderSnapshot file per ladder in directory, named after the ladder. Ladder names
+     * are limited to letters, digits, '.', '_' and '-' so they're safe as file names
+     */
+    static LadderStore snapshots(Path directory) {
+        return new LadderStore() {
+            @Override
+            public Ladder load(String name) throws IOException {
+                Path file = fileFor(name);
+                return Files.exists(file) ? LadderSnapshot.load(file) : null;
+            }
+
+            @Override
+            public void save(String name, Ladder ladder) throws IOException {
+                Files.createDirectories(directory);
+                LadderSnapshot.write(ladder, fileFor(name));
+            }
+
+            @Override
+            public void delete(String name) throws IOException {
+                Files.deleteIfExists(fileFor(name));
+            }
+
+            @Override
+            public void checkName(String name) {
+                if (!name.matches("[A-Za-z0-9._-]+") || name.startsWith(".")) {
+                    throw new IllegalArgumentException("Ladder name can't be used as a file name: " + name);
+                }
+            }
+
+            private Path fileFor(String name) {
+                checkName(name);
+                return directory.resolve(name + ".snapshot");
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.registry;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks one at a time in submission order on a shared pool, so each ladder behaves as if
+ * it had a thread of its own without thousands of ladders needing thousands of threads.
+ *
+ * At most one drain is scheduled on the pool at a time. It runs up to BATCH tasks and then
+ * hands the thread back, rescheduling itself if there's more, so a busy ladder can't starve
+ * the others sharing the pool.
+ */
+class SerialExecutor implements Executor {
+    private static final int BATCH = 64;
+
+    private final Executor pool;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SerialExecutor(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run(); // tasks complete their own futures, see LadderRegistry.submit
+            }
+        } finally {
+            scheduled.set(false);
+            // anything added after the last poll, or left over from a full batch
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.example.report;
+
+import org.apache.commons.math3.util.Pair;
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+import org.example.component.OpponentResults;
+import org.example.component.Player;
+import org.example.stats.Colours;
+import org.example.stats.HeadToHead;
+import org.example.stats.MatchHistory;
+import org.example.stats.PositionTimeline;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the ladder with each player's stats to a Writer/OutputStream.
+ *
+ * Players are walked in position order straight off the ladder and each one's history is
+ * walked in place, so the whole report is linear in players + matches. Each row is built in
+ * one reused buffer and written out as it goes, nothing is held for the whole ladder.
+ *
+ *   new LadderReport(ladder).format(ReportFormat.CSV).top(100).writeTo(out);
+ *
+ * Not thread safe, and the ladder mustn't change while a report is being written.
+ */
+public class LadderReport {
+    private static final int FLUSH_AT = 8 * 1024;
+
+    private final Ladder ladder;
+    private ReportFormat format = ReportFormat.PLAIN;
+    private int offset = 0;
+    private int limit = Integer.MAX_VALUE;
+
+    // reused for every row
+    private final StringBuilder line = new StringBuilder(FLUSH_AT * 2);
+    private char[] chars = new char[FLUSH_AT * 2];
+
+    // timeline of the player being written, reused & grown to the longest one seen
+    private int[] positions = new int[64];
+    private int numPositions;
+    // and their best streak, as timeline indexes (see AllPlayerStats.getTimeline)
+    private int streakStart;
+    private int streakEnd;
+
+    public LadderReport(Ladder ladder) {
+        this.ladder = ladder;
+    }
+
+    public LadderReport format(ReportFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    // just the top n players
+    public LadderReport top(int n) {
+        return page(0, n);
+    }
+
+    /**
+     * @param offset number of players to skip from the top
+     * @param limit max number of players to write
+     */
+    public LadderReport page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit can't be negative");
+        }
+        this.offset = offset;
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Writes the report as UTF-8, the stream is flushed but left open
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        line.setLength(0);
+        writeHeader();
+        for (Player player : ladder.getRange(offset + 1, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit))) {
+            writePlayer(out, player);
+        }
+        writeFooter();
+        flush(out);
+    }
+
+    private void writeHeader() {
+        switch (format) {
+            case PLAIN:
+            case ANSI:
+                line.append("\n== Ladder ==\n");
+                break;
+            case CSV:
+                line.append("position,id,first_name,last_name,wins,losses,all_time_high,avg_opponent_position,"
+                        + "highest_opponent_defeated,highest_opponent_defeated_position,"
+                        + "timeline,best_streak_start,best_streak_end\n");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeFooter() {
+        if (format == ReportFormat.PLAIN || format == ReportFormat.ANSI) {
+            line.append("Total Num of matches: ")
+                    .append(ladder.getAllPlayerStats().getTotalMatchCount()).append("\n\n");
+        }
+    }
+
+    private void writePlayer(Writer out, Player player) throws IOException {
+        switch (format) {
+            case PLAIN:
+            case ANSI:
+                writeText(out, player, format == ReportFormat.ANSI);
+                break;
+            case CSV:
+                writeCsv(out, player);
+                break;
+            case JSON_LINES:
+                writeJson(out, player);
+                break;
+            default:
+                throw new IllegalStateException("Unknown format " + format);
+        }
+        if (line.length() >= FLUSH_AT) {
+            flush(out);
+        }
+    }
+
+    private void writeText(Writer out, Player player, boolean colour) throws IOException {
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        MatchHistory history = stats.getMatchHistory();
+        HeadToHead headToHead = stats.getHeadToHeadIndex();
+        Pair<Integer, Integer> winsLosses = stats.getPlayerWinsLosses(player);
+        int wins = winsLosses.getFirst();
+        int losses = winsLosses.getSecond();
+
+        line.append(player.getCurrentPosition()).append(": ")
+                .append(player.getFirstName()).append(player.getLastName())
+                .append(" |P:").append(wins + losses).append(" W:").append(wins).append(" L:").append(losses).append('|')
+                .append(" History ");
+        for (int e = headToHead.firstEntry(player.getId()); e != HeadToHead.NONE; e = headToHead.nextEntry(e)) {
+            int opponentId = headToHead.getOpponentId(e);
+            line.append(history.getFirstName(opponentId)).append(history.getLastName(opponentId))
+                    .append(":W").append(headToHead.getWins(e))
+                    .append(",L").append(headToHead.getLosses(e)).append(' ');
+            if (line.length() >= FLUSH_AT) {
+                flush(out);
+            }
+        }
+        line.append(" AllTimeHigh: ").append(stats.getAllTimeHighestPosition(player))
+                .append(" AvgOppPos: ").append(stats.getAverageOpponentPosition(player));
+        Pair<String, Integer> highestOpponent = stats.getHighestOpponentDefeated(player);
+        if (!highestOpponent.getFirst().isEmpty()) {
+            line.append("highestOpp:").append(highestOpponent.getFirst()).append(',').append(highestOpponent.getSecond());
+        }
+        line.append('\n');
+
+        if (!loadTimeline(stats, player)) {
+            return;
+        }
+        line.append("Position Timeline: [");
+        for (int i = 0; i < numPositions; i++) {
+            appendTimelineEntry(i, positions[i], colour);
+            if (line.length() >= FLUSH_AT) {
+                flush(out);
+            }
+        }
+        line.append("]\n\n");
+    }
+
+    private void appendTimelineEntry(int index, int position, boolean colour) {
+        boolean inStreak = index >= streakStart && index <= streakEnd;
+        if (colour) {
+            line.append(inStreak ? Colours.ANSI_GREEN_BACKGROUND : Colours.ANSI_BLUE);
+            if (index > 0) {
+                line.append(", ");
+            }
+            line.append(position).append(Colours.ANSI_RESET);
+            return;
+        }
+        if (index > 0) {
+            line.append(", ");
+        }
+        if (index == streakStart) {
+            line.append('<');
+        }
+        line.append(position);
+        if (index == streakEnd) {
+            line.append('>');
+        }
+    }
+
+    private void writeCsv(Writer out, Player player) throws IOException {
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        MatchHistory history = stats.getMatchHistory();
+        Pair<Integer, Integer> winsLosses = stats.getPlayerWinsLosses(player);
+
+        line.append(player.getCurrentPosition()).append(',').append(player.getId()).append(',');
+        appendCsv(player.getFirstName());
+        line.append(',');
+        appendCsv(player.getLastName());
+        line.append(',').append(winsLosses.getFirst()).append(',').append(winsLosses.getSecond())
+                .append(',').append(stats.getAllTimeHighestPosition(player))
+                .append(',').append(stats.getAverageOpponentPosition(player)).append(',');
+        OpponentResults results = stats.getPlayerStats(player);
+        int highestOpponentId = results.getHighestOpponentDefeatedId();
+        if (highestOpponentId != 0) {
+            appendCsv(history.getFirstName(highestOpponentId) + history.getLastName(highestOpponentId));
+            line.append(',').append(results.getHighestOpponentDefeated().getSecond());
+        } else {
+            line.append(',');
+        }
+        line.append(',');
+
+        if (loadTimeline(stats, player)) {
+            line.append(positions[0]);
+            for (int i = 1; i < numPositions; i++) {
+                line.append(' ').append(positions[i]);
+                if (line.length() >= FLUSH_AT) {
+                    flush(out);
+                }
+            }
+            line.append(',').append(streakStart).append(',').append(streakEnd);
+        } else {
+            line.append(",,");
+        }
+        line.append('\n');
+    }
+
+    private void writeJson(Writer out, Player player) throws IOException {
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        MatchHistory history = stats.getMatchHistory();
+        HeadToHead headToHead = stats.getHeadToHeadIndex();
+        Pair<Integer, Integer> winsLosses = stats.getPlayerWinsLosses(player);
+        int id = player.getId();
+
+        line.append("{\"position\":").append(player.getCurrentPosition())
+                .append(",\"id\":").append(id)
+                .append(",\"firstName\":");
+        appendJson(player.getFirstName());
+        line.append(",\"lastName\":");
+        appendJson(player.getLastName());
+        line.append(",\"wins\":").append(winsLosses.getFirst())
+                .append(",\"losses\":").append(winsLosses.getSecond())
+                .append(",\"allTimeHigh\":").append(stats.getAllTimeHighestPosition(player))
+                .append(",\"avgOpponentPosition\":").append(stats.getAverageOpponentPosition(player))
+                .append(",\"highestOpponentDefeated\":");
+        OpponentResults results = stats.getPlayerStats(player);
+        int highestOpponentId = results.getHighestOpponentDefeatedId();
+        if (highestOpponentId != 0) {
+            line.append("{\"id\":").append(highestOpponentId).append(",\"firstName\":");
+            appendJson(history.getFirstName(highestOpponentId));
+            line.append(",\"lastName\":");
+            appendJson(history.getLastName(highestOpponentId));
+            line.append(",\"position\":").append(results.getHighestOpponentDefeated().getSecond()).append('}');
+        } else {
+            line.append("null");
+        }
+
+        line.append(",\"opponents\":[");
+        for (int e = headToHead.firstEntry(id); e != HeadToHead.NONE; e = headToHead.nextEntry(e)) {
+            int opponentId = headToHead.getOpponentId(e);
+            if (e != headToHead.firstEntry(id)) {
+                line.append(',');
+            }
+            line.append("{\"id\":").append(opponentId).append(",\"firstName\":");
+            appendJson(history.getFirstName(opponentId));
+            line.append(",\"lastName\":");
+            appendJson(history.getLastName(opponentId));
+            line.append(",\"wins\":").append(headToHead.getWins(e))
+                    .append(",\"losses\":").append(headToHead.getLosses(e)).append('}');
+            if (line.length() >= FLUSH_AT) {
+                flush(out);
+            }
+        }
+
+        line.append("],\"timeline\":[");
+        if (loadTimeline(stats, player)) {
+            line.append(positions[0]);
+            for (int i = 1; i < numPositions; i++) {
+                line.append(',').append(positions[i]);
+                if (line.length() >= FLUSH_AT) {
+                    flush(out);
+                }
+            }
+            line.append("],\"bestStreak\":[").append(streakStart).append(',').append(streakEnd).append("]}\n");
+        } else {
+            line.append("],\"bestStreak\":null}\n");
+        }
+    }
+
+    /**
+     * Decodes the player's timeline into the shared buffer
+     * @return false if the player hasn't played yet
+     */
+    private boolean loadTimeline(AllPlayerStats stats, Player player) {
+        PositionTimeline timeline = stats.getTimeline(player);
+        if (timeline.size() > positions.length) {
+            positions = new int[Math.max(timeline.size(), positions.length * 2)];
+        }
+        numPositions = timeline.copyTo(positions);
+        streakStart = timeline.getBestStreakStart();
+        streakEnd = timeline.getBestStreakEnd();
+        return numPositions > 0;
+    }
+
+    private void appendCsv(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendJson(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00");
+                        line.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    // copies the row buffer out through a reused char array, no String per row
+    private void flush(Writer out) throws IOException {
+        int length = line.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.report;
+
+public enum ReportFormat {
+    /**
+     * Human readable text, best streak in the position timeline marked with < >
+     */
+    PLAIN,
+    /**
+     * As PLAIN but coloured for a terminal (see Colours), what Ladder.dumpLadder prints
+     */
+    ANSI,
+    /**
+     * One header row then one row per player, no opponent breakdown
+     */
+    CSV,
+    /**
+     * One JSON object per line per player, including the opponent breakdown
+     */
+    JSON_LINES
+}
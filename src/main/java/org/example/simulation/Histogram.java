@@ -0,0 +1,112 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Fixed width buckets from 0 plus running count/mean/variance/min/max, so a distribution
+ * over millions of seasons costs the same small amount of memory as one over ten.
+ * Values past the last bucket are counted in an overflow bucket. Not thread safe, each
+ * worker fills its own and they're merged at the end.
+ */
+public class Histogram {
+    private final double bucketWidth;
+    private final long[] counts;
+    private long overflow = 0;
+    private long count = 0;
+    private double mean = 0;
+    private double sumSquaredDeviations = 0; // Welford, so merging & big counts stay accurate
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public Histogram(double bucketWidth, int numBuckets) {
+        this.bucketWidth = bucketWidth;
+        this.counts = new long[numBuckets];
+    }
+
+    public void add(double value) {
+        int bucket = (int) (Math.max(0, value) / bucketWidth);
+        if (bucket < counts.length) {
+            counts[bucket]++;
+        } else {
+            overflow++;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquaredDeviations += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // adds everything in other to this one, other must have the same buckets
+    public void merge(Histogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        overflow += other.overflow;
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        sumSquaredDeviations += other.sumSquaredDeviations + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : mean;
+    }
+
+    public double getStandardDeviation() {
+        return count < 2 ? 0 : Math.sqrt(sumSquaredDeviations / (count - 1));
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @param fraction eg 0.5 for the median
+     * @return upper edge of the bucket the percentile falls in (max if it's in the overflow)
+     */
+    public double getPercentile(double fraction) {
+        long target = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return Math.min(max, (i + 1) * bucketWidth);
+            }
+        }
+        return max;
+    }
+
+    public double getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public long[] getCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    public long getOverflow() {
+        return overflow;
+    }
+
+    @Override
+    public String toString() {
+        return "n=" + count + " mean=" + getMean() + " sd=" + getStandardDeviation()
+                + " min=" + min + " p50=" + getPercentile(0.5) + " p90=" + getPercentile(0.9) + " max=" + max;
+    }
+}
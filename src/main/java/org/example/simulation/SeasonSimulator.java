@@ -0,0 +1,151 @@
+package org.example.simulation;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs lots of independent seasons, each on its own Ladder, in parallel on a fork/join pool.
+ *
+ * A season starts with numPlayers players in join order (so player id n starts at position n),
+ * then plays matchesPerSeason challenges. Each challenge picks a random player and a random
+ * opponent (anywhere on the ladder, or only up to challengeRange places above if that's set)
+ * and the winner is drawn from the WinProbabilityModel.
+ *
+ * Seasons are split across the pool as a fixed tree and the random streams are split the
+ * same way, so the same seed always gives the same result whatever the pool size. Only the
+ * aggregates are kept, see SimulationResult.
+ *
+ *   SeasonSimulator simulator = new SeasonSimulator(64, 500, WinProbabilityModel.fixed(0.9));
+ *   SimulationResult result = simulator.run(1_000_000, 42);
+ */
+public class SeasonSimulator {
+    private static final int SEASONS_PER_TASK = 64;
+
+    private final int numPlayers;
+    private final int matchesPerSeason;
+    private final WinProbabilityModel model;
+    private int challengeRange = 0;
+    private int trackedStartPosition;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public SeasonSimulator(int numPlayers, int matchesPerSeason, WinProbabilityModel model) {
+        if (numPlayers < 2) {
+            throw new IllegalArgumentException("Need at least 2 players: " + numPlayers);
+        }
+        this.numPlayers = numPlayers;
+        this.matchesPerSeason = matchesPerSeason;
+        this.model = model;
+        this.trackedStartPosition = numPlayers;
+    }
+
+    /**
+     * @param challengeRange how many places above themselves a player can challenge,
+     *                       0 (the default) is anyone on the ladder
+     */
+    public void setChallengeRange(int challengeRange) {
+        this.challengeRange = challengeRange;
+    }
+
+    // whose time to the top is measured, the player starting at the bottom by default
+    public void setTrackedStartPosition(int trackedStartPosition) {
+        this.trackedStartPosition = trackedStartPosition;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public SimulationResult run(long numSeasons, long seed) {
+        return pool.invoke(new SeasonsTask(0, numSeasons, new SplittableRandom(seed)));
+    }
+
+    private class SeasonsTask extends RecursiveTask<SimulationResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        SeasonsTask(long from, long to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (to - from <= SEASONS_PER_TASK) {
+                return runSeasons(to - from, random);
+            }
+            long middle = from + (to - from) / 2;
+            SeasonsTask left = new SeasonsTask(from, middle, random.split());
+            SeasonsTask right = new SeasonsTask(middle, to, random);
+            left.fork();
+            SimulationResult rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
+
+    private SimulationResult runSeasons(long numSeasons, SplittableRandom random) {
+        SimulationResult result = new SimulationResult(numPlayers, matchesPerSeason);
+        Ladder ladder = new Ladder(); // reused, emptying it keeps its arrays
+        List<Player> players = new ArrayList<>(numPlayers);
+        for (long season = 0; season < numSeasons; season++) {
+            ladder.removeAllPlayers();
+            players.clear();
+            for (int position = 1; position <= numPlayers; position++) {
+                players.add(new Player("P" + position, "", position));
+            }
+            ladder.addPlayers(players);
+            playSeason(ladder, random, result);
+        }
+        return result;
+    }
+
+    private void playSeason(Ladder ladder, SplittableRandom random, SimulationResult result) {
+        Player tracked = ladder.getPlayer(trackedStartPosition);
+        int matchesToTop = tracked.getCurrentPosition() == 1 ? 0 : -1;
+        int numMatches = 0;
+        for (int match = 0; match < matchesPerSeason; match++) {
+            int challenger = random.nextInt(numPlayers) + 1;
+            int opponent;
+            if (challengeRange > 0) {
+                if (challenger == 1) {
+                    continue; // nobody above to challenge
+                }
+                opponent = Math.max(1, challenger - 1 - random.nextInt(challengeRange));
+            } else {
+                opponent = random.nextInt(numPlayers) + 1;
+            }
+            if (challenger == opponent) {
+                continue;
+            }
+            int higher = Math.min(challenger, opponent);
+            int lower = Math.max(challenger, opponent);
+            double p = model.higherRankedWins(higher, lower,
+                    ladder.getPlayer(higher).getId(), ladder.getPlayer(lower).getId());
+            if (random.nextDouble() < p) {
+                ladder.matchResult(lower, higher);
+            } else {
+                ladder.matchResult(higher, lower);
+            }
+            numMatches++;
+            if (matchesToTop < 0 && tracked.getCurrentPosition() == 1) {
+                matchesToTop = numMatches;
+            }
+        }
+
+        // ids were given out in starting order, so id == starting position
+        long totalMoved = 0;
+        for (int position = 1; position <= numPlayers; position++) {
+            totalMoved += Math.abs(position - ladder.getPlayer(position).getId());
+        }
+        result.addSeason(numMatches, (double) totalMoved / numPlayers, matchesToTop, ladder.getPlayer(1).getId());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.simulation;
+
+/**
+ * Aggregates over every simulated season, see SeasonSimulator
+ */
+public class SimulationResult {
+    private long numSeasons = 0;
+    private long numMatches = 0;
+    private long neverReachedTop = 0;
+    private final Histogram rankVolatility;
+    private final Histogram timeToTop;
+    private final Histogram winnerStartPosition;
+
+    SimulationResult(int numPlayers, int matchesPerSeason) {
+        rankVolatility = new Histogram(0.25, Math.max(1, numPlayers * 4));
+        timeToTop = new Histogram(Math.max(1, matchesPerSeason / 1000), 1000);
+        winnerStartPosition = new Histogram(1, numPlayers + 1);
+    }
+
+    void addSeason(int numMatches, double volatility, int matchesToTop, int winnerStartedAt) {
+        numSeasons++;
+        this.numMatches += numMatches;
+        rankVolatility.add(volatility);
+        if (matchesToTop < 0) {
+            neverReachedTop++;
+        } else {
+            timeToTop.add(matchesToTop);
+        }
+        winnerStartPosition.add(winnerStartedAt);
+    }
+
+    SimulationResult merge(SimulationResult other) {
+        numSeasons += other.numSeasons;
+        numMatches += other.numMatches;
+        neverReachedTop += other.neverReachedTop;
+        rankVolatility.merge(other.rankVolatility);
+        timeToTop.merge(other.timeToTop);
+        winnerStartPosition.merge(other.winnerStartPosition);
+        return this;
+    }
+
+    public long getNumSeasons() {
+        return numSeasons;
+    }
+
+    // matches actually played, ie not counting picks of a player against themselves
+    public long getNumMatches() {
+        return numMatches;
+    }
+
+    /**
+     * Per season, the average number of places each player ended up from where they started
+     */
+    public Histogram getRankVolatility() {
+        return rankVolatility;
+    }
+
+    /**
+     * Number of matches into the season before the tracked player first reached the top,
+     * only for seasons where they got there
+     */
+    public Histogram getTimeToTop() {
+        return timeToTop;
+    }
+
+    // seasons where the tracked player never made it to the top
+    public long getNeverReachedTop() {
+        return neverReachedTop;
+    }
+
+    // where the player finishing top started the season
+    public Histogram getWinnerStartPosition() {
+        return winnerStartPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "seasons=" + numSeasons + " matches=" + numMatches
+                + "\nrankVolatility: " + rankVolatility
+                + "\ntimeToTop: " + timeToTop + " (never: " + neverReachedTop + ")"
+                + "\nwinnerStartPosition: " + winnerStartPosition;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.simulation;
+
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+
+/**
+ * Chance that the higher ranked of two players wins their match. Called from many
+ * threads at once so implementations must be stateless (or thread safe).
+ */
+public interface WinProbabilityModel {
+
+    /**
+     * @param higherPosition position of the higher ranked player (the smaller number)
+     * @param lowerPosition position of the lower ranked player
+     * @param higherId player ids, for models that know something about the players
+     * @param lowerId
+     * @return probability between 0 and 1 that the higher ranked player wins
+     */
+    double higherRankedWins(int higherPosition, int lowerPosition, int higherId, int lowerId);
+
+    /**
+     * Same chance whoever is playing, fixed(0.9) is what LadderAppTest.challengeMatchTest_6 uses
+     */
+    static WinProbabilityModel fixed(double probability) {
+        return (higherPosition, lowerPosition, higherId, lowerId) -> probability;
+    }
+
+    /**
+     * The further apart the two players are the more likely the higher one wins, a logistic
+     * curve that starts at evenProbability for neighbours and rises with the gap
+     * @param evenProbability chance the higher of two neighbours wins, eg 0.55
+     * @param placesPerDoubling gap at which the odds of the higher player winning have doubled
+     */
+    static WinProbabilityModel byRankGap(double evenProbability, double placesPerDoubling) {
+        double baseLogOdds = Math.log(evenProbability / (1 - evenProbability));
+        double perPlace = Math.log(2) / placesPerDoubling;
+        return (higherPosition, lowerPosition, higherId, lowerId) -> {
+            double logOdds = baseLogOdds + perPlace * (lowerPosition - higherPosition - 1);
+            return 1 / (1 + Math.exp(-logOdds));
+        };
+    }
+
+    /**
+     * Each player has a fixed (hidden) Elo style rating, the chance of winning comes from
+     * the rating difference and not where they happen to be on the ladder
+     * @param ratingsById rating for each player id, see SeasonSimulator for how ids are given out
+     */
+    static WinProbabilityModel byRating(double[] ratingsById) {
+        double[] ratings = ratingsById.clone();
+        return (higherPosition, lowerPosition, higherId, lowerId) ->
+                1 / (1 + Math.pow(10, (ratings[lowerId] - ratings[higherId]) / 400));
+    }
+
+    /**
+     * byRating with the Elo ratings the players on a real ladder have now, so seasons start
+     * from today's standings and play out by today's ratings. Simulated player n is whoever
+     * is at position n on the ladder when this is called
+     */
+    static WinProbabilityModel byRating(Ladder ladder) {
+        double[] ratings = new double[ladder.getNumPlayers() + 1];
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        ladder.forEachPlayer(1, ratings.length - 1,
+                player -> ratings[player.getCurrentPosition()] = stats.getEloRating(player));
+        return byRating(ratings);
+    }
+}
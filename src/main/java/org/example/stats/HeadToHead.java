@@ -0,0 +1,259 @@
+package org.example.stats;
+
+import org.example.MatchStatus;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Win/loss counts for every pairing of players that has actually been played.
+ *
+ * Each pairing is one slot in a set of parallel arrays, keyed on (lower id, higher id), with
+ * the lower id's wins and losses packed into a single long, so recording a match is one
+ * lookup for both players. An open addressing table on the key finds a pairing in O(1).
+ *
+ * Callers see entries, a pairing from one player's point of view: entry 2 * pairing is the
+ * lower id's side (vs the higher id), 2 * pairing + 1 the higher id's. Each player's entries
+ * are chained together in the order the opponents were first played so a full breakdown
+ * only costs as much as the number of distinct opponents.
+ */
+public class HeadToHead {
+    public static final int NONE = -1;
+
+    private long[] pairKeys = new long[64];   // lower id in the high int, higher id in the low int
+    private long[] pairCounts = new long[64]; // lower id's wins in the high int, losses in the low int
+    private int[] entryNext = new int[128];   // per entry, next entry for the same player, NONE at the end
+    private int numPairs = 0;
+
+    // open addressing table, slot i is key at [2i] and pairing index + 1 at [2i+1] (0 == empty),
+    // keeping the key next to the pairing means a lookup only touches one cache line
+    private long[] table = new long[2 * 128];
+
+    // per player id, first & last entry of their chain
+    private int[] firstEntry = new int[16];
+    private int[] lastEntry = new int[16];
+
+    public HeadToHead() {
+        Arrays.fill(firstEntry, NONE);
+        Arrays.fill(lastEntry, NONE);
+    }
+
+    /**
+     * Counts a match for both players, status is the player's. Only VICTORY and DEFEAT are
+     * counted, any other status is ignored
+     */
+    public void record(int playerId, int opponentId, MatchStatus status) {
+        boolean playerIsLower = playerId <= opponentId;
+        long delta;
+        if (status == MatchStatus.VICTORY) {
+            delta = playerIsLower ? 1L << 32 : 1L;
+        } else if (status == MatchStatus.DEFEAT) {
+            delta = playerIsLower ? 1L : 1L << 32;
+        } else {
+            return;
+        }
+        int pair = playerIsLower ? findOrAdd(playerId, opponentId) : findOrAdd(opponentId, playerId);
+        pairCounts[pair] += delta;
+    }
+
+    /**
+     * Make room for this many more pairings up front, so recording them doesn't have to grow
+     * (or rehash) anything
+     */
+    public void reserve(int extraPairs) {
+        int needed = numPairs + extraPairs;
+        if (needed > pairKeys.length) {
+            growPairs(needed);
+        }
+        int numSlots = table.length / 2;
+        while (needed > numSlots / 4) {
+            numSlots *= 2;
+        }
+        if (numSlots != table.length / 2) {
+            rehash(numSlots);
+        }
+    }
+
+    // make room for the player's chain, so their first pairing doesn't have to grow anything
+    public void reservePlayer(int playerId) {
+        ensurePlayerCapacity(playerId);
+    }
+
+    // number of pairings played
+    public int size() {
+        return numPairs;
+    }
+
+    public int getWins(int playerId, int opponentId) {
+        int entry = find(playerId, opponentId);
+        return entry == NONE ? 0 : getWins(entry);
+    }
+
+    public int getLosses(int playerId, int opponentId) {
+        int entry = find(playerId, opponentId);
+        return entry == NONE ? 0 : getLosses(entry);
+    }
+
+    /**
+     * Walk a player's opponents with firstEntry(playerId) then nextEntry(entry) until NONE
+     */
+    public int firstEntry(int playerId) {
+        return playerId < firstEntry.length ? firstEntry[playerId] : NONE;
+    }
+
+    public int nextEntry(int entry) {
+        return entryNext[entry];
+    }
+
+    public int getOpponentId(int entry) {
+        long key = pairKeys[entry >> 1];
+        return (entry & 1) == 0 ? (int) key : (int) (key >>> 32);
+    }
+
+    public int getWins(int entry) {
+        long counts = pairCounts[entry >> 1];
+        return (entry & 1) == 0 ? (int) (counts >>> 32) : (int) counts;
+    }
+
+    public int getLosses(int entry) {
+        long counts = pairCounts[entry >> 1];
+        return (entry & 1) == 0 ? (int) counts : (int) (counts >>> 32);
+    }
+
+    public void clear() {
+        numPairs = 0;
+        Arrays.fill(table, 0);
+        Arrays.fill(firstEntry, NONE);
+        Arrays.fill(lastEntry, NONE);
+    }
+
+    // the hash table is saved as well so loading is a straight copy rather than a rehash
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(numPairs);
+        out.putLongs(pairKeys, numPairs);
+        out.putLongs(pairCounts, numPairs);
+        out.putInts(entryNext, 2 * numPairs);
+        out.putInt(firstEntry.length);
+        out.putInts(firstEntry, firstEntry.length);
+        out.putInts(lastEntry, lastEntry.length);
+        out.putInt(table.length);
+        out.putLongs(table, table.length);
+    }
+
+    public void readFrom(SnapshotReader in) throws IOException {
+        numPairs = in.getInt();
+        int capacity = Math.max(64, numPairs);
+        pairKeys = new long[capacity];
+        pairCounts = new long[capacity];
+        entryNext = new int[2 * capacity];
+        in.getLongs(pairKeys, numPairs);
+        in.getLongs(pairCounts, numPairs);
+        in.getInts(entryNext, 2 * numPairs);
+        int numIds = in.getInt();
+        firstEntry = new int[numIds];
+        lastEntry = new int[numIds];
+        in.getInts(firstEntry, numIds);
+        in.getInts(lastEntry, numIds);
+        table = new long[in.getInt()];
+        in.getLongs(table, table.length);
+    }
+
+    // the player's entry for the pairing, NONE if they haven't played
+    private int find(int playerId, int opponentId) {
+        boolean playerIsLower = playerId <= opponentId;
+        long key = playerIsLower ? key(playerId, opponentId) : key(opponentId, playerId);
+        int mask = table.length / 2 - 1;
+        for (int slot = hash(key) & mask; table[2 * slot + 1] != 0; slot = (slot + 1) & mask) {
+            if (table[2 * slot] == key) {
+                int pair = (int) table[2 * slot + 1] - 1;
+                return playerIsLower ? 2 * pair : 2 * pair + 1;
+            }
+        }
+        return NONE;
+    }
+
+    // the pairing of lowerId & higherId, added (and chained for both) if it's new
+    private int findOrAdd(int lowerId, int higherId) {
+        long key = key(lowerId, higherId);
+        int mask = table.length / 2 - 1;
+        int slot = hash(key) & mask;
+        for (; table[2 * slot + 1] != 0; slot = (slot + 1) & mask) {
+            if (table[2 * slot] == key) {
+                return (int) table[2 * slot + 1] - 1;
+            }
+        }
+
+        // new pairing
+        if (numPairs == pairKeys.length) {
+            growPairs(pairKeys.length * 2);
+        }
+        int pair = numPairs++;
+        pairKeys[pair] = key;
+        pairCounts[pair] = 0;
+        table[2 * slot] = key;
+        table[2 * slot + 1] = pair + 1;
+        link(lowerId, 2 * pair);
+        if (higherId != lowerId) {
+            link(higherId, 2 * pair + 1);
+        } else {
+            entryNext[2 * pair + 1] = NONE; // a player against themselves only has the one side
+        }
+
+        if (numPairs > table.length / 4) {
+            rehash(table.length); // ie double the number of slots
+        }
+        return pair;
+    }
+
+    private void link(int playerId, int entry) {
+        ensurePlayerCapacity(playerId);
+        entryNext[entry] = NONE;
+        if (firstEntry[playerId] == NONE) {
+            firstEntry[playerId] = entry;
+        } else {
+            entryNext[lastEntry[playerId]] = entry;
+        }
+        lastEntry[playerId] = entry;
+    }
+
+    private void growPairs(int capacity) {
+        pairKeys = Arrays.copyOf(pairKeys, capacity);
+        pairCounts = Arrays.copyOf(pairCounts, capacity);
+        entryNext = Arrays.copyOf(entryNext, 2 * capacity);
+    }
+
+    private void ensurePlayerCapacity(int playerId) {
+        if (playerId >= firstEntry.length) {
+            int oldLength = firstEntry.length;
+            int capacity = Math.max(playerId + 1, oldLength * 2);
+            firstEntry = Arrays.copyOf(firstEntry, capacity);
+            lastEntry = Arrays.copyOf(lastEntry, capacity);
+            Arrays.fill(firstEntry, oldLength, capacity, NONE);
+            Arrays.fill(lastEntry, oldLength, capacity, NONE);
+        }
+    }
+
+    private void rehash(int numSlots) {
+        table = new long[2 * numSlots];
+        int mask = numSlots - 1;
+        for (int pair = 0; pair < numPairs; pair++) {
+            int slot = hash(pairKeys[pair]) & mask;
+            while (table[2 * slot + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[2 * slot] = pairKeys[pair];
+            table[2 * slot + 1] = pair + 1;
+        }
+    }
+
+    private static long key(int lowerId, int higherId) {
+        return ((long) lowerId << 32) | (higherId & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,304 @@
+package org.example.stats;
+
+import org.example.MatchStatus;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Append-only, column oriented log of every match played.
+ *
+ * One match is one row across a set of parallel primitive arrays, recorded from the
+ * "player" side (eg the winner with VICTORY); the opponent's view is the same row with the
+ * status flipped. Names are held once per player id in a small dictionary instead of being
+ * copied into every result.
+ *
+ * Each row is also chained into both players' own histories (nextForPlayer/nextForOpponent)
+ * so walking one player's matches doesn't mean scanning everyone else's.
+ *
+ * Rows are timestamped (epoch millis) and timestamps never go backwards, so the rows played
+ * in any time range are found with a binary search, see firstRowAtOrAfter.
+ */
+public class MatchHistory {
+    public static final int NONE = -1;
+
+    private static final MatchStatus[] STATUSES = MatchStatus.values();
+
+    private int[] playerIds = new int[64];
+    private int[] opponentIds = new int[64];
+    private byte[] statuses = new byte[64];
+    private int[] playerPreviousPositions = new int[64];
+    private int[] playerCurrentPositions = new int[64];
+    private int[] opponentPreviousPositions = new int[64];
+    private int[] opponentCurrentPositions = new int[64];
+    private int[] nextForPlayer = new int[64];
+    private int[] nextForOpponent = new int[64];
+    private long[] timestamps = new long[64];
+    private int numRows = 0;
+
+    // per player id
+    private String[] firstNames = new String[16];
+    private String[] lastNames = new String[16];
+    private int[] firstRows = new int[16];
+    private int[] lastRows = new int[16];
+    // which side of their last row the player was on, so chaining the next row doesn't have
+    // to go back and read an old row - a cache miss on every match once the history is big
+    private boolean[] lastRowAsOpponent = new boolean[16];
+
+    public MatchHistory() {
+        Arrays.fill(firstRows, NONE);
+        Arrays.fill(lastRows, NONE);
+    }
+
+    /**
+     * Add a player's names to the dictionary, names stay after the player leaves the
+     * ladder so old results can still be shown
+     */
+    public void registerPlayer(int playerId, String firstName, String lastName) {
+        ensurePlayerCapacity(playerId);
+        firstNames[playerId] = firstName;
+        lastNames[playerId] = lastName;
+        firstRows[playerId] = NONE;
+        lastRows[playerId] = NONE;
+    }
+
+    /**
+     * Appends one row for a match, positions are as they stand after the match
+     * @param timestamp epoch millis, no earlier than the last row's
+     * @return the row number
+     */
+    public int record(int playerId, int opponentId, MatchStatus status,
+                      int playerPreviousPosition, int playerCurrentPosition,
+                      int opponentPreviousPosition, int opponentCurrentPosition, long timestamp) {
+        if (numRows == playerIds.length) {
+            grow(numRows * 2);
+        }
+        int row = numRows++;
+        playerIds[row] = playerId;
+        opponentIds[row] = opponentId;
+        statuses[row] = (byte) status.ordinal();
+        playerPreviousPositions[row] = playerPreviousPosition;
+        playerCurrentPositions[row] = playerCurrentPosition;
+        opponentPreviousPositions[row] = opponentPreviousPosition;
+        opponentCurrentPositions[row] = opponentCurrentPosition;
+        nextForPlayer[row] = NONE;
+        nextForOpponent[row] = NONE;
+        timestamps[row] = timestamp;
+
+        link(playerId, row, false);
+        if (opponentId != playerId) {
+            link(opponentId, row, true);
+        }
+        return row;
+    }
+
+    public int size() {
+        return numRows;
+    }
+
+    // make room for this many more rows up front, eg before a batch of results
+    public void reserve(int extraRows) {
+        if (numRows + extraRows > playerIds.length) {
+            grow(Math.max(numRows + extraRows, playerIds.length * 2));
+        }
+    }
+
+    public void clear() {
+        numRows = 0;
+        Arrays.fill(firstNames, null);
+        Arrays.fill(lastNames, null);
+        Arrays.fill(firstRows, NONE);
+        Arrays.fill(lastRows, NONE);
+    }
+
+    /**
+     * Walk a player's matches in the order played with firstRow(id) then nextRow(row, id)
+     * until NONE
+     */
+    public int firstRow(int playerId) {
+        return playerId < firstRows.length ? firstRows[playerId] : NONE;
+    }
+
+    // the player the row was recorded against, see record
+    public int getPlayerId(int row) {
+        return playerIds[row];
+    }
+
+    // ids below this have a slot in the dictionary
+    public int getPlayerCapacity() {
+        return firstRows.length;
+    }
+
+    // when the match was recorded, epoch millis (0 if loaded from a snapshot from before timestamps)
+    public long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * @return the first row recorded at or after epochMillis, or size() if there's none,
+     * so the rows from a time range [from, to) are firstRowAtOrAfter(from) up to firstRowAtOrAfter(to)
+     */
+    public int firstRowAtOrAfter(long epochMillis) {
+        int low = 0;
+        int high = numRows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int nextRow(int row, int playerId) {
+        return playerIds[row] == playerId ? nextForPlayer[row] : nextForOpponent[row];
+    }
+
+    // -- a row seen from one of the two players in it --
+
+    public int getOpponentId(int row, int playerId) {
+        return playerIds[row] == playerId ? opponentIds[row] : playerIds[row];
+    }
+
+    public MatchStatus getStatus(int row, int playerId) {
+        MatchStatus status = STATUSES[statuses[row]];
+        return playerIds[row] == playerId ? status : status.opposite();
+    }
+
+    public int getMyPreviousPosition(int row, int playerId) {
+        return playerIds[row] == playerId ? playerPreviousPositions[row] : opponentPreviousPositions[row];
+    }
+
+    public int getMyCurrentPosition(int row, int playerId) {
+        return playerIds[row] == playerId ? playerCurrentPositions[row] : opponentCurrentPositions[row];
+    }
+
+    public int getOpponentPreviousPosition(int row, int playerId) {
+        return playerIds[row] == playerId ? opponentPreviousPositions[row] : playerPreviousPositions[row];
+    }
+
+    public int getOpponentCurrentPosition(int row, int playerId) {
+        return playerIds[row] == playerId ? opponentCurrentPositions[row] : playerCurrentPositions[row];
+    }
+
+    /**
+     * Builds a standalone OpponentResult for a row, only for callers that want objects
+     */
+    public OpponentResult getResult(int row, int playerId) {
+        int opponentId = getOpponentId(row, playerId);
+        return new OpponentResult(opponentId, firstNames[opponentId], lastNames[opponentId],
+                getStatus(row, playerId),
+                getOpponentPreviousPosition(row, playerId), getOpponentCurrentPosition(row, playerId),
+                getMyPreviousPosition(row, playerId), getMyCurrentPosition(row, playerId),
+                Instant.ofEpochMilli(timestamps[row]));
+    }
+
+    public String getFirstName(int playerId) {
+        return firstNames[playerId];
+    }
+
+    public String getLastName(int playerId) {
+        return lastNames[playerId];
+    }
+
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(numRows);
+        out.putInts(playerIds, numRows);
+        out.putInts(opponentIds, numRows);
+        out.putBytes(statuses, numRows);
+        out.putInts(playerPreviousPositions, numRows);
+        out.putInts(playerCurrentPositions, numRows);
+        out.putInts(opponentPreviousPositions, numRows);
+        out.putInts(opponentCurrentPositions, numRows);
+        out.putInts(nextForPlayer, numRows);
+        out.putInts(nextForOpponent, numRows);
+        out.putLongs(timestamps, numRows);
+
+        int numIds = firstRows.length;
+        out.putInt(numIds);
+        for (int id = 0; id < numIds; id++) {
+            out.putString(firstNames[id]);
+            out.putString(lastNames[id]);
+        }
+        out.putInts(firstRows, numIds);
+        out.putInts(lastRows, numIds);
+    }
+
+    public void readFrom(SnapshotReader in) throws IOException {
+        numRows = in.getInt();
+        grow(Math.max(64, numRows));
+        in.getInts(playerIds, numRows);
+        in.getInts(opponentIds, numRows);
+        in.getBytes(statuses, numRows);
+        in.getInts(playerPreviousPositions, numRows);
+        in.getInts(playerCurrentPositions, numRows);
+        in.getInts(opponentPreviousPositions, numRows);
+        in.getInts(opponentCurrentPositions, numRows);
+        in.getInts(nextForPlayer, numRows);
+        in.getInts(nextForOpponent, numRows);
+        in.getLongs(timestamps, numRows);
+
+        int numIds = in.getInt();
+        firstNames = new String[numIds];
+        lastNames = new String[numIds];
+        for (int id = 0; id < numIds; id++) {
+            firstNames[id] = in.getString();
+            lastNames[id] = in.getString();
+        }
+        firstRows = new int[numIds];
+        lastRows = new int[numIds];
+        in.getInts(firstRows, numIds);
+        in.getInts(lastRows, numIds);
+        lastRowAsOpponent = new boolean[numIds];
+        for (int id = 0; id < numIds; id++) {
+            lastRowAsOpponent[id] = lastRows[id] != NONE && playerIds[lastRows[id]] != id;
+        }
+    }
+
+    private void link(int playerId, int row, boolean asOpponent) {
+        ensurePlayerCapacity(playerId);
+        int last = lastRows[playerId];
+        if (last == NONE) {
+            firstRows[playerId] = row;
+        } else if (lastRowAsOpponent[playerId]) {
+            nextForOpponent[last] = row;
+        } else {
+            nextForPlayer[last] = row;
+        }
+        lastRows[playerId] = row;
+        lastRowAsOpponent[playerId] = asOpponent;
+    }
+
+    private void grow(int capacity) {
+        playerIds = Arrays.copyOf(playerIds, capacity);
+        opponentIds = Arrays.copyOf(opponentIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        playerPreviousPositions = Arrays.copyOf(playerPreviousPositions, capacity);
+        playerCurrentPositions = Arrays.copyOf(playerCurrentPositions, capacity);
+        opponentPreviousPositions = Arrays.copyOf(opponentPreviousPositions, capacity);
+        opponentCurrentPositions = Arrays.copyOf(opponentCurrentPositions, capacity);
+        nextForPlayer = Arrays.copyOf(nextForPlayer, capacity);
+        nextForOpponent = Arrays.copyOf(nextForOpponent, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+
+    private void ensurePlayerCapacity(int playerId) {
+        if (playerId < firstRows.length) {
+            return;
+        }
+        int oldLength = firstRows.length;
+        int capacity = Math.max(playerId + 1, oldLength * 2);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        firstRows = Arrays.copyOf(firstRows, capacity);
+        lastRows = Arrays.copyOf(lastRows, capacity);
+        lastRowAsOpponent = Arrays.copyOf(lastRowAsOpponent, capacity);
+        Arrays.fill(firstRows, oldLength, capacity, NONE);
+        Arrays.fill(lastRows, oldLength, capacity, NONE);
+    }
+}
@@ -1,10 +1,13 @@
 package org.example.stats;
 
 import org.example.MatchStatus;
-import org.example.component.Player;
 
-//import java.time.Instant;
+import java.time.Instant;
 
+/**
+ * One match seen from one player's side. These are no longer stored, the match history
+ * keeps results as rows (see MatchHistory) and builds one of these when asked for it
+ */
 public class OpponentResult {
 
     /**
@@ -12,23 +15,33 @@ public class OpponentResult {
      * ever deleted from ladder then the stats woulld be out of sync
      * => ok to store opponents attributes (name, position etc)
      */
+    private final int opponentId;
     private final String opponentFirstName;
     private final String opponentLastName;
-    //private final Instant instant = Instant.now();
+    private final Instant instant; // when the match was recorded
     private final MatchStatus status;
-    private int opponentPreviousPosition;
-    private int opponentCurrentPosition;
-    private int myPreviousPosition;
-    private int myCurrentPosition;
-
-    public OpponentResult(Player player, Player opponent, MatchStatus status) {
-        opponentFirstName = opponent.getFirstName();
-        opponentLastName = opponent.getLastName();
+    private final int opponentPreviousPosition;
+    private final int opponentCurrentPosition;
+    private final int myPreviousPosition;
+    private final int myCurrentPosition;
+
+    public OpponentResult(int opponentId, String opponentFirstName, String opponentLastName,
+                          MatchStatus status,
+                          int opponentPreviousPosition, int opponentCurrentPosition,
+                          int myPreviousPosition, int myCurrentPosition, Instant instant) {
+        this.opponentId = opponentId;
+        this.opponentFirstName = opponentFirstName;
+        this.opponentLastName = opponentLastName;
         this.status = status;
-        opponentPreviousPosition = opponent.getPreviousPosition();
-        opponentCurrentPosition = opponent.getCurrentPosition();
-        myPreviousPosition = player.getPreviousPosition();
-        myCurrentPosition = player.getCurrentPosition();
+        this.opponentPreviousPosition = opponentPreviousPosition;
+        this.opponentCurrentPosition = opponentCurrentPosition;
+        this.myPreviousPosition = myPreviousPosition;
+        this.myCurrentPosition = myCurrentPosition;
+        this.instant = instant;
+    }
+
+    public int getOpponentId() {
+        return opponentId;
     }
 
     public String getOpponentFirstName() {
@@ -39,6 +52,10 @@ public class OpponentResult {
         return opponentLastName;
     }
 
+    public Instant getInstant() {
+        return instant;
+    }
+
     public MatchStatus getStatus() {
         return status;
     }
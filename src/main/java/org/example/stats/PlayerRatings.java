@@ -0,0 +1,293 @@
+package org.example.stats;
+
+import org.example.MatchStatus;
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Elo and Glicko-2 ratings for every player, one slot per player id in plain double arrays.
+ *
+ * Both are updated as each match is recorded, a constant amount of work per match. Glicko-2
+ * is really meant to be run over rating periods, here every match is its own period, which
+ * is the usual way of running it live.
+ *
+ * Only VICTORY and DEFEAT change ratings, defaults (walkovers) and a player against
+ * themselves don't.
+ */
+public class PlayerRatings {
+    private static final double GLICKO_SCALE = 173.7178;
+    private static final double CONVERGENCE = 0.000001;
+    private static final int MAX_ITERATIONS = 100; // the volatility search converges long before this
+
+    private final RatingSettings settings;
+    private double[] elo = new double[0];
+    private double[] glickoRating = new double[0];
+    private double[] glickoDeviation = new double[0];
+    private double[] glickoVolatility = new double[0];
+
+    public PlayerRatings(RatingSettings settings) {
+        this.settings = settings;
+        ensureCapacity(16);
+    }
+
+    public RatingSettings getSettings() {
+        return settings;
+    }
+
+    // a new player (or a reused id) starts from the initial ratings
+    public void registerPlayer(int playerId) {
+        ensureCapacity(playerId + 1);
+        reset(playerId);
+    }
+
+    public void record(int winnerId, int loserId) {
+        if (winnerId == loserId) {
+            return;
+        }
+        ensureCapacity(Math.max(winnerId, loserId) + 1);
+        updateElo(winnerId, loserId);
+        updateGlicko(winnerId, loserId);
+    }
+
+    public double getElo(int playerId) {
+        return playerId < elo.length ? elo[playerId] : settings.getEloInitial();
+    }
+
+    public double getGlickoRating(int playerId) {
+        return playerId < glickoRating.length ? glickoRating[playerId] : settings.getGlickoInitial();
+    }
+
+    public double getGlickoDeviation(int playerId) {
+        return playerId < glickoDeviation.length ? glickoDeviation[playerId] : settings.getGlickoDeviation();
+    }
+
+    public double getGlickoVolatility(int playerId) {
+        return playerId < glickoVolatility.length ? glickoVolatility[playerId] : settings.getGlickoVolatility();
+    }
+
+    /**
+     * Chance of the player beating the opponent going by their Elo ratings
+     */
+    public double getEloWinProbability(int playerId, int opponentId) {
+        return eloExpected(getElo(playerId), getElo(opponentId));
+    }
+
+    /**
+     * Chance of the player beating the opponent going by Glicko-2, allowing for how unsure
+     * both ratings are
+     */
+    public double getGlickoWinProbability(int playerId, int opponentId) {
+        double mu = (getGlickoRating(playerId) - 1500) / GLICKO_SCALE;
+        double muOpponent = (getGlickoRating(opponentId) - 1500) / GLICKO_SCALE;
+        double phi = getGlickoDeviation(playerId) / GLICKO_SCALE;
+        double phiOpponent = getGlickoDeviation(opponentId) / GLICKO_SCALE;
+        return 1 / (1 + Math.exp(-g(Math.sqrt(phi * phi + phiOpponent * phiOpponent)) * (mu - muOpponent)));
+    }
+
+    public void clear() {
+        Arrays.fill(elo, settings.getEloInitial());
+        Arrays.fill(glickoRating, settings.getGlickoInitial());
+        Arrays.fill(glickoDeviation, settings.getGlickoDeviation());
+        Arrays.fill(glickoVolatility, settings.getGlickoVolatility());
+    }
+
+    /**
+     * Works out everyone's ratings from scratch under the given settings by replaying the
+     * history, eg after the rules change. Each replay has to go through the matches in
+     * order, so Elo and Glicko-2 are replayed side by side rather than splitting the history.
+     */
+    public static PlayerRatings replay(MatchHistory history, RatingSettings settings) {
+        PlayerRatings ratings = new PlayerRatings(settings);
+        ratings.ensureCapacity(history.getPlayerCapacity());
+        CompletableFuture<Void> glicko = CompletableFuture.runAsync(() -> {
+            for (int row = 0, n = history.size(); row < n; row++) {
+                int winner = winnerOf(history, row);
+                int loser = winner == 0 ? 0 : history.getOpponentId(row, winner);
+                if (winner != 0 && winner != loser) {
+                    ratings.updateGlicko(winner, loser);
+                }
+            }
+        });
+        for (int row = 0, n = history.size(); row < n; row++) {
+            int winner = winnerOf(history, row);
+            int loser = winner == 0 ? 0 : history.getOpponentId(row, winner);
+            if (winner != 0 && winner != loser) {
+                ratings.updateElo(winner, loser);
+            }
+        }
+        glicko.join();
+        return ratings;
+    }
+
+    /**
+     * Replays the history once per candidate set of settings, all in parallel, for comparing
+     * rule changes before picking one
+     */
+    public static List<PlayerRatings> replay(MatchHistory history, List<RatingSettings> candidates) {
+        List<CompletableFuture<PlayerRatings>> replays = new ArrayList<>();
+        for (RatingSettings settings : candidates) {
+            replays.add(CompletableFuture.supplyAsync(() -> replay(history, settings)));
+        }
+        List<PlayerRatings> results = new ArrayList<>();
+        for (CompletableFuture<PlayerRatings> replay : replays) {
+            results.add(replay.join());
+        }
+        return results;
+    }
+
+    public void writeTo(SnapshotWriter out) throws IOException {
+        int length = elo.length;
+        out.putInt(length);
+        out.putDoubles(elo, length);
+        out.putDoubles(glickoRating, length);
+        out.putDoubles(glickoDeviation, length);
+        out.putDoubles(glickoVolatility, length);
+    }
+
+    public void readFrom(SnapshotReader in) throws IOException {
+        int length = in.getInt();
+        elo = new double[length];
+        glickoRating = new double[length];
+        glickoDeviation = new double[length];
+        glickoVolatility = new double[length];
+        in.getDoubles(elo, length);
+        in.getDoubles(glickoRating, length);
+        in.getDoubles(glickoDeviation, length);
+        in.getDoubles(glickoVolatility, length);
+    }
+
+    // 0 if the row doesn't count towards ratings
+    private static int winnerOf(MatchHistory history, int row) {
+        int playerId = history.getPlayerId(row);
+        MatchStatus status = history.getStatus(row, playerId);
+        if (status == MatchStatus.VICTORY) {
+            return playerId;
+        }
+        if (status == MatchStatus.DEFEAT) {
+            return history.getOpponentId(row, playerId);
+        }
+        return 0;
+    }
+
+    private void updateElo(int winnerId, int loserId) {
+        double change = settings.getEloK() * (1 - eloExpected(elo[winnerId], elo[loserId]));
+        elo[winnerId] += change;
+        elo[loserId] -= change;
+    }
+
+    private static double eloExpected(double rating, double opponentRating) {
+        return 1 / (1 + Math.pow(10, (opponentRating - rating) / 400));
+    }
+
+    private void updateGlicko(int winnerId, int loserId) {
+        // both sides are worked out from the ratings as they were before the match
+        double winnerRating = glickoRating[winnerId];
+        double winnerDeviation = glickoDeviation[winnerId];
+        double loserRating = glickoRating[loserId];
+        double loserDeviation = glickoDeviation[loserId];
+        updateGlicko(winnerId, 1, loserRating, loserDeviation);
+        updateGlicko(loserId, 0, winnerRating, winnerDeviation);
+    }
+
+    // one Glicko-2 rating period with a single game, see Glickman's "Example of the Glicko-2 system"
+    private void updateGlicko(int id, double score, double opponentRating, double opponentDeviation) {
+        double mu = (glickoRating[id] - 1500) / GLICKO_SCALE;
+        double phi = glickoDeviation[id] / GLICKO_SCALE;
+        double sigma = glickoVolatility[id];
+        double muOpponent = (opponentRating - 1500) / GLICKO_SCALE;
+        double g = g(opponentDeviation / GLICKO_SCALE);
+
+        double expected = 1 / (1 + Math.exp(-g * (mu - muOpponent)));
+        double v = 1 / (g * g * expected * (1 - expected));
+        double delta = v * g * (score - expected);
+
+        // new volatility, Illinois algorithm. Each point is carried with its e^x, the start's is
+        // just sigma^2 and the end's gives the new sigma, which saves most of the exp & log calls
+        double tau = settings.getGlickoTau();
+        double exA = sigma * sigma;
+        double a = Math.log(exA);
+        double phi2 = phi * phi;
+        double A = a;
+        double fA = volatilityF(A, exA, delta, phi2, v, a, tau);
+        double B;
+        double exB;
+        double fB;
+        if (delta * delta > phi2 + v) {
+            exB = delta * delta - phi2 - v;
+            B = Math.log(exB);
+            fB = volatilityF(B, exB, delta, phi2, v, a, tau);
+        } else {
+            int k = 1;
+            exB = Math.exp(a - tau);
+            fB = volatilityF(a - tau, exB, delta, phi2, v, a, tau);
+            while (fB < 0 && k < MAX_ITERATIONS) {
+                k++;
+                exB = Math.exp(a - k * tau);
+                fB = volatilityF(a - k * tau, exB, delta, phi2, v, a, tau);
+            }
+            B = a - k * tau;
+        }
+        for (int i = 0; Math.abs(B - A) > CONVERGENCE && i < MAX_ITERATIONS; i++) {
+            double C = A + (A - B) * fA / (fB - fA);
+            double exC = Math.exp(C);
+            double fC = volatilityF(C, exC, delta, phi2, v, a, tau);
+            if (fC * fB <= 0) {
+                A = B;
+                exA = exB;
+                fA = fB;
+            } else {
+                fA = fA / 2;
+            }
+            B = C;
+            exB = exC;
+            fB = fC;
+        }
+        double newSigma = Math.sqrt(exA); // ie e^(A/2)
+
+        double phiStar = Math.sqrt(phi2 + exA);
+        double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+        double newMu = mu + newPhi * newPhi * g * (score - expected);
+
+        glickoRating[id] = newMu * GLICKO_SCALE + 1500;
+        glickoDeviation[id] = newPhi * GLICKO_SCALE;
+        glickoVolatility[id] = newSigma;
+    }
+
+    // ex is e^x
+    private static double volatilityF(double x, double ex, double delta, double phi2, double v, double a, double tau) {
+        double d = phi2 + v + ex;
+        return ex * (delta * delta - phi2 - v - ex) / (2 * d * d) - (x - a) / (tau * tau);
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    private void reset(int id) {
+        elo[id] = settings.getEloInitial();
+        glickoRating[id] = settings.getGlickoInitial();
+        glickoDeviation[id] = settings.getGlickoDeviation();
+        glickoVolatility[id] = settings.getGlickoVolatility();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= elo.length) {
+            return;
+        }
+        int oldLength = elo.length;
+        int newLength = Math.max(capacity, oldLength * 2);
+        elo = Arrays.copyOf(elo, newLength);
+        glickoRating = Arrays.copyOf(glickoRating, newLength);
+        glickoDeviation = Arrays.copyOf(glickoDeviation, newLength);
+        glickoVolatility = Arrays.copyOf(glickoVolatility, newLength);
+        for (int id = oldLength; id < newLength; id++) {
+            reset(id);
+        }
+    }
+}
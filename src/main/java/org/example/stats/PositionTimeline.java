@@ -0,0 +1,173 @@
+package org.example.stats;
+
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One player's ladder position after each of their matches (plus where they started),
+ * appended to as results come in.
+ *
+ * Positions are stored as the change from the one before, zigzag varint encoded, so the
+ * usual small moves cost a byte each. The best streak - the longest (latest if tied) run
+ * at the player's highest ever position - is kept up to date on every add so it never
+ * needs a rescan.
+ */
+public class PositionTimeline {
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] data = EMPTY;
+    private int numBytes = 0;
+    private int size = 0;
+    private int last = 0;
+
+    private int best = Integer.MAX_VALUE; // highest == numerically lowest
+    private int bestStreakStart = -1;
+    private int bestStreakLength = 0;
+    private int currentStreakStart = -1;
+    private int currentStreakLength = 0; // 0 if not at the best position right now
+
+    public void add(int position) {
+        int index = size;
+        if (position < best) {
+            best = position;
+            currentStreakStart = index;
+            currentStreakLength = 1;
+            bestStreakStart = index;
+            bestStreakLength = 1;
+        } else if (position == best) {
+            if (currentStreakLength == 0) {
+                currentStreakStart = index;
+            }
+            currentStreakLength++;
+            if (currentStreakLength >= bestStreakLength) {
+                bestStreakStart = currentStreakStart;
+                bestStreakLength = currentStreakLength;
+            }
+        } else {
+            currentStreakLength = 0;
+        }
+
+        int delta = position - last;
+        int zigzag = (delta << 1) ^ (delta >> 31);
+        if (numBytes + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(16, data.length * 2));
+        }
+        while ((zigzag & ~0x7F) != 0) {
+            data[numBytes++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[numBytes++] = (byte) zigzag;
+        last = position;
+        size++;
+    }
+
+    // make room for this many more positions up front, so adding them doesn't have to grow
+    public void reserve(int extraPositions) {
+        int needed = numBytes + 5 * extraPositions; // a varint is at most 5 bytes
+        if (needed > data.length) {
+            data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // latest position, 0 if empty
+    public int getLast() {
+        return last;
+    }
+
+    // highest position in the timeline, Integer.MAX_VALUE if empty
+    public int getBestPosition() {
+        return best;
+    }
+
+    // timeline index where the best streak starts, -1 if empty
+    public int getBestStreakStart() {
+        return bestStreakStart;
+    }
+
+    // timeline index of the last entry in the best streak, -1 if empty
+    public int getBestStreakEnd() {
+        return bestStreakStart + bestStreakLength - 1;
+    }
+
+    // how many entries in a row, up to now, the player has been at their best position
+    public int getCurrentStreakLength() {
+        return currentStreakLength;
+    }
+
+    /**
+     * Decodes the timeline into the start of the given array, which must hold at least size()
+     * entries, so callers going through lots of timelines can reuse one buffer
+     * @return size()
+     */
+    public int copyTo(int[] positions) {
+        int position = 0;
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            int zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            position += (zigzag >>> 1) ^ -(zigzag & 1);
+            positions[i] = position;
+        }
+        return size;
+    }
+
+    public int[] toArray() {
+        int[] positions = new int[size];
+        copyTo(positions);
+        return positions;
+    }
+
+    // empty it, keeping the buffer for reuse
+    public void clear() {
+        numBytes = 0;
+        size = 0;
+        last = 0;
+        best = Integer.MAX_VALUE;
+        bestStreakStart = -1;
+        bestStreakLength = 0;
+        currentStreakStart = -1;
+        currentStreakLength = 0;
+    }
+
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(size);
+        out.putInt(numBytes);
+        out.putBytes(data, numBytes);
+        out.putInt(last);
+        out.putInt(best);
+        out.putInt(bestStreakStart);
+        out.putInt(bestStreakLength);
+        out.putInt(currentStreakStart);
+        out.putInt(currentStreakLength);
+    }
+
+    public void readFrom(SnapshotReader in) throws IOException {
+        size = in.getInt();
+        numBytes = in.getInt();
+        data = numBytes == 0 ? EMPTY : new byte[numBytes];
+        in.getBytes(data, numBytes);
+        last = in.getInt();
+        best = in.getInt();
+        bestStreakStart = in.getInt();
+        bestStreakLength = in.getInt();
+        currentStreakStart = in.getInt();
+        currentStreakLength = in.getInt();
+    }
+}
@@ -0,0 +1,346 @@
+package org.example.stats;
+
+import org.example.persistence.SnapshotReader;
+import org.example.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Every time a run of players is pushed up or down the ladder without playing (the players
+ * between winner & loser of an upset, everyone below an inserted or removed player) the
+ * shift is logged here once, as positions [from, to] moved by +1/-1, rather than once per
+ * player moved. Each shift also holds the number of matches recorded before it, which puts
+ * it in order with the rows of the MatchHistory.
+ *
+ * Together with where each player joined, that's enough to work out a player's exact position
+ * at any point: start at the join position, and repeatedly take whichever comes first of their
+ * next match or the next shift covering the position they're at. Finding that next shift uses
+ * a segment tree over positions: each shift is filed under the O(log positions) nodes whose
+ * blocks of positions make up its range, in order, so the shifts covering a position are the
+ * ones filed on the path from the root down to it, and the first after a given point is a
+ * binary search at each node on the path. That's O(log positions * log shifts) a lookup
+ * however the ranges are spread about. The tree is brought up to date lazily the first time
+ * it's needed after shifts are added, so logging a shift stays O(1).
+ */
+public class RankChangeLog {
+    public static final int NONE = -1;
+    // leftAt for players still on the ladder
+    private static final int ON_LADDER = Integer.MAX_VALUE;
+    private static final int[] NO_SHIFTS = new int[0];
+
+    // the shifts, in the order they happened
+    private int[] from = new int[64];
+    private int[] to = new int[64];
+    private int[] shift = new int[64];
+    private int[] matchCount = new int[64];
+    private int size = 0;
+    private int lastUpShift = NONE;
+
+    // by player id, joinedAt is the number of shifts logged before they joined (NONE for ids
+    // that haven't joined since the log was last cleared)
+    private int[] joinedAt = new int[16];
+    private int[] joinPosition = new int[16];
+    private int[] leftAt = new int[16];
+
+    // segment tree over positions [0, span), built as needed. Node n's children are lower[n] &
+    // upper[n] (0 for none yet, node 0 isn't used), it covers a power of 2 block of positions
+    // and holds the shifts whose ranges it's part of, oldest first
+    private int span = 0;
+    private int root = 0;
+    private int numNodes = 1;
+    private int[] lower = new int[0];
+    private int[] upper = new int[0];
+    private int[][] filed = new int[0][];
+    private int[] numFiled = new int[0];
+    private int indexed = 0; // shifts [0, indexed) are in the tree
+
+    public RankChangeLog() {
+        Arrays.fill(joinedAt, NONE);
+    }
+
+    /**
+     * Logs positions fromPosition to toPosition (inclusive) moving by shift places, empty
+     * ranges are ignored
+     * @param fromPosition
+     * @param toPosition
+     * @param shift +1 for a bump down, -1 for a move up
+     * @param matchCount number of matches recorded so far, ie the shift happened before that row
+     */
+    public void record(int fromPosition, int toPosition, int shift, int matchCount) {
+        if (fromPosition > toPosition) {
+            return;
+        }
+        if (size == from.length) {
+            int capacity = size * 2;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            this.shift = Arrays.copyOf(this.shift, capacity);
+            this.matchCount = Arrays.copyOf(this.matchCount, capacity);
+        }
+        from[size] = fromPosition;
+        to[size] = toPosition;
+        this.shift[size] = shift;
+        this.matchCount[size] = matchCount;
+        if (shift < 0) {
+            lastUpShift = size;
+        }
+        size++;
+    }
+
+    /**
+     * Make room for extraShifts more shifts up front, so recording a batch of results
+     * doesn't grow the arrays as it goes
+     * @param extraShifts
+     */
+    public void reserve(int extraShifts) {
+        if (size + extraShifts > from.length) {
+            int capacity = Math.max(size + extraShifts, from.length * 2);
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            shift = Arrays.copyOf(shift, capacity);
+            matchCount = Arrays.copyOf(matchCount, capacity);
+        }
+    }
+
+    // start tracking a player from the position they join at
+    public void playerJoined(int playerId, int position) {
+        ensurePlayerCapacity(playerId);
+        joinedAt[playerId] = size;
+        joinPosition[playerId] = position;
+        leftAt[playerId] = ON_LADDER;
+    }
+
+    // shifts logged from now on don't apply to the player
+    public void playerLeft(int playerId) {
+        if (isTracked(playerId)) {
+            leftAt[playerId] = size;
+        }
+    }
+
+    public boolean isTracked(int playerId) {
+        return playerId < joinedAt.length && joinedAt[playerId] != NONE;
+    }
+
+    // number of shifts logged before the player joined
+    public int getJoinedAt(int playerId) {
+        return joinedAt[playerId];
+    }
+
+    public int getJoinPosition(int playerId) {
+        return joinPosition[playerId];
+    }
+
+    // number of shifts logged before the player left, Integer.MAX_VALUE if they haven't
+    public int getLeftAt(int playerId) {
+        return leftAt[playerId];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFrom(int index) {
+        return from[index];
+    }
+
+    public int getTo(int index) {
+        return to[index];
+    }
+
+    public int getShift(int index) {
+        return shift[index];
+    }
+
+    public int getMatchCount(int index) {
+        return matchCount[index];
+    }
+
+    // index of the latest shift that moved players up, NONE if nobody has ever been moved up
+    public int getLastUpShift() {
+        return lastUpShift;
+    }
+
+    /**
+     * @return index of the first shift logged after match row was recorded, ie the first
+     * with a match count above row, or size() if there are none yet
+     */
+    public int firstShiftAfterMatch(int row) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (matchCount[mid] > row) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first shift in [start, end) whose range covers position, or NONE
+     */
+    public int nextShift(int start, int end, int position) {
+        end = Math.min(end, size);
+        if (start >= end) {
+            return NONE;
+        }
+        ensureIndexed();
+        if (position < 0 || position >= span) {
+            return NONE;
+        }
+        int found = Integer.MAX_VALUE;
+        int node = root;
+        int low = 0;
+        int width = span;
+        while (node != 0) {
+            found = Math.min(found, firstFiledFrom(node, start));
+            width >>>= 1;
+            if (position < low + width) {
+                node = lower[node];
+            } else {
+                node = upper[node];
+                low += width;
+            }
+        }
+        return found < end ? found : NONE;
+    }
+
+    public void clear() {
+        size = 0;
+        lastUpShift = NONE;
+        Arrays.fill(joinedAt, NONE);
+        clearIndex();
+    }
+
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.putInt(size);
+        out.putInts(from, size);
+        out.putInts(to, size);
+        out.putInts(shift, size);
+        out.putInts(matchCount, size);
+        out.putInt(lastUpShift);
+        out.putInt(joinedAt.length);
+        out.putInts(joinedAt, joinedAt.length);
+        out.putInts(joinPosition, joinedAt.length);
+        out.putInts(leftAt, joinedAt.length);
+    }
+
+    public void readFrom(SnapshotReader in) throws IOException {
+        size = in.getInt();
+        int capacity = Math.max(64, size);
+        from = new int[capacity];
+        to = new int[capacity];
+        shift = new int[capacity];
+        matchCount = new int[capacity];
+        in.getInts(from, size);
+        in.getInts(to, size);
+        in.getInts(shift, size);
+        in.getInts(matchCount, size);
+        lastUpShift = in.getInt();
+        int numPlayers = in.getInt();
+        joinedAt = new int[numPlayers];
+        joinPosition = new int[numPlayers];
+        leftAt = new int[numPlayers];
+        in.getInts(joinedAt, numPlayers);
+        in.getInts(joinPosition, numPlayers);
+        in.getInts(leftAt, numPlayers);
+        clearIndex();
+    }
+
+    // the first shift filed at node from start on, or MAX_VALUE if there isn't one
+    private int firstFiledFrom(int node, int start) {
+        int[] shifts = filed[node];
+        int low = 0;
+        int high = numFiled[node];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (shifts[mid] < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < numFiled[node] ? shifts[low] : Integer.MAX_VALUE;
+    }
+
+    // add any shifts logged since the last query to the tree
+    private void ensureIndexed() {
+        if (span == 0) {
+            span = 64;
+            root = newNode();
+        }
+        for (; indexed < size; indexed++) {
+            // a new root over the old one for ranges past the end, the old one's blocks stay as they are
+            while (to[indexed] >= span) {
+                int oldRoot = root;
+                root = newNode();
+                lower[root] = oldRoot;
+                span *= 2;
+            }
+            file(root, 0, span, from[indexed], to[indexed] + 1, indexed);
+        }
+    }
+
+    // files shift under the nodes making up [rangeStart, rangeEnd) in node's block [low, low + width)
+    private void file(int node, int low, int width, int rangeStart, int rangeEnd, int shift) {
+        if (rangeStart <= low && low + width <= rangeEnd) {
+            if (numFiled[node] == filed[node].length) {
+                filed[node] = Arrays.copyOf(filed[node], Math.max(4, numFiled[node] * 2));
+            }
+            filed[node][numFiled[node]++] = shift;
+            return;
+        }
+        int half = width >>> 1;
+        if (rangeStart < low + half) {
+            if (lower[node] == 0) {
+                int child = newNode(); // may grow the arrays, so not lower[node] = newNode()
+                lower[node] = child;
+            }
+            file(lower[node], low, half, rangeStart, rangeEnd, shift);
+        }
+        if (rangeEnd > low + half) {
+            if (upper[node] == 0) {
+                int child = newNode();
+                upper[node] = child;
+            }
+            file(upper[node], low + half, half, rangeStart, rangeEnd, shift);
+        }
+    }
+
+    private int newNode() {
+        if (numNodes >= lower.length) {
+            int capacity = Math.max(64, numNodes * 2);
+            lower = Arrays.copyOf(lower, capacity);
+            upper = Arrays.copyOf(upper, capacity);
+            filed = Arrays.copyOf(filed, capacity);
+            numFiled = Arrays.copyOf(numFiled, capacity);
+        }
+        int node = numNodes++;
+        lower[node] = 0;
+        upper[node] = 0;
+        filed[node] = NO_SHIFTS;
+        numFiled[node] = 0;
+        return node;
+    }
+
+    private void clearIndex() {
+        span = 0;
+        root = 0;
+        numNodes = 1;
+        indexed = 0;
+    }
+
+    private void ensurePlayerCapacity(int playerId) {
+        if (playerId >= joinedAt.length) {
+            int oldLength = joinedAt.length;
+            int capacity = Math.max(playerId + 1, oldLength * 2);
+            joinedAt = Arrays.copyOf(joinedAt, capacity);
+            joinPosition = Arrays.copyOf(joinPosition, capacity);
+            leftAt = Arrays.copyOf(leftAt, capacity);
+            Arrays.fill(joinedAt, oldLength, capacity, NONE);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.stats;
+
+/**
+ * Tuning for PlayerRatings, immutable, change one setting at a time with the with* methods
+ *
+ *   RatingSettings settings = RatingSettings.DEFAULTS.withEloK(24).withGlickoDeviation(300);
+ */
+public final class RatingSettings {
+    public static final RatingSettings DEFAULTS = new RatingSettings(1500, 32, 1500, 350, 0.06, 0.5);
+
+    private final double eloInitial;
+    private final double eloK;
+    private final double glickoInitial;
+    private final double glickoDeviation;
+    private final double glickoVolatility;
+    private final double glickoTau;
+
+    /**
+     * @param eloInitial rating a new player starts on
+     * @param eloK max rating change from one match
+     * @param glickoInitial Glicko-2 rating a new player starts on (Glicko-1 scale, ie 1500)
+     * @param glickoDeviation starting rating deviation (RD), how unsure we are of a new player
+     * @param glickoVolatility starting volatility
+     * @param glickoTau how fast volatility can change, 0.3 - 1.2 are sensible
+     */
+    public RatingSettings(double eloInitial, double eloK, double glickoInitial, double glickoDeviation,
+                          double glickoVolatility, double glickoTau) {
+        this.eloInitial = eloInitial;
+        this.eloK = eloK;
+        this.glickoInitial = glickoInitial;
+        this.glickoDeviation = glickoDeviation;
+        this.glickoVolatility = glickoVolatility;
+        this.glickoTau = glickoTau;
+    }
+
+    public double getEloInitial() {
+        return eloInitial;
+    }
+
+    public double getEloK() {
+        return eloK;
+    }
+
+    public double getGlickoInitial() {
+        return glickoInitial;
+    }
+
+    public double getGlickoDeviation() {
+        return glickoDeviation;
+    }
+
+    public double getGlickoVolatility() {
+        return glickoVolatility;
+    }
+
+    public double getGlickoTau() {
+        return glickoTau;
+    }
+
+    public RatingSettings withEloK(double k) {
+        return new RatingSettings(eloInitial, k, glickoInitial, glickoDeviation, glickoVolatility, glickoTau);
+    }
+
+    public RatingSettings withEloInitial(double initial) {
+        return new RatingSettings(initial, eloK, glickoInitial, glickoDeviation, glickoVolatility, glickoTau);
+    }
+
+    public RatingSettings withGlickoDeviation(double deviation) {
+        return new RatingSettings(eloInitial, eloK, glickoInitial, deviation, glickoVolatility, glickoTau);
+    }
+
+    public RatingSettings withGlickoVolatility(double volatility) {
+        return new RatingSettings(eloInitial, eloK, glickoInitial, glickoDeviation, volatility, glickoTau);
+    }
+
+    public RatingSettings withGlickoTau(double tau) {
+        return new RatingSettings(eloInitial, eloK, glickoInitial, glickoDeviation, glickoVolatility, tau);
+    }
+
+    @Override
+    public String toString() {
+        return "RatingSettings{elo=" + eloInitial + " K=" + eloK + ", glicko=" + glickoInitial
+                + " RD=" + glickoDeviation + " vol=" + glickoVolatility + " tau=" + glickoTau + "}";
+    }
+}
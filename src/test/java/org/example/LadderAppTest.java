@@ -5,14 +5,28 @@ import static org.junit.Assert.assertTrue;
 import org.apache.commons.math3.distribution.EnumeratedIntegerDistribution;
 import org.apache.commons.math3.util.Pair;
 import org.apache.commons.math3.util.Precision;
+import org.example.component.AllPlayerStats;
 import org.example.component.Ladder;
+import org.example.component.MatchRecord;
 import org.example.component.Player;
+import org.example.component.StandingsPublisher;
+import org.example.component.StandingsSnapshot;
+import org.example.stats.OpponentResult;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Unit test for simple App.
@@ -66,6 +80,24 @@ public class LadderAppTest
         ttLadder.dumpLadder();
     }
 
+    @Test
+    public void playerLookupTest() {
+        Player conor = new Player("Conor", "Nugent", 3);
+        conor.setEmail("Conor@Example.com");
+        ttLadder.insertPlayer(conor);
+
+        assertTrue(ttLadder.getPlayer(" conor", "NUGENT") == conor);
+        assertTrue(ttLadder.getPlayerByEmail("conor@example.com") == conor);
+        assertTrue(ttLadder.getPlayerById(conor.getId()) == conor);
+        assertTrue(ttLadder.getPlayerPosition("Conor", "Nugent") == 3);
+        assertTrue(ttLadder.getPlayerPosition("Conor") == 3); // first name only still works
+
+        ttLadder.removePlayerById(conor.getId());
+        assertTrue(ttLadder.getPlayer("Conor", "Nugent") == null);
+        assertTrue(ttLadder.getPlayerById(conor.getId()) == null);
+        assertTrue(ttLadder.getPlayer(3).getFirstName().equals("C"));
+    }
+
     @Test
     public void challengeMatchTest_1() {
         playMatch("E","C");
@@ -91,8 +123,10 @@ public class LadderAppTest
         playMatch("E","A");
         playMatch("E","F");
         // NOTE - "D" was moved down 1 place as a result of "E" beating "F"
-        // so his currPosition == 3 but this doesnt appear in his timeline [5,2] ie "3"
-        // isnt present due to it being a bump down rather than a match result
+        // so their currPosition == 3, which shows in the full timeline as a bump down
+        Player d = ttLadder.getPlayer(3);
+        assertTrue(d.getFirstName().equals("D"));
+        assertTrue(ttLadder.getAllPlayerStats().getPositionTimeline(d).getFirst().equals(Arrays.asList(4, 5, 2, 3)));
         ttLadder.dumpLadder();
     }
 
@@ -147,6 +181,343 @@ public class LadderAppTest
 
     }
 
+    /**
+     * Random results on a bigger ladder, checked against a plain list where
+     * the winner is moved by hand
+     */
+    @Test
+    public void largeLadderPositionsTest() {
+        Ladder ladder = new Ladder();
+        List<Player> expected = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            Player p = new Player("P" + i, "", i);
+            expected.add(p);
+        }
+        ladder.addPlayers(expected);
+
+        for (int i = 0; i < 5000; i++) {
+            int loserPos = ThreadLocalRandom.current().nextInt(1, expected.size() + 1);
+            int winnerPos = ThreadLocalRandom.current().nextInt(1, expected.size() + 1);
+            ladder.matchResult(loserPos, winnerPos);
+            if (winnerPos > loserPos) {
+                expected.add(loserPos - 1, expected.remove(winnerPos - 1));
+            }
+        }
+
+        for (int position = 1; position <= expected.size(); position++) {
+            Player p = ladder.getPlayer(position);
+            assertTrue(p == expected.get(position - 1));
+            assertTrue(p.getCurrentPosition() == position);
+        }
+    }
+
+    @Test
+    public void standingsRangeTest() {
+        // A..G from createLadder
+        assertTrue(names(ttLadder.getTop(3)).equals("ABC"));
+        assertTrue(names(ttLadder.getRange(6, 100)).equals("FG"));
+        assertTrue(ttLadder.getRange(-5, 0).isEmpty());
+        assertTrue(ttLadder.getRange(3, 5).get(2).getFirstName().equals("E"));
+        Player d = ttLadder.getPlayer(4);
+        assertTrue(names(ttLadder.getNeighbours(d, 2)).equals("BCDEF"));
+        assertTrue(names(ttLadder.getNeighbours(ttLadder.getPlayer(1), 2)).equals("ABC"));
+        assertTrue(ttLadder.getNeighbours(new Player("X", "", 1), 2).isEmpty());
+        assertTrue(names(ttLadder.getNeighbours(d, Integer.MAX_VALUE)).equals(names(ttLadder.getTop(ttLadder.getNumPlayers()))));
+        assertTrue(names(ttLadder.getNeighbours(d, 0)).equals("D"));
+        boolean rejected = false;
+        try {
+            ttLadder.getNeighbours(d, -1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+
+        // views are of positions, so they follow the ladder
+        List<Player> top = ttLadder.getTop(3);
+        ttLadder.matchResult(1, 4);
+        assertTrue(names(top).equals("DAB"));
+        ttLadder.removePlayer("A");
+        ttLadder.removePlayer("B");
+        ttLadder.removePlayer("C");
+        ttLadder.removePlayer("E");
+        ttLadder.removePlayer("F");
+        assertTrue(names(top).equals("DG"));
+        assertTrue(top.size() == 2);
+
+        // paging both ways
+        Ladder ladder = new Ladder();
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        ListIterator<Player> cursor = ladder.standingsCursor(5000);
+        for (int position = 5000; position < 5100; position++) {
+            assertTrue(cursor.nextIndex() == position - 1);
+            assertTrue(cursor.next() == players.get(position - 1));
+        }
+        for (int position = 5099; position >= 1; position--) {
+            assertTrue(cursor.previous() == players.get(position - 1));
+        }
+        assertTrue(!cursor.hasPrevious());
+        cursor = ladder.standingsCursor(10_001);
+        assertTrue(!cursor.hasNext());
+        assertTrue(cursor.previous() == players.get(9_999));
+        ListIterator<Player> page = ladder.getRange(101, 200).listIterator(100);
+        assertTrue(page.previous() == players.get(199));
+        assertTrue(page.previousIndex() == 98);
+
+        // for-each, forEach and streams walk the tree too
+        List<Player> middle = ladder.getRange(2001, 7000);
+        int position = 2001;
+        for (Player player : middle) {
+            assertTrue(player == players.get(position++ - 1));
+        }
+        assertTrue(position == 7001);
+        List<Player> seen = new ArrayList<>();
+        middle.forEach(seen::add);
+        assertTrue(seen.equals(players.subList(2000, 7000)));
+        assertTrue(middle.stream().mapToInt(Player::getCurrentPosition).sum() == (2001 + 7000) * 5000 / 2);
+        assertTrue(middle.parallelStream().filter(player -> player.getCurrentPosition() % 2 == 0).count() == 2500);
+        List<Player> tail = ladder.getRange(9_990, 20_000);
+        seen.clear();
+        tail.forEach(seen::add);
+        assertTrue(seen.equals(players.subList(9_989, 10_000)));
+        assertTrue(tail.stream().count() == 11);
+    }
+
+    private static String names(List<Player> players) {
+        StringBuilder sb = new StringBuilder();
+        for (Player player : players) {
+            sb.append(player.getFirstName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A batch gives the same ladder & stats as the same results one at a time,
+     * and a batch with a bad position is rejected without applying any of it
+     */
+    @Test
+    public void applyResultsTest() {
+        Ladder oneByOne = new Ladder();
+        Ladder batched = new Ladder();
+        for (int i = 1; i <= 500; i++) {
+            oneByOne.addPlayer(new Player("P" + i, "", i));
+            batched.addPlayer(new Player("P" + i, "", i));
+        }
+
+        List<MatchRecord> results = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            int loserPos = ThreadLocalRandom.current().nextInt(1, 501);
+            int winnerPos = ThreadLocalRandom.current().nextInt(1, 501);
+            oneByOne.matchResult(loserPos, winnerPos);
+            results.add(new MatchRecord(loserPos, winnerPos));
+        }
+        batched.applyResults(results);
+
+        assertTrue(batched.getAllPlayerStats().getTotalMatchCount() == 10000);
+        for (int position = 1; position <= 500; position++) {
+            Player expected = oneByOne.getPlayer(position);
+            Player actual = batched.getPlayer(position);
+            assertTrue(expected.getFirstName().equals(actual.getFirstName()));
+            assertTrue(oneByOne.getAllPlayerStats().getPlayerWinsLosses(expected)
+                    .equals(batched.getAllPlayerStats().getPlayerWinsLosses(actual)));
+        }
+
+        Player top = batched.getPlayer(1);
+        boolean rejected = false;
+        try {
+            batched.applyResults(Arrays.asList(new MatchRecord(1, 2), new MatchRecord(1, 501)));
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+        assertTrue(batched.getPlayer(1) == top);
+        assertTrue(batched.getAllPlayerStats().getTotalMatchCount() == 10000);
+    }
+
+    /**
+     * Standings worked out for past instants match what the ladder actually looked like
+     * then, across several checkpoints, and matches can be picked out by time
+     */
+    @Test
+    public void standingsAtTest() {
+        Ladder ladder = new Ladder();
+        Instant start = Instant.parse("2024-03-01T00:00:00Z");
+        ladder.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        for (int i = 1; i <= 100; i++) {
+            ladder.addPlayer(new Player("P" + i, "", i));
+        }
+        List<int[]> expected = new ArrayList<>();
+        for (int minute = 1; minute <= 5000; minute++) {
+            ladder.setClock(Clock.fixed(start.plusSeconds(60L * minute), ZoneOffset.UTC));
+            int size = ladder.getNumPlayers();
+            if (minute % 97 == 0) {
+                ladder.insertPlayer(new Player("New" + minute, "", ThreadLocalRandom.current().nextInt(1, size + 1)));
+            } else if (minute % 89 == 0) {
+                ladder.removePlayerById(ladder.getPlayer(ThreadLocalRandom.current().nextInt(1, size + 1)).getId());
+            } else {
+                ladder.matchResult(ThreadLocalRandom.current().nextInt(1, size + 1),
+                        ThreadLocalRandom.current().nextInt(1, size + 1));
+            }
+            int[] ids = new int[ladder.getNumPlayers()];
+            for (int position = 1; position <= ids.length; position++) {
+                ids[position - 1] = ladder.getPlayer(position).getId();
+            }
+            expected.add(ids);
+        }
+        for (int minute = 1; minute <= 5000; minute++) {
+            // anything up to the next change still sees this one
+            assertTrue(Arrays.equals(expected.get(minute - 1),
+                    ladder.getStandingsAt(start.plusSeconds(60L * minute + 59))));
+        }
+        assertTrue(ladder.getStandingsAt(start.minusSeconds(1)).length == 0);
+        assertTrue(ladder.getStandingsAt(start).length == 100);
+
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        Instant from = start.plusSeconds(60L * 1000);
+        Instant to = start.plusSeconds(60L * 2000);
+        int numMatches = stats.getMatchCountBetween(from, to);
+        assertTrue(numMatches > 900 && numMatches <= 1000);
+        Player top = ladder.getPlayer(1);
+        List<OpponentResult> results = stats.getResultsBetween(top, from, to);
+        for (OpponentResult result : results) {
+            assertTrue(!result.getInstant().isBefore(from) && result.getInstant().isBefore(to));
+        }
+        int all = stats.getResultsBetween(top, start, start.plusSeconds(60L * 6000)).size();
+        assertTrue(all == stats.getPlayerStats(top).getTotalNumOfMatches());
+    }
+
+    /**
+     * Once reserveMatches has made room, recording results allocates nothing at all, and
+     * ends up exactly where a ladder that grew as it went does
+     */
+    @Test
+    public void allocationFreeMatchResultTest() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        Clock clock = Clock.fixed(Instant.parse("2024-03-01T00:00:00Z"), ZoneOffset.UTC);
+        Ladder reserved = new Ladder();
+        Ladder growing = new Ladder();
+        reserved.setClock(clock);
+        growing.setClock(clock);
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        reserved.addPlayers(players);
+        players.clear();
+        for (int i = 1; i <= 1000; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        growing.addPlayers(players);
+
+        int numMatches = 100_000;
+        int[] loserPositions = new int[numMatches];
+        int[] winnerPositions = new int[numMatches];
+        for (int i = 0; i < numMatches; i++) {
+            loserPositions[i] = ThreadLocalRandom.current().nextInt(1, 1001);
+            winnerPositions[i] = ThreadLocalRandom.current().nextInt(1, 1001);
+        }
+        // warm up, so nothing's left to load, initialise or compile
+        for (int i = 0; i < 50_000; i++) {
+            reserved.matchResult(loserPositions[i], winnerPositions[i]);
+            growing.matchResult(loserPositions[i], winnerPositions[i]);
+        }
+
+        reserved.reserveMatches(numMatches);
+        long thread = Thread.currentThread().getId();
+        int numRounds = 5;
+        for (int round = 0; round < numRounds; round++) {
+            long before = allocations.getThreadAllocatedBytes(thread);
+            for (int i = round * numMatches / numRounds; i < (round + 1) * numMatches / numRounds; i++) {
+                reserved.matchResult(loserPositions[i], winnerPositions[i]);
+            }
+            long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+            // the JIT can still be settling (and allocating on this thread) early on
+            assertTrue("round " + round + " allocated " + allocated + " bytes", allocated == 0 || round < 2);
+        }
+
+        for (int i = 0; i < numMatches; i++) {
+            growing.matchResult(loserPositions[i], winnerPositions[i]);
+        }
+        for (int position = 1; position <= 1000; position++) {
+            Player p = reserved.getPlayer(position);
+            Player g = growing.getPlayer(position);
+            assertTrue(p.getId() == g.getId());
+            assertTrue(Arrays.equals(reserved.getAllPlayerStats().getTimeline(p).toArray(),
+                    growing.getAllPlayerStats().getTimeline(g).toArray()));
+        }
+        assertTrue(Arrays.equals(reserved.getStandingsAt(clock.instant()), growing.getStandingsAt(clock.instant())));
+    }
+
+    /**
+     * Readers spinning on the published snapshots while matches are played should never
+     * see a duplicate or missing position, and the last one should match the ladder
+     */
+    @Test
+    public void publishedSnapshotsTest() throws InterruptedException {
+        Ladder ladder = new Ladder();
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        StandingsPublisher publisher = StandingsPublisher.attach(ladder);
+        StandingsSnapshot first = publisher.current();
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicBoolean torn = new AtomicBoolean(false);
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                StandingsSnapshot snapshot = publisher.current();
+                boolean[] seen = new boolean[4000];
+                for (int position = 1; position <= snapshot.size(); position++) {
+                    int id = snapshot.getPlayerId(position);
+                    if (id == 0 || seen[id] || snapshot.getPosition(id) != position) {
+                        torn.set(true);
+                    }
+                    seen[id] = true;
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 5000; i++) {
+            int loserPos = ThreadLocalRandom.current().nextInt(1, 3001);
+            int winnerPos = Math.min(3000, loserPos + ThreadLocalRandom.current().nextInt(0, 1500));
+            ladder.matchResult(loserPos, winnerPos);
+            if (i == 2500) {
+                ladder.insertPlayer(new Player("Late", "Joiner", 10));
+                ladder.removePlayer("Late", "Joiner");
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertTrue(!torn.get());
+
+        // nothing written after publishing shows up in an old snapshot
+        for (int position = 1; position <= 3000; position++) {
+            assertTrue(first.getPlayerId(position) == position);
+        }
+
+        StandingsSnapshot last = publisher.current();
+        assertTrue(last.getVersion() > first.getVersion());
+        for (int position = 1; position <= 3000; position++) {
+            Player p = ladder.getPlayer(position);
+            assertTrue(last.getPlayerId(position) == p.getId());
+            assertTrue(last.getFirstName(p.getId()).equals(p.getFirstName()));
+            Pair<Integer, Integer> winsLosses = ladder.getAllPlayerStats().getPlayerWinsLosses(p);
+            assertTrue(last.getWins(p.getId()) == winsLosses.getFirst());
+            assertTrue(last.getLosses(p.getId()) == winsLosses.getSecond());
+        }
+        assertTrue(last.getRange(2999, 3005).size() == 2);
+    }
+
     /**
      * Assign the same winning probability to higher ranked players
      * in theory, could give individual players weighted win probabilities for more
@@ -0,0 +1,150 @@
+package org.example.challenge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.example.MatchStatus;
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ChallengeBoardTest {
+    private static final Instant START = Instant.parse("2024-03-01T00:00:00Z");
+
+    private static Ladder ladder(int numPlayers) {
+        Ladder ladder = new Ladder();
+        ladder.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        return ladder;
+    }
+
+    private static void expectFailure(Class<? extends RuntimeException> type, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            assertTrue(e.toString(), type.isInstance(e));
+            return;
+        }
+        throw new AssertionError("expected " + type.getSimpleName());
+    }
+
+    @Test
+    public void challengeRangeTest() {
+        Ladder ladder = ladder(10);
+        ChallengeBoard board = new ChallengeBoard(ladder, 7, TimeUnit.DAYS);
+
+        Challenge challenge = board.issue(5, 3);
+        assertTrue(challenge.isOpen());
+        assertEquals(MatchStatus.CHALLENGE, challenge.getStatus());
+        assertEquals(START.plus(7, ChronoUnit.DAYS), challenge.getExpiresAt());
+
+        expectFailure(IllegalArgumentException.class, () -> board.issue(6, 3));  // 3 places up
+        expectFailure(IllegalArgumentException.class, () -> board.issue(7, 8));  // downwards
+        expectFailure(IllegalArgumentException.class, () -> board.issue(7, 7));
+        expectFailure(IllegalStateException.class, () -> board.issue(4, 3));     // 3 is busy
+        expectFailure(IllegalStateException.class, () -> board.issue(6, 5));     // so is 5
+
+        ladder.setMaxChallengeRange(3);
+        board.issue(9, 6);
+        assertEquals(2, board.getNumOpen());
+
+        board.cancel(challenge);
+        assertEquals(MatchStatus.CHALLENGE_CANCELLED, challenge.getStatus());
+        expectFailure(IllegalStateException.class, () -> board.accept(challenge));
+        assertTrue(board.getOpenChallenge(ladder.getPlayer(3)) == null);
+        board.issue(4, 3);
+
+        // leaving the ladder cancels anything the player was in
+        Challenge leaving = board.getOpenChallenge(ladder.getPlayer(9));
+        ladder.removePlayerById(ladder.getPlayer(6).getId());
+        assertEquals(MatchStatus.CHALLENGE_CANCELLED, leaving.getStatus());
+        assertEquals(1, board.getNumOpen());
+        assertEquals(1, board.getOpenChallenges().size());
+    }
+
+    @Test
+    public void acceptAndPlayTest() {
+        Ladder ladder = ladder(10);
+        ChallengeBoard board = new ChallengeBoard(ladder, 3, TimeUnit.DAYS);
+        Player p4 = ladder.getPlayer(4);
+        Player p6 = ladder.getPlayer(6);
+        Challenge won = board.issue(p6, p4);
+        Challenge lost = board.issue(3, 2);
+        Player p2 = ladder.getPlayer(2);
+        board.accept(won);
+        board.accept(lost);
+        assertEquals(0, board.getNumPending());
+
+        // accepted challenges don't expire
+        assertEquals(0, board.advanceTo(START.plusSeconds(30 * 86400).toEpochMilli()));
+
+        board.recordResult(won, true);
+        assertEquals(MatchStatus.VICTORY, won.getStatus());
+        assertEquals(4, p6.getCurrentPosition());
+        assertEquals(5, p4.getCurrentPosition());
+
+        // a result entered straight on the ladder closes the challenge too
+        ladder.matchResult(3, 2);
+        assertEquals(MatchStatus.DEFEAT, lost.getStatus());
+        assertEquals(2, p2.getCurrentPosition());
+        assertEquals(0, board.getNumOpen());
+    }
+
+    @Test
+    public void expiryTest() {
+        int numPlayers = 20_000;
+        Ladder ladder = ladder(numPlayers);
+        ChallengeBoard board = new ChallengeBoard(ladder, 2, TimeUnit.DAYS, 60_000, 1024);
+
+        // everyone on an even position challenges the player above, a minute apart
+        List<Challenge> challenges = new ArrayList<>();
+        for (int position = 2; position <= numPlayers; position += 2) {
+            ladder.setClock(Clock.fixed(START.plusSeconds(30L * position), ZoneOffset.UTC));
+            challenges.add(board.issue(position, position - 1));
+        }
+        for (int i = 0; i < challenges.size(); i += 3) {
+            board.accept(challenges.get(i));
+        }
+        for (int i = 1; i < challenges.size(); i += 3) {
+            board.cancel(challenges.get(i));
+        }
+        int expiring = challenges.size() / 3;
+        assertEquals(expiring, board.getNumPending());
+
+        long due = START.plusSeconds(2 * 86400).toEpochMilli();
+        assertEquals(0, board.advanceTo(due));
+        // half way through the issues, up to a minute late
+        int expired = board.advanceTo(due + 30_000L * numPlayers / 2);
+        assertTrue(expired > 0 && expired < expiring);
+        ladder.setClock(Clock.fixed(Instant.ofEpochMilli(due + 30_000L * numPlayers + 60_000), ZoneOffset.UTC));
+        assertEquals(expiring, expired + board.advance());
+        assertEquals(0, board.getNumPending());
+
+        for (int i = 0; i < challenges.size(); i++) {
+            Challenge challenge = challenges.get(i);
+            int challengerPosition = 2 * (i + 1);
+            if (i % 3 == 2) {
+                // challenger took the place by default, it doesn't count as a win
+                assertEquals(MatchStatus.DEFAULT_VICTORY, challenge.getStatus());
+                assertEquals(challengerPosition - 1, challenge.getChallenger().getCurrentPosition());
+                assertEquals(0, (int) ladder.getAllPlayerStats().getPlayerWinsLosses(challenge.getChallenger()).getFirst());
+            } else {
+                assertEquals(challengerPosition, challenge.getChallenger().getCurrentPosition());
+                assertEquals(i % 3 == 0, challenge.isOpen());
+            }
+        }
+        assertEquals(expiring, ladder.getAllPlayerStats().getTotalMatchCount());
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.matchmaking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class MatchmakerTest {
+    private static final Instant START = Instant.parse("2024-03-01T00:00:00Z");
+
+    private static Ladder ladder(int numPlayers) {
+        Ladder ladder = new Ladder();
+        ladder.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        return ladder;
+    }
+
+    private static long pairKey(Player a, Player b) {
+        return Math.min(a.getId(), b.getId()) * 1_000_000L + Math.max(a.getId(), b.getId());
+    }
+
+    // every pairing in range & nobody in two of them
+    private static void assertValid(Ladder ladder, List<Pairing> round) {
+        Set<Integer> paired = new HashSet<>();
+        for (Pairing pairing : round) {
+            int gap = pairing.getChallengerPosition() - pairing.getChallengedPosition();
+            assertTrue(pairing.toString(), gap >= 1 && gap <= ladder.getMaxChallengeRange());
+            assertTrue(ladder.getPlayer(pairing.getChallengerPosition()) == pairing.getChallenger());
+            assertTrue(paired.add(pairing.getChallenger().getId()));
+            assertTrue(paired.add(pairing.getChallenged().getId()));
+        }
+    }
+
+    @Test
+    public void fullRoundTest() {
+        Ladder ladder = ladder(11);
+        List<Pairing> round = new Matchmaker().planRound(ladder);
+        assertValid(ladder, round);
+        assertEquals(5, round.size());
+        assertEquals(0, new Matchmaker().planRound(ladder(1)).size());
+    }
+
+    @Test
+    public void rematchAndActivityTest() {
+        Ladder ladder = ladder(4);
+        ladder.matchResult(2, 1);
+        ladder.matchResult(4, 3);
+
+        // 1 v 2 and 3 v 4 were just played, so it's 1 v 3 and 2 v 4
+        List<Pairing> round = new Matchmaker().planRound(ladder);
+        assertValid(ladder, round);
+        assertEquals(2, round.size());
+        assertEquals(3, round.get(0).getChallengerPosition());
+        assertEquals(1, round.get(0).getChallengedPosition());
+        assertEquals(4, round.get(1).getChallengerPosition());
+        assertEquals(2, round.get(1).getChallengedPosition());
+
+        // no longer recent
+        ladder.setClock(Clock.fixed(START.plusSeconds(29 * 86400), ZoneOffset.UTC));
+        round = new Matchmaker().planRound(ladder);
+        assertValid(ladder, round);
+        assertEquals(2, round.size());
+
+        // with 3 players somebody sits out, it shouldn't be the one who hasn't played
+        Ladder three = ladder(3);
+        three.matchResult(2, 1);
+        round = new Matchmaker(MatchmakingSettings.DEFAULTS.withRematchPenalty(0).withHeadToHeadPenalty(0))
+                .planRound(three);
+        assertEquals(1, round.size());
+        assertEquals(3, round.get(0).getChallengerPosition());
+    }
+
+    @Test
+    public void largeLadderTest() {
+        int numPlayers = 100_000;
+        Ladder ladder = ladder(numPlayers);
+        // a round's worth of results between neighbours
+        Random random = new Random(5);
+        Set<Long> played = new HashSet<>();
+        for (int i = 0; i < numPlayers / 2; i++) {
+            int challenger = random.nextInt(numPlayers - 2) + 3;
+            int opponent = challenger - 1 - random.nextInt(2);
+            played.add(pairKey(ladder.getPlayer(challenger), ladder.getPlayer(opponent)));
+            if (random.nextBoolean()) {
+                ladder.matchResult(opponent, challenger);
+            } else {
+                ladder.matchResult(challenger, opponent);
+            }
+        }
+
+        List<Pairing> round = new Matchmaker().planRound(ladder);
+        assertValid(ladder, round);
+        assertTrue(round.size() > numPlayers / 2 * 9 / 10);
+        for (Pairing pairing : round) {
+            assertTrue(pairing.toString(), !played.contains(pairKey(pairing.getChallenger(), pairing.getChallenged())));
+        }
+
+        // segments are fixed, so it's the same plan however many threads
+        Matchmaker single = new Matchmaker();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        single.setPool(pool);
+        List<Pairing> again = single.planRound(ladder);
+        pool.shutdown();
+        assertEquals(round.size(), again.size());
+        for (int i = 0; i < round.size(); i++) {
+            assertTrue(round.get(i).getChallenger() == again.get(i).getChallenger());
+            assertTrue(round.get(i).getChallenged() == again.get(i).getChallenged());
+        }
+    }
+}
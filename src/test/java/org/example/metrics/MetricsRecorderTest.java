@@ -0,0 +1,106 @@
+package org.example.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.example.pipeline.LadderPipeline;
+import org.example.pipeline.WaitStrategy;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+public class MetricsRecorderTest {
+
+    @Test
+    public void histogramTest() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.NUM_BUCKETS);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(value <= highest);
+            assertTrue(bucket == 0 || value > LatencyHistogram.highestValueIn(bucket - 1));
+            // within about 3%
+            assertTrue((double) (highest - value) / Math.max(1, value) <= 1.0 / 32);
+        }
+
+        MetricsRecorder metrics = new MetricsRecorder();
+        for (int nanos = 1; nanos <= 10_000; nanos++) {
+            metrics.record(Operation.GET_PLAYER, nanos * 100L);
+        }
+        OperationSnapshot snapshot = metrics.snapshot(Operation.GET_PLAYER);
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(500_050, snapshot.getMeanNanos(), 0.001);
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals(500_000, snapshot.getPercentileNanos(50), 500_000 / 32);
+        assertEquals(990_000, snapshot.getPercentileNanos(99), 990_000 / 32);
+        assertEquals(1_000_000, snapshot.getPercentileNanos(100));
+        metrics.reset();
+        assertEquals(0, metrics.snapshot(Operation.GET_PLAYER).getPercentileNanos(99));
+    }
+
+    @Test
+    public void ladderMetricsTest() throws Exception {
+        Ladder ladder = new Ladder();
+        MetricsRecorder metrics = new MetricsRecorder();
+        ladder.setMetrics(metrics);
+        for (int i = 1; i <= 100; i++) {
+            ladder.addPlayer(new Player("P" + i, "", i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            ladder.matchResult(i % 100 + 1, (i * 7) % 100 + 1);
+        }
+        ladder.removePlayer("P1", "");
+        ladder.getAllPlayerStats().getAllTimeHighestPosition(ladder.getPlayer(50));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(100, snapshot.get(Operation.ADD_PLAYER).getCount());
+        assertEquals(1000, snapshot.get(Operation.MATCH_RESULT).getCount());
+        assertEquals(1, snapshot.get(Operation.REMOVE_PLAYER).getCount());
+        assertEquals(1, snapshot.get(Operation.HIGHEST_POSITION).getCount());
+        assertEquals(0, snapshot.get(Operation.INSERT_PLAYER).getCount());
+        // only the getPlayer(50) above, results find their players without going through it
+        assertEquals(1, snapshot.get(Operation.GET_PLAYER).getCount());
+        assertEquals(99, snapshot.getGauge("players"));
+        assertEquals(1000, snapshot.getGauge("matches"));
+
+        try (LadderPipeline pipeline = new LadderPipeline(ladder, 16, WaitStrategy.yielding())) {
+            pipeline.addGauges(metrics);
+            assertEquals(0, metrics.snapshot().getGauge("pipelineBacklog"));
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricsJmx.DOMAIN + ":type=Metrics,name=\"test\",operation=matchResult");
+        Closeable jmx = MetricsJmx.register(metrics, "test");
+        try {
+            assertEquals(1000L, server.getAttribute(name, "Count"));
+            assertTrue((Double) server.getAttribute(name, "P99Micros") > 0);
+        } finally {
+            jmx.close();
+        }
+        assertTrue(!server.isRegistered(name));
+
+        // a second ladder sharing the recorder keeps its gauges apart
+        Ladder juniors = new Ladder();
+        juniors.addPlayer(new Player("J1", "", 1));
+        juniors.setMetrics(metrics, "juniors");
+        assertEquals(1, metrics.snapshot().getGauge("juniors.players"));
+        assertEquals(99, metrics.snapshot().getGauge("players"));
+
+        // back to nothing, no more gets recorded and the gauges go
+        ladder.setMetrics(LadderMetrics.none());
+        ladder.matchResult(2, 3);
+        assertEquals(1000, metrics.snapshot(Operation.MATCH_RESULT).getCount());
+        assertFalse(metrics.snapshot().getGauges().containsKey("players"));
+        assertEquals(1, metrics.snapshot().getGauge("juniors.players"));
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class LadderImportTest {
+    private static final Instant SEEDED = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void csvTest() throws IOException {
+        Path players = write("players.csv",
+                "position,first name,last name,email",
+                "2, Bob ,Jones,bob@example.com",
+                "1,\"Smith, Jr\",\"O\"\"Neil\",",
+                "",
+                "# not a player",
+                "3,Cat,Lee\r",
+                "4,Dan,Ng");
+        Path results = write("results.csv",
+                "date,loser,winner",
+                "2024-01-02,1,3",
+                "2024-01-02T10:15:30Z,2,4,default",
+                "1704240000000,1,2",
+                "2024-01-03T09:00:00+01:00,4,1");
+        Ladder ladder = new Ladder();
+        assertEquals(4, LadderImport.loadPlayers(ladder, players, SEEDED));
+        assertEquals("Smith, Jr", ladder.getPlayer(1).getFirstName());
+        assertEquals("O\"Neil", ladder.getPlayer(1).getLastName());
+        assertEquals("Bob", ladder.getPlayer(2).getFirstName());
+        assertEquals(null, ladder.getPlayer(1).getEmail());
+        assertTrue(ladder.getPlayerByEmail("bob@example.com") == ladder.getPlayer(2));
+        assertEquals(4, LadderImport.loadResults(ladder, results));
+
+        // the same ladder built one change at a time
+        Ladder expected = new Ladder();
+        expected.setClock(Clock.fixed(SEEDED, ZoneOffset.UTC));
+        List<Player> seeded = new ArrayList<>();
+        seeded.add(new Player("Cat", "Lee", 3));
+        seeded.add(new Player("Smith, Jr", "O\"Neil", 1));
+        seeded.add(new Player("Dan", "Ng", 4));
+        seeded.add(new Player("Bob", "Jones", 2));
+        seeded.get(3).setEmail("bob@example.com");
+        expected.addPlayers(seeded);
+        expected.setClock(Clock.fixed(Instant.parse("2024-01-02T00:00:00Z"), ZoneOffset.UTC));
+        expected.matchResult(1, 3);
+        expected.setClock(Clock.fixed(Instant.parse("2024-01-02T10:15:30Z"), ZoneOffset.UTC));
+        expected.defaultResult(2, 4);
+        expected.setClock(Clock.fixed(Instant.ofEpochMilli(1704240000000L), ZoneOffset.UTC));
+        expected.matchResult(1, 2);
+        expected.setClock(Clock.fixed(Instant.parse("2024-01-03T08:00:00Z"), ZoneOffset.UTC));
+        expected.matchResult(4, 1);
+
+        LadderJournalTest.assertSameLadder(expected, ladder);
+        assertArrayEquals(expected.getStandingsAt(SEEDED), ladder.getStandingsAt(SEEDED));
+        assertEquals(0, ladder.getStandingsAt(SEEDED.minusMillis(1)).length);
+        // the ladder's own clock is back once the import's done
+        assertEquals(Clock.systemUTC(), ladder.getClock());
+    }
+
+    @Test
+    public void largeTsvTest() throws IOException {
+        int numPlayers = 200_000;
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            positions.add(i);
+        }
+        Collections.shuffle(positions, new Random(3));
+        Path players = folder.getRoot().toPath().resolve("players.tsv");
+        try (BufferedWriter out = Files.newBufferedWriter(players, StandardCharsets.UTF_8)) {
+            for (int position : positions) {
+                out.write(position + "\tP" + position + "\tSurname\tp" + position + "@example.com\n");
+            }
+        }
+        Random random = new Random(4);
+        int numResults = 300_000;
+        int[][] matches = new int[numResults][];
+        Path results = folder.getRoot().toPath().resolve("results.tsv");
+        try (BufferedWriter out = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            out.write("date\tloser\twinner\n");
+            for (int i = 0; i < numResults; i++) {
+                int challenger = random.nextInt(numPlayers - 2) + 3;
+                int opponent = challenger - 1 - random.nextInt(2);
+                matches[i] = random.nextBoolean() ? new int[]{opponent, challenger} : new int[]{challenger, opponent};
+                out.write((SEEDED.toEpochMilli() + 1000L * i) + "\t" + matches[i][0] + "\t" + matches[i][1] + "\n");
+            }
+        }
+
+        Ladder ladder = new Ladder();
+        assertEquals(numPlayers, LadderImport.loadPlayers(ladder, players, SEEDED));
+        assertEquals(numResults, LadderImport.loadResults(ladder, results));
+
+        Ladder expected = new Ladder();
+        expected.setClock(Clock.fixed(SEEDED, ZoneOffset.UTC));
+        List<Player> seeded = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            Player player = new Player("P" + i, "Surname", i);
+            player.setEmail("p" + i + "@example.com");
+            seeded.add(player);
+        }
+        expected.addPlayers(seeded);
+        for (int i = 0; i < numResults; i++) {
+            expected.setClock(Clock.fixed(SEEDED.plusSeconds(i), ZoneOffset.UTC));
+            expected.matchResult(matches[i][0], matches[i][1]);
+        }
+        LadderJournalTest.assertSameLadder(expected, ladder);
+        Instant midSeason = SEEDED.plusSeconds(numResults / 2);
+        assertArrayEquals(expected.getStandingsAt(midSeason), ladder.getStandingsAt(midSeason));
+    }
+
+    @Test
+    public void validationTest() throws IOException {
+        assertFails("2,A,B\n1,C,D\n2,E,F", ":3: position 2 is already taken");
+        assertFails("1,A,B\n3,C,D", "2 is missing");
+        assertFails("1,A\n", ":1: expected position");
+        assertFails("x,A,B\n1,C,D\nz,E,F", ":3: bad position 'z'");
+        assertFails("1,\"A,B", ":1: unterminated quote");
+
+        Path players = write("ok.csv", "1,A,\n2,B,\n3,C,");
+        Ladder ladder = new Ladder();
+        LadderImport.loadPlayers(ladder, players, SEEDED);
+        try {
+            LadderImport.loadPlayers(ladder, players, SEEDED);
+            fail();
+        } catch (IllegalStateException e) {
+            // already has players
+        }
+        assertResultFails(ladder, "2024-01-02,1,2\n2024-01-01T23:00:00Z,3,2", ":2: result dated",
+                "the 1 results before it were applied");
+        assertResultFails(ladder, "2024-01-02,2,4", ":1: positions 2 & 4");
+        assertResultFails(ladder, "2024-01-02,2,2", ":1: positions 2 & 2");
+        assertResultFails(ladder, "2024-01-02,3,2,forfeit", ":1: unknown result");
+        assertResultFails(ladder, "2024-13-02,3,2", ":1: bad date");
+        assertResultFails(ladder, "2023-12-31,3,2", ":1: result dated");
+        // results up to the bad one are applied
+        assertEquals(1, ladder.getAllPlayerStats().getTotalMatchCount());
+        assertEquals("B", ladder.getPlayer(1).getFirstName());
+    }
+
+    private void assertFails(String players, String message) throws IOException {
+        try {
+            LadderImport.loadPlayers(new Ladder(), write("bad.csv", players), SEEDED);
+            fail(message);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private void assertResultFails(Ladder ladder, String results, String... messages) throws IOException {
+        try {
+            LadderImport.loadResults(ladder, write("bad.csv", results));
+            fail(messages[0]);
+        } catch (IOException e) {
+            for (String message : messages) {
+                assertTrue(e.getMessage(), e.getMessage().contains(message));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class LadderJournalTest {
+    static final Instant SEASON_START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayRebuildsLadder() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("ladder.journal");
+        Ladder ladder = new Ladder();
+        // fixed clocks so the timestamps compared by assertSameLadder don't depend on timing
+        ladder.setClock(Clock.fixed(SEASON_START, ZoneOffset.UTC));
+        try (LadderJournal journal = LadderJournal.open(file, Durability.GROUP_COMMIT)) {
+            ladder.addListener(journal);
+            playSeason(ladder, new Random(7));
+            ladder.setClock(Clock.fixed(SEASON_START.plusSeconds(60), ZoneOffset.UTC));
+            ladder.matchResult(1, 2);
+        }
+
+        Ladder replayed = new Ladder();
+        replayed.setClock(Clock.fixed(SEASON_START, ZoneOffset.UTC));
+        long numEvents = LadderJournal.replay(file, replayed);
+
+        assertEquals(50 + 1 + 1 + 1000 + 1, numEvents);
+        assertSameLadder(ladder, replayed);
+    }
+
+    @Test
+    public void tornRecordIsIgnored() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("torn.journal");
+        Ladder ladder = new Ladder();
+        try (LadderJournal journal = LadderJournal.open(file, Durability.SYNC)) {
+            ladder.addListener(journal);
+            ladder.addPlayer(new Player("A", "", 1));
+            ladder.addPlayer(new Player("B", "", 2));
+            ladder.matchResult(1, 2);
+        }
+        // chop the last match result in half, as if we died mid-write
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        Ladder replayed = new Ladder();
+        assertEquals(2, LadderJournal.replay(file, replayed));
+
+        // reopening cuts the torn record off so new events follow on cleanly
+        try (LadderJournal journal = LadderJournal.open(file, Durability.SYNC)) {
+            replayed.addListener(journal);
+            replayed.matchResult(1, 2);
+        }
+        Ladder again = new Ladder();
+        assertEquals(3, LadderJournal.replay(file, again));
+        assertEquals("B", again.getPlayer(1).getFirstName());
+    }
+
+    @Test
+    public void groupCommitFlushesOnTimer() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("quiet.journal");
+        try (LadderJournal journal = LadderJournal.open(file, Durability.GROUP_COMMIT)) {
+            journal.setGroupCommit(1000, 20);
+            Ladder ladder = new Ladder();
+            ladder.addListener(journal);
+            ladder.addPlayer(new Player("A", "", 1));
+            // nothing else comes in, the timer has to write the group out
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (Files.size(file) == LadderJournal.HEADER_SIZE && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, LadderJournal.replay(file, new Ladder()));
+        }
+    }
+
+    @Test
+    public void replayClockZones() {
+        ReplayClock clock = new ReplayClock();
+        Clock paris = clock.withZone(ZoneId.of("Europe/Paris"));
+        assertTrue(clock.withZone(ZoneOffset.UTC) == clock);
+        clock.millis = 1_700_000_000_000L;
+        assertEquals(clock.instant(), paris.instant());
+        assertEquals(ZoneId.of("Europe/Paris"), paris.getZone());
+        assertEquals(clock.millis, paris.withZone(ZoneOffset.UTC).millis());
+    }
+
+    static void playSeason(Ladder ladder, Random random) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            Player p = new Player("P" + i, "Last" + i, i);
+            p.setEmail("p" + i + "@example.com");
+            players.add(p);
+        }
+        ladder.addPlayers(players);
+        ladder.insertPlayer(new Player("New", "Player", 10));
+        ladder.removePlayer("P20", "Last20");
+        for (int i = 0; i < 1000; i++) {
+            if (i % 50 == 0) {
+                ladder.defaultResult(random.nextInt(50) + 1, random.nextInt(50) + 1);
+            } else {
+                ladder.matchResult(random.nextInt(50) + 1, random.nextInt(50) + 1);
+            }
+        }
+    }
+
+    static void assertSameLadder(Ladder expected, Ladder actual) {
+        int position = 1;
+        for (; expected.getPlayer(position) != null; position++) {
+            Player e = expected.getPlayer(position);
+            Player a = actual.getPlayer(position);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getFirstName(), a.getFirstName());
+            assertEquals(e.getEmail(), a.getEmail());
+            assertEquals(e.getPreviousPosition(), a.getPreviousPosition());
+            assertEquals(expected.getAllPlayerStats().getPlayerWinsLosses(e),
+                    actual.getAllPlayerStats().getPlayerWinsLosses(a));
+            assertEquals(expected.getAllPlayerStats().getEloRating(e),
+                    actual.getAllPlayerStats().getEloRating(a), 0);
+            assertEquals(expected.getAllPlayerStats().getGlickoRating(e),
+                    actual.getAllPlayerStats().getGlickoRating(a), 0);
+            assertArrayEquals(expected.getAllPlayerStats().getTimeline(e).toArray(),
+                    actual.getAllPlayerStats().getTimeline(a).toArray());
+        }
+        assertEquals(null, actual.getPlayer(position));
+        assertEquals(expected.getLastEventTime(), actual.getLastEventTime());
+        assertEquals(Arrays.toString(expected.getStandingsAt(expected.getLastEventTime().minusMillis(1))),
+                Arrays.toString(actual.getStandingsAt(actual.getLastEventTime().minusMillis(1))));
+        assertEquals(expected.getAllPlayerStats().getTotalMatchCount(),
+                actual.getAllPlayerStats().getTotalMatchCount());
+    }
+}
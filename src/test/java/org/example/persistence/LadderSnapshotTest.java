@@ -0,0 +1,58 @@
+package org.example.persistence;
+
+import static org.junit.Assert.assertEquals;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+public class LadderSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        Ladder ladder = new Ladder();
+        // fixed clocks so the timestamps compared by assertSameLadder don't depend on timing
+        ladder.setClock(Clock.fixed(LadderJournalTest.SEASON_START, ZoneOffset.UTC));
+        LadderJournalTest.playSeason(ladder, new Random(11));
+
+        Path file = folder.getRoot().toPath().resolve("ladder.snapshot");
+        LadderSnapshot.write(ladder, file);
+        Ladder loaded = LadderSnapshot.load(file);
+
+        LadderJournalTest.assertSameLadder(ladder, loaded);
+        for (int position = 1; ladder.getPlayer(position) != null; position++) {
+            Player e = ladder.getPlayer(position);
+            Player a = loaded.getPlayer(position);
+            assertEquals(ladder.getAllPlayerStats().getAllOpponentsHistory(e),
+                    loaded.getAllPlayerStats().getAllOpponentsHistory(a));
+            assertEquals(ladder.getAllPlayerStats().getPositionTimeline(e),
+                    loaded.getAllPlayerStats().getPositionTimeline(a));
+            assertEquals(ladder.getAllPlayerStats().getHighestOpponentDefeated(e),
+                    loaded.getAllPlayerStats().getHighestOpponentDefeated(a));
+            assertEquals(ladder.getAllPlayerStats().getAllTimeHighestPosition(e),
+                    loaded.getAllPlayerStats().getAllTimeHighestPosition(a));
+        }
+        assertEquals(ladder.getPlayer("P7", "Last7").getId(), loaded.getPlayer("p7", "last7").getId());
+
+        // the loaded ladder carries on where the old one left off
+        Clock later = Clock.fixed(LadderJournalTest.SEASON_START.plusSeconds(60), ZoneOffset.UTC);
+        ladder.setClock(later);
+        loaded.setClock(later);
+        ladder.matchResult(1, 5);
+        loaded.matchResult(1, 5);
+        ladder.insertPlayer(new Player("Late", "Joiner", 3));
+        loaded.insertPlayer(new Player("Late", "Joiner", 3));
+        LadderJournalTest.assertSameLadder(ladder, loaded);
+    }
+}
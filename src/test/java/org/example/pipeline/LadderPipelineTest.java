@@ -0,0 +1,122 @@
+package org.example.pipeline;
+
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+public class LadderPipelineTest {
+
+    private static Ladder newLadder(int numPlayers) {
+        Ladder ladder = new Ladder();
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        return ladder;
+    }
+
+    @Test
+    public void manyProducersTest() throws InterruptedException {
+        WaitStrategy[] strategies = {WaitStrategy.yielding(), WaitStrategy.sleeping(100_000), WaitStrategy.blocking()};
+        for (WaitStrategy waitStrategy : strategies) {
+            Ladder ladder = newLadder(200);
+            // small ring so producers keep running into a full one
+            LadderPipeline pipeline = new LadderPipeline(ladder, 64, waitStrategy);
+            pipeline.start();
+
+            int numProducers = 4;
+            int perProducer = 2000;
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < numProducers; t++) {
+                long seed = t;
+                Thread producer = new Thread(() -> {
+                    Random random = new Random(seed);
+                    List<CompletableFuture<Void>> mine = new ArrayList<>();
+                    for (int i = 0; i < perProducer; i++) {
+                        mine.add(pipeline.matchResult(random.nextInt(200) + 1, random.nextInt(200) + 1));
+                    }
+                    synchronized (futures) {
+                        futures.addAll(mine);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            pipeline.close();
+
+            assertTrue(futures.size() == numProducers * perProducer);
+            assertTrue(ladder.getAllPlayerStats().getTotalMatchCount() == numProducers * perProducer);
+            assertTrue(pipeline.backlog() == 0);
+            for (int position = 1; position <= 200; position++) {
+                assertTrue(ladder.getPlayer(position).getCurrentPosition() == position);
+            }
+        }
+    }
+
+    @Test
+    public void sameOrderAsDirectCallsTest() {
+        Ladder direct = newLadder(100);
+        Ladder piped = newLadder(100);
+        LadderPipeline pipeline = new LadderPipeline(piped, 16, WaitStrategy.yielding());
+        pipeline.start();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            int loserPos = random.nextInt(100) + 1;
+            int winnerPos = random.nextInt(100) + 1;
+            direct.matchResult(loserPos, winnerPos);
+            pipeline.matchResult(loserPos, winnerPos);
+            if (i == 1000) {
+                direct.insertPlayer(new Player("New", "Player", 7));
+                pipeline.insertPlayer(new Player("New", "Player", 7));
+                direct.removePlayer("P50", "");
+                pipeline.removePlayer("P50", "");
+            }
+        }
+        pipeline.close(); // drains
+
+        for (int position = 1; position <= 100; position++) {
+            assertTrue(direct.getPlayer(position).getFirstName().equals(piped.getPlayer(position).getFirstName()));
+        }
+    }
+
+    @Test
+    public void failuresAndBackpressureTest() {
+        Ladder ladder = newLadder(10);
+        LadderPipeline pipeline = new LadderPipeline(ladder, 2, WaitStrategy.busySpin());
+
+        // not started, so the ring fills up and stays full
+        assertTrue(pipeline.tryMatchResult(2, 3) != null);
+        assertTrue(pipeline.tryMatchResult(2, 3) != null);
+        assertTrue(pipeline.tryMatchResult(2, 3) == null);
+        assertTrue(pipeline.backlog() == 2);
+
+        pipeline.start();
+        CompletableFuture<Void> bad = pipeline.matchResult(0, 99); // no such positions
+        CompletableFuture<Void> good = pipeline.matchResult(1, 2);
+        pipeline.close();
+        assertTrue(bad.isCompletedExceptionally());
+        assertTrue(good.isDone() && !good.isCompletedExceptionally());
+
+        boolean rejected = false;
+        try {
+            pipeline.matchResult(1, 2);
+        } catch (IllegalStateException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+}
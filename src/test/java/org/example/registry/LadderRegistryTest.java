@@ -0,0 +1,150 @@
+package org.example.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class LadderRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Ladder addPlayers(Ladder ladder, int numPlayers) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            players.add(new Player("P" + i, "", i));
+        }
+        ladder.addPlayers(players);
+        return ladder;
+    }
+
+    @Test
+    public void laddersRunInOrderTest() throws IOException {
+        try (LadderRegistry registry = new LadderRegistry(4, LadderStore.none())) {
+            List<Ladder> direct = new ArrayList<>();
+            for (int l = 0; l < 50; l++) {
+                registry.create("division" + l);
+                registry.submit("division" + l, ladder -> addPlayers(ladder, 30));
+                direct.add(addPlayers(new Ladder(), 30));
+            }
+            // results for all the ladders interleaved, each ladder must still see its own in order
+            Random random = new Random(1);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                int l = random.nextInt(50);
+                int loserPos = random.nextInt(30) + 1;
+                int winnerPos = random.nextInt(30) + 1;
+                direct.get(l).matchResult(loserPos, winnerPos);
+                futures.add(registry.matchResult("division" + l, loserPos, winnerPos));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+            for (int l = 0; l < 50; l++) {
+                Ladder expected = direct.get(l);
+                String names = registry.submit("division" + l, ladder -> {
+                    StringBuilder sb = new StringBuilder();
+                    ladder.forEachPlayer(1, 30, p -> sb.append(p.getFirstName()).append(' '));
+                    return sb.toString();
+                }).join();
+                StringBuilder sb = new StringBuilder();
+                expected.forEachPlayer(1, 30, p -> sb.append(p.getFirstName()).append(' '));
+                assertEquals(sb.toString(), names);
+            }
+
+            // a task that throws only fails its own future
+            CompletableFuture<Void> bad = registry.matchResult("division0", 0, 99);
+            assertTrue(registry.submit("division0", Ladder::getNumPlayers).join() == 30);
+            assertTrue(bad.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void evictAndReloadTest() throws IOException {
+        LadderStore store = LadderStore.snapshots(folder.getRoot().toPath());
+        try (LadderRegistry registry = new LadderRegistry(2, store)) {
+            registry.createAll(Arrays.asList("singles", "doubles"));
+            registry.submit("singles", ladder -> addPlayers(ladder, 10));
+            registry.matchResult("singles", 1, 5).join();
+
+            assertTrue(registry.evictIdle(0, TimeUnit.NANOSECONDS).join() == 2);
+            assertTrue(!registry.isLoaded("singles"));
+            // loaded back the first time it's used
+            assertEquals("P5", registry.submit("singles", ladder -> ladder.getPlayer(1).getFirstName()).join());
+            assertTrue(registry.isLoaded("singles"));
+        }
+
+        // a new registry only loads what it's asked for
+        try (LadderRegistry registry = new LadderRegistry(2, store)) {
+            registry.openAll(Arrays.asList("singles", "juniors"));
+            assertTrue(!registry.isLoaded("singles"));
+            assertTrue(registry.submit("singles", Ladder::getNumPlayers).join() == 10);
+            assertTrue(registry.submit("juniors", Ladder::getNumPlayers).join() == 0);
+            registry.remove("singles").join();
+            assertTrue(!registry.contains("singles"));
+        }
+        assertTrue(store.load("singles") == null);
+    }
+
+    @Test
+    public void membersAcrossLaddersTest() throws IOException {
+        try (LadderRegistry registry = new LadderRegistry(2, LadderStore.none())) {
+            registry.createAll(Arrays.asList("singles", "doubles"));
+            registry.submit("singles", ladder -> addPlayers(ladder, 5));
+            registry.submit("doubles", ladder -> addPlayers(ladder, 5));
+
+            LadderRegistry.Member jo = registry.register("Jo", "Smith", "jo@example.com");
+            assertTrue(registry.register("Joanne", "Smith", " JO@example.com") == jo);
+            registry.join("singles", jo, 2).join();
+            registry.join("doubles", jo, 6).join();
+            // joining again leaves them where they are
+            assertEquals("jo@example.com", registry.join("singles", jo, 4).join().getEmail());
+            assertTrue(registry.submit("singles", Ladder::getNumPlayers).join() == 6);
+
+            Map<String, Integer> positions = registry.getPositions(jo).join();
+            assertEquals(Integer.valueOf(2), positions.get("singles"));
+            assertEquals(Integer.valueOf(6), positions.get("doubles"));
+
+            assertTrue(registry.leave("singles", jo).join());
+            assertEquals(1, jo.getLadders().size());
+            assertTrue(registry.getMember(jo.getId()) == jo);
+        }
+    }
+
+    @Test
+    public void storeNamesCheckedUpFrontTest() throws IOException {
+        try (LadderRegistry registry = new LadderRegistry(1, LadderStore.snapshots(folder.getRoot().toPath()))) {
+            for (String name : Arrays.asList("../escape", ".hidden", "a b", "")) {
+                try {
+                    registry.create(name);
+                    fail(name);
+                } catch (IllegalArgumentException e) {
+                    assertFalse(registry.contains(name));
+                }
+                try {
+                    registry.open(name);
+                    fail(name);
+                } catch (IllegalArgumentException e) {
+                    assertFalse(registry.contains(name));
+                }
+            }
+            registry.create("mens.open_2024-A");
+            assertTrue(registry.contains("mens.open_2024-A"));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.report;
+
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+public class LadderReportTest {
+    private Ladder ladder;
+
+    @Before
+    public void createLadder() {
+        ladder = new Ladder();
+        for (int i = 1; i <= 20; i++) {
+            ladder.addPlayer(new Player("P" + i, "", i));
+        }
+        ladder.insertPlayer(new Player("Smith, \"Jo\"", "O'Brien", 21));
+        ladder.matchResult(1, 3);  // P3 up to 1st
+        ladder.matchResult(2, 1);  // P3 stays 1st
+        ladder.matchResult(1, 21); // Jo up to 1st
+    }
+
+    private String report(LadderReport report) throws IOException {
+        StringWriter out = new StringWriter();
+        report.writeTo(out);
+        return out.toString();
+    }
+
+    @Test
+    public void csvPagingTest() throws IOException {
+        String[] lines = report(new LadderReport(ladder).format(ReportFormat.CSV).page(1, 3)).split("\n");
+        assertTrue(lines.length == 4); // header + 3
+        assertTrue(lines[0].startsWith("position,id,"));
+        assertTrue(lines[1].startsWith("2,3,P3,,2,1,1,"));
+        assertTrue(lines[1].endsWith(",3 1 1 2,1,2"));
+
+        String top = report(new LadderReport(ladder).format(ReportFormat.CSV).top(1));
+        assertTrue(top.contains("\n1,21,\"Smith, \"\"Jo\"\"\",O'Brien,1,0,1,"));
+
+        assertTrue(report(new LadderReport(ladder).format(ReportFormat.CSV).page(50, 10)).split("\n").length == 1);
+    }
+
+    @Test
+    public void jsonLinesTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new LadderReport(ladder).format(ReportFormat.JSON_LINES).writeTo(out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines.length == 21);
+        assertTrue(lines[0].startsWith("{\"position\":1,\"id\":21,\"firstName\":\"Smith, \\\"Jo\\\"\""));
+        assertTrue(lines[1].contains("\"opponents\":[{\"id\":1,\"firstName\":\"P1\",\"lastName\":\"\",\"wins\":2,\"losses\":0},"
+                + "{\"id\":21,\"firstName\":\"Smith, \\\"Jo\\\"\",\"lastName\":\"O'Brien\",\"wins\":0,\"losses\":1}]"));
+        assertTrue(lines[1].endsWith("\"timeline\":[3,1,1,2],\"bestStreak\":[1,2]}"));
+        assertTrue(lines[20].endsWith("\"opponents\":[],\"timeline\":[],\"bestStreak\":null}"));
+    }
+
+    @Test
+    public void plainTest() throws IOException {
+        String text = report(new LadderReport(ladder).top(2));
+        assertTrue(text.startsWith("\n== Ladder ==\n1: Smith, \"Jo\"O'Brien |P:1 W:1 L:0|"));
+        assertTrue(text.contains("Position Timeline: [3, <1, 1>, 2]"));
+        assertTrue(!text.contains("\u001B"));
+        assertTrue(text.endsWith("Total Num of matches: 3\n\n"));
+    }
+}
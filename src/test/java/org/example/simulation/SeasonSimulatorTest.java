@@ -0,0 +1,55 @@
+package org.example.simulation;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class SeasonSimulatorTest {
+
+    @Test
+    public void sameSeedSameResultTest() {
+        SeasonSimulator simulator = new SeasonSimulator(20, 300, WinProbabilityModel.byRankGap(0.6, 5));
+        simulator.setPool(new ForkJoinPool(1));
+        SimulationResult one = simulator.run(500, 42);
+        simulator.setPool(new ForkJoinPool(4));
+        SimulationResult four = simulator.run(500, 42);
+
+        assertTrue(one.getNumSeasons() == 500 && four.getNumSeasons() == 500);
+        assertTrue(one.getNumMatches() == four.getNumMatches());
+        assertTrue(one.getNeverReachedTop() == four.getNeverReachedTop());
+        assertTrue(Arrays.equals(one.getRankVolatility().getCounts(), four.getRankVolatility().getCounts()));
+        assertTrue(Arrays.equals(one.getTimeToTop().getCounts(), four.getTimeToTop().getCounts()));
+        assertTrue(Arrays.equals(one.getWinnerStartPosition().getCounts(), four.getWinnerStartPosition().getCounts()));
+
+        SimulationResult other = simulator.run(500, 43);
+        assertTrue(other.getNumMatches() != one.getNumMatches()
+                || !Arrays.equals(other.getRankVolatility().getCounts(), one.getRankVolatility().getCounts()));
+    }
+
+    @Test
+    public void modelsTest() {
+        // favourite always wins, nobody ever moves
+        SimulationResult fixed = new SeasonSimulator(10, 200, WinProbabilityModel.fixed(1.0)).run(100, 1);
+        assertTrue(fixed.getRankVolatility().getMax() == 0);
+        assertTrue(fixed.getNeverReachedTop() == 100);
+        assertTrue(fixed.getWinnerStartPosition().getMax() == 1);
+
+        // underdog always wins and can only challenge one place up, the bottom player climbs
+        // one place per win
+        SeasonSimulator climbing = new SeasonSimulator(10, 2000, WinProbabilityModel.fixed(0.0));
+        climbing.setChallengeRange(1);
+        SimulationResult result = climbing.run(100, 1);
+        assertTrue(result.getNeverReachedTop() == 0);
+        assertTrue(result.getTimeToTop().getMin() >= 9);
+
+        // much the strongest player starts at the bottom and nearly always finishes top
+        double[] ratings = new double[11];
+        Arrays.fill(ratings, 1500);
+        ratings[10] = 2500;
+        SimulationResult rated = new SeasonSimulator(10, 500, WinProbabilityModel.byRating(ratings)).run(200, 7);
+        assertTrue(rated.getWinnerStartPosition().getPercentile(0.1) == 10);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import org.example.MatchStatus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class HeadToHeadTest {
+
+    /**
+     * Random results, including players against themselves and defaults, checked from both
+     * sides against plain counts, and each player's opponents in the order first played
+     */
+    @Test
+    public void bothSidesTest() {
+        int numPlayers = 30;
+        HeadToHead headToHead = new HeadToHead();
+        int[][] wins = new int[numPlayers + 1][numPlayers + 1];
+        int[][] losses = new int[numPlayers + 1][numPlayers + 1];
+        List<List<Integer>> firstPlayed = new ArrayList<>();
+        for (int id = 0; id <= numPlayers; id++) {
+            firstPlayed.add(new ArrayList<>());
+        }
+        MatchStatus[] statuses = {MatchStatus.VICTORY, MatchStatus.DEFEAT, MatchStatus.DEFAULT_VICTORY};
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            int player = random.nextInt(numPlayers) + 1;
+            int opponent = random.nextInt(50) == 0 ? player : random.nextInt(numPlayers) + 1;
+            MatchStatus status = statuses[random.nextInt(statuses.length)];
+            headToHead.record(player, opponent, status);
+            if (status == MatchStatus.DEFAULT_VICTORY) {
+                continue;
+            }
+            if (!firstPlayed.get(player).contains(opponent)) {
+                firstPlayed.get(player).add(opponent);
+                if (opponent != player) {
+                    firstPlayed.get(opponent).add(player);
+                }
+            }
+            if (status == MatchStatus.VICTORY) {
+                wins[player][opponent]++;
+            } else {
+                losses[player][opponent]++;
+            }
+            if (opponent != player) {
+                if (status == MatchStatus.VICTORY) {
+                    losses[opponent][player]++;
+                } else {
+                    wins[opponent][player]++;
+                }
+            }
+        }
+
+        for (int player = 1; player <= numPlayers; player++) {
+            for (int opponent = 1; opponent <= numPlayers; opponent++) {
+                assertEquals(wins[player][opponent], headToHead.getWins(player, opponent));
+                assertEquals(losses[player][opponent], headToHead.getLosses(player, opponent));
+            }
+            List<Integer> opponents = new ArrayList<>();
+            for (int e = headToHead.firstEntry(player); e != HeadToHead.NONE; e = headToHead.nextEntry(e)) {
+                int opponent = headToHead.getOpponentId(e);
+                opponents.add(opponent);
+                assertEquals(wins[player][opponent], headToHead.getWins(e));
+                assertEquals(losses[player][opponent], headToHead.getLosses(e));
+            }
+            assertEquals(firstPlayed.get(player), opponents);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class PlayerRatingsTest {
+
+    @Test
+    public void singleMatchTest() {
+        Ladder ladder = new Ladder();
+        ladder.addPlayer(new Player("A", "", 1));
+        ladder.addPlayer(new Player("B", "", 2));
+        ladder.matchResult(1, 2); // B beats A
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        Player a = ladder.getPlayer(2);
+        Player b = ladder.getPlayer(1);
+
+        // evenly rated, so the winner takes half of K
+        assertEquals(1516, stats.getEloRating(b), 1e-9);
+        assertEquals(1484, stats.getEloRating(a), 1e-9);
+
+        // brand new players with RD 350 move a long way & become more certain
+        assertEquals(1662.3, stats.getGlickoRating(b), 0.1);
+        assertEquals(1337.7, stats.getGlickoRating(a), 0.1);
+        assertEquals(290.3, stats.getGlickoDeviation(b), 0.1);
+        assertTrue(stats.getRatings().getEloWinProbability(b.getId(), a.getId()) > 0.5);
+        assertTrue(stats.getRatings().getGlickoWinProbability(b.getId(), a.getId()) > 0.5);
+    }
+
+    @Test
+    public void replayMatchesIncrementalTest() {
+        Ladder ladder = new Ladder();
+        for (int i = 1; i <= 30; i++) {
+            ladder.addPlayer(new Player("P" + i, "", i));
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            ladder.matchResult(random.nextInt(30) + 1, random.nextInt(30) + 1);
+        }
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        double[] elo = new double[31];
+        double[] glicko = new double[31];
+        for (int id = 1; id <= 30; id++) {
+            elo[id] = stats.getRatings().getElo(id);
+            glicko[id] = stats.getRatings().getGlickoRating(id);
+        }
+
+        // same settings again, nothing changes
+        stats.setRatingSettings(RatingSettings.DEFAULTS);
+        for (int id = 1; id <= 30; id++) {
+            assertEquals(elo[id], stats.getRatings().getElo(id), 1e-9);
+            assertEquals(glicko[id], stats.getRatings().getGlickoRating(id), 1e-9);
+        }
+
+        // a smaller K pulls everyone towards the middle, the ratings still add up
+        List<PlayerRatings> candidates = PlayerRatings.replay(stats.getMatchHistory(),
+                Arrays.asList(RatingSettings.DEFAULTS.withEloK(16), RatingSettings.DEFAULTS.withEloK(64)));
+        double spread16 = 0;
+        double spread64 = 0;
+        double total = 0;
+        for (int id = 1; id <= 30; id++) {
+            spread16 += Math.abs(candidates.get(0).getElo(id) - 1500);
+            spread64 += Math.abs(candidates.get(1).getElo(id) - 1500);
+            total += candidates.get(0).getElo(id);
+        }
+        assertTrue(spread16 < spread64);
+        assertEquals(30 * 1500, total, 1e-6);
+    }
+}
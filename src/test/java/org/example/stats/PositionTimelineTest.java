@@ -0,0 +1,165 @@
+package org.example.stats;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.example.component.AllPlayerStats;
+import org.example.component.Ladder;
+import org.example.component.Player;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PositionTimelineTest {
+
+    @Test
+    public void encodingAndStreaksTest() {
+        PositionTimeline timeline = new PositionTimeline();
+        int[] positions = {5, 3, 3, 200_000, 1, 1, 4, 1, 1, 1_000_000, 2};
+        for (int position : positions) {
+            timeline.add(position);
+        }
+        assertArrayEquals(positions, timeline.toArray());
+        assertEquals(2, timeline.getLast());
+        assertEquals(1, timeline.getBestPosition());
+        // two runs of 2 at position 1, ties go to the latest
+        assertEquals(7, timeline.getBestStreakStart());
+        assertEquals(8, timeline.getBestStreakEnd());
+        assertEquals(0, timeline.getCurrentStreakLength());
+    }
+
+    @Test
+    public void matchesHistoryTest() {
+        Ladder ladder = new Ladder();
+        for (int i = 1; i <= 30; i++) {
+            ladder.addPlayer(new Player("P" + i, "", i));
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            ladder.matchResult(random.nextInt(30) + 1, random.nextInt(30) + 1);
+        }
+        for (int position = 1; position <= 30; position++) {
+            Player player = ladder.getPlayer(position);
+            List<OpponentResult> results = ladder.getAllPlayerStats().getPlayerStats(player).getStatsResults();
+            int[] expected = new int[results.size() + 1];
+            expected[0] = results.get(0).getMyPreviousPosition();
+            for (int i = 0; i < results.size(); i++) {
+                expected[i + 1] = results.get(i).getMyCurrentPosition();
+            }
+            assertArrayEquals(expected, ladder.getAllPlayerStats().getTimeline(player).toArray());
+        }
+    }
+
+    @Test
+    public void fullTimelineTest() {
+        Ladder ladder = new Ladder();
+        // every position each player has held, worked out the slow way
+        Map<Player, List<Integer>> expected = new HashMap<>();
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            Player player = new Player("P" + i, "", i);
+            ladder.addPlayer(player);
+            players.add(player);
+            expected.put(player, new ArrayList<>());
+            expected.get(player).add(i);
+        }
+        Random random = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            int size = ladder.getNumPlayers();
+            Player winner = null;
+            Player loser = null;
+            int choice = random.nextInt(20);
+            if (choice == 0) {
+                Player player = new Player("New" + i, "", random.nextInt(size) + 1);
+                ladder.insertPlayer(player);
+                players.add(player);
+                expected.put(player, new ArrayList<>());
+            } else if (choice == 1 && size > 20) {
+                Player player = ladder.getPlayer(random.nextInt(size) + 1);
+                ladder.removePlayerById(player.getId());
+                players.remove(player);
+            } else {
+                int loserPos = random.nextInt(size) + 1;
+                int winnerPos = random.nextInt(size) + 1;
+                winner = ladder.getPlayer(winnerPos);
+                loser = ladder.getPlayer(loserPos);
+                ladder.matchResult(loserPos, winnerPos);
+            }
+            for (Player player : players) {
+                List<Integer> positions = expected.get(player);
+                int position = player.getCurrentPosition();
+                if (player == winner || player == loser || positions.isEmpty()
+                        || positions.get(positions.size() - 1) != position) {
+                    positions.add(position);
+                }
+            }
+            // highs asked for along the way, so later ones carry on from what's been worked out
+            if (i % 50 == 0) {
+                for (Player player : players) {
+                    assertEquals(best(expected.get(player)), ladder.getAllPlayerStats().getAllTimeHighestPosition(player));
+                }
+            }
+        }
+
+        AllPlayerStats stats = ladder.getAllPlayerStats();
+        for (Player player : players) {
+            List<Integer> positions = expected.get(player);
+            assertEquals(positions, stats.getPositionTimeline(player).getFirst());
+            assertEquals(best(positions), stats.getAllTimeHighestPosition(player));
+        }
+    }
+
+    private static int best(List<Integer> positions) {
+        int best = Integer.MAX_VALUE;
+        for (int position : positions) {
+            best = Math.min(best, position);
+        }
+        return best;
+    }
+
+    /**
+     * Narrow shifts at both ends of a big ladder, as from upsets in small challenge ranges.
+     * A lookup in between has none of them covering it, which has to be found without going
+     * through them all, ie this times out if nextShift is linear in the size of the log
+     */
+    @Test(timeout = 20_000)
+    public void narrowShiftsFarApartTest() {
+        RankChangeLog log = new RankChangeLog();
+        int numShifts = 1 << 20;
+        for (int i = 0; i < numShifts; i += 2) {
+            log.record(2, 3, 1, i);
+            log.record(999_000, 999_002, 1, i + 1);
+        }
+        for (int i = 0; i < 200_000; i++) {
+            int start = (int) (i * 7919L % numShifts);
+            assertEquals(RankChangeLog.NONE, log.nextShift(start, numShifts, 500_000));
+            assertEquals(start + (start & 1), log.nextShift(start, numShifts, 3));
+            assertEquals(start | 1, log.nextShift(start, numShifts, 999_001));
+        }
+
+        // against a scan, with the log growing between lookups and ranges past the end so far
+        Random random = new Random(9);
+        log = new RankChangeLog();
+        for (int i = 0; i < 3000; i++) {
+            int from = random.nextInt(1 << random.nextInt(16)) + 1;
+            log.record(from, from + random.nextInt(1 << random.nextInt(12)), random.nextBoolean() ? 1 : -1, i);
+            for (int j = 0; j < 5; j++) {
+                int position = random.nextBoolean() ? random.nextInt(1 << 16) + 1
+                        : log.getFrom(random.nextInt(log.size())) + random.nextInt(3);
+                int start = random.nextInt(log.size());
+                int end = start + random.nextInt(log.size() - start + 1);
+                int expected = RankChangeLog.NONE;
+                for (int shift = start; shift < end && expected == RankChangeLog.NONE; shift++) {
+                    if (log.getFrom(shift) <= position && position <= log.getTo(shift)) {
+                        expected = shift;
+                    }
+                }
+                assertEquals(expected, log.nextShift(start, end, position));
+            }
+        }
+    }
+}